@@ -21,7 +21,7 @@ import java.util.Set;
 
 /**
  * Initializes reference data after database tables are created
- * This runs after Hibernate has created/updated the schema
+ * This runs after the Flyway migrations have created/updated the schema
  */
 @Configuration
 public class DataInitializer implements ApplicationRunner {
@@ -78,7 +78,7 @@ public class DatabaseSeeder {
             
             if (!missingTables.isEmpty()) {
                 logger.info("Missing tables detected: {}", missingTables);
-                logger.info("Tables will be created by Hibernate if entity classes exist");
+                logger.info("Tables are created by the Flyway migrations if entity classes exist");
             } else {
                 logger.info("All required tables exist");
             }
@@ -123,7 +123,7 @@ public class DatabaseSeeder {
         } catch (DataAccessException e) {
             logger.error("Error seeding roles", e);
             logger.warn("This might be because the roles table doesn't exist yet. " +
-                        "It will be created by Hibernate automatically.");
+                        "It will be created by the Flyway migrations.");
         }
     }
 } 
\ No newline at end of file
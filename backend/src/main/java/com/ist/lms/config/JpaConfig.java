@@ -36,11 +36,18 @@ public class JpaConfig {
         properties.setProperty("hibernate.dialect", "org.hibernate.dialect.PostgreSQLDialect");
         properties.setProperty("hibernate.format_sql", "true");
         properties.setProperty("hibernate.show_sql", "true");
-        properties.setProperty("hibernate.hbm2ddl.auto", "update");
+        // Schema is owned by the Flyway migrations in db/migration; Hibernate only checks it
+        properties.setProperty("hibernate.hbm2ddl.auto", "validate");
         properties.setProperty("hibernate.physical_naming_strategy", 
                               "org.hibernate.boot.model.naming.PhysicalNamingStrategyStandardImpl");
         properties.setProperty("hibernate.implicit_naming_strategy", 
                               "org.hibernate.boot.model.naming.ImplicitNamingStrategyJpaCompliantImpl");
+        // Load eager associations of many parents with IN-list queries instead of one select per row
+        properties.setProperty("hibernate.default_batch_fetch_size", "100");
+        // Group inserts and updates into JDBC batches; needs sequence-generated IDs, IDENTITY disables it
+        properties.setProperty("hibernate.jdbc.batch_size", "50");
+        properties.setProperty("hibernate.order_inserts", "true");
+        properties.setProperty("hibernate.order_updates", "true");
         
         em.setJpaProperties(properties);
 
@@ -3,6 +3,12 @@ package com.ist.lms.controller;
 import com.ist.lms.exception.ResourceNotFoundException;
 import com.ist.lms.model.LeaveApplication;
 import com.ist.lms.model.enums.LeaveStatus;
+import com.ist.lms.payload.request.BusinessDaysBatchRequest;
+import com.ist.lms.payload.response.BusinessDaysResponse;
+import com.ist.lms.payload.response.CursorPage;
+import com.ist.lms.repository.projection.LeaveApplicationSummary;
+import com.ist.lms.service.HolidayCalendarService.BusinessDays;
+import com.ist.lms.service.HolidayCalendarService.DateSpan;
 import com.ist.lms.service.LeaveApplicationService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,6 +22,7 @@ import jakarta.validation.Valid;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.IntStream;
 
 @RestController
 @RequestMapping("/leave-applications")
@@ -40,16 +47,35 @@ public class LeaveApplicationController {
             return leaveApplicationService.getLeaveApplicationsByStatus(status);
         }
         
-        // Otherwise, return all leave applications
+        // Otherwise, return the newest leave applications
         return leaveApplicationService.getAllLeaveApplications();
     }
     
+    @GetMapping("/page")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('MANAGER')")
+    public CursorPage<LeaveApplicationSummary> getLeaveApplicationsPage(
+            @RequestParam(required = false) LeaveStatus status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return leaveApplicationService.getLeaveApplicationsPage(null, status, cursor, size);
+    }
+    
     @GetMapping("/user/{userId}")
     @PreAuthorize("hasRole('ADMIN') or hasRole('HR') or hasRole('MANAGER') or @securityService.isCurrentUser(#userId)")
     public List<LeaveApplication> getLeaveApplicationsByUserId(@PathVariable Long userId) {
         return leaveApplicationService.getLeaveApplicationsByUserId(userId);
     }
     
+    @GetMapping("/user/{userId}/page")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('HR') or hasRole('MANAGER') or @securityService.isCurrentUser(#userId)")
+    public CursorPage<LeaveApplicationSummary> getLeaveApplicationsPageByUserId(
+            @PathVariable Long userId,
+            @RequestParam(required = false) LeaveStatus status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return leaveApplicationService.getLeaveApplicationsPage(userId, status, cursor, size);
+    }
+    
     @GetMapping("/user/{userId}/status/{status}")
     @PreAuthorize("hasRole('ADMIN') or hasRole('HR') or hasRole('MANAGER') or @securityService.isCurrentUser(#userId)")
     public List<LeaveApplication> getLeaveApplicationsByUserIdAndStatus(
@@ -207,6 +233,23 @@ public class LeaveApplicationController {
         return ResponseEntity.ok(days);
     }
     
+    @PostMapping("/calculate-days/batch")
+    public ResponseEntity<List<BusinessDaysResponse>> calculateBusinessDaysBatch(
+            @Valid @RequestBody BusinessDaysBatchRequest request) {
+        
+        logger.debug("Calculating business days for {} date ranges", request.getRanges().size());
+        List<DateSpan> ranges = request.getRanges().stream()
+                .map(range -> new DateSpan(range.getStartDate(), range.getEndDate()))
+                .toList();
+        List<BusinessDays> results = leaveApplicationService.calculateBusinessDays(ranges);
+        
+        List<BusinessDaysResponse> responses = IntStream.range(0, ranges.size())
+                .mapToObj(i -> new BusinessDaysResponse(ranges.get(i).startDate(), ranges.get(i).endDate(),
+                        results.get(i).days(), results.get(i).returnDate()))
+                .toList();
+        return ResponseEntity.ok(responses);
+    }
+    
     @GetMapping("/check-balance")
     public ResponseEntity<Boolean> checkLeaveBalanceAvailability(
             @RequestParam Long userId,
@@ -1,14 +1,19 @@
 package com.ist.lms.controller;
 
 import com.ist.lms.exception.ResourceNotFoundException;
+import com.ist.lms.model.AccrualRun;
 import com.ist.lms.model.LeaveBalance;
 import com.ist.lms.model.enums.AdjustmentType;
+import com.ist.lms.payload.response.CacheStatsResponse;
+import com.ist.lms.repository.projection.LeaveBalanceAsOfView;
 import com.ist.lms.service.LeaveBalanceService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
@@ -39,6 +44,19 @@ public class LeaveBalanceController {
         return leaveBalanceService.getLeaveBalancesByUserIdAndYear(userId, year);
     }
     
+    @GetMapping("/user/{userId}/as-of/{date}")
+    public List<LeaveBalanceAsOfView> getLeaveBalancesAsOf(
+            @PathVariable Long userId,
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return leaveBalanceService.getLeaveBalancesAsOf(userId, date);
+    }
+    
+    @GetMapping("/cache-stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public CacheStatsResponse getBalanceCacheStats() {
+        return leaveBalanceService.getBalanceCacheStats();
+    }
+    
     @GetMapping("/{id}")
     public ResponseEntity<LeaveBalance> getLeaveBalanceById(@PathVariable Long id) {
         return leaveBalanceService.getLeaveBalanceById(id)
@@ -87,9 +105,18 @@ public class LeaveBalanceController {
     
     @PostMapping("/accrue/{month}/{year}")
     @PreAuthorize("hasRole('ADMIN') or hasRole('HR')")
-    public ResponseEntity<?> accrueLeaveBalances(@PathVariable int month, @PathVariable int year) {
-        leaveBalanceService.accrueLeaveBalances(month, year);
-        return ResponseEntity.ok().build();
+    public ResponseEntity<AccrualRun> accrueLeaveBalances(
+            @PathVariable int month, 
+            @PathVariable int year,
+            @RequestParam(defaultValue = "false") boolean resume) {
+        
+        return ResponseEntity.ok(leaveBalanceService.accrueLeaveBalances(month, year, resume));
+    }
+    
+    @GetMapping("/accrual-runs/{year}")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('HR')")
+    public List<AccrualRun> getAccrualRuns(@PathVariable int year) {
+        return leaveBalanceService.getAccrualRuns(year);
     }
     
     @PostMapping("/carry-over")
@@ -1,14 +1,22 @@
 package com.ist.lms.controller;
 
 import com.ist.lms.model.Notification;
+import com.ist.lms.payload.request.BroadcastNotificationRequest;
+import com.ist.lms.payload.response.CursorPage;
+import com.ist.lms.repository.projection.NotificationSummary;
 import com.ist.lms.security.SecurityService;
 import com.ist.lms.service.NotificationService;
+import com.ist.lms.service.notification.NotificationTemplate;
+import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -44,6 +52,25 @@ public class NotificationController {
                 .orElse(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
     }
     
+    /**
+     * Get a page of the current user's notifications, newest first
+     * @param unread whether to list unread notifications only
+     * @param cursor the cursor from the previous page
+     * @param size the page size
+     * @return ResponseEntity with the page
+     */
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<NotificationSummary>> getNotificationsPage(
+            @RequestParam(defaultValue = "false") boolean unread,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        logger.debug("REST request to get a page of notifications for current user");
+        
+        return securityService.getCurrentUser()
+                .map(user -> ResponseEntity.ok(notificationService.getNotificationsPage(user.getId(), unread, cursor, size)))
+                .orElse(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
+    }
+    
     /**
      * Get unread notifications for the current user
      * @return ResponseEntity with the list of unread notifications
@@ -78,6 +105,45 @@ public class NotificationController {
                 .orElse(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
     }
     
+    /**
+     * Stream notification events for the current user, in place of polling
+     * /count and /unread
+     * @return ResponseEntity with the server-sent event stream
+     */
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamNotifications() {
+        logger.debug("REST request to stream notifications for current user");
+        
+        return securityService.getCurrentUser()
+                .map(user -> ResponseEntity.ok(notificationService.openStream(user.getId())))
+                .orElse(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
+    }
+    
+    /**
+     * Send one notification to the given users, or to every active user
+     * @param request the notification and its recipients
+     * @return ResponseEntity with the number of notifications queued
+     */
+    @PostMapping("/broadcast")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('HR')")
+    public ResponseEntity<Map<String, Integer>> broadcastNotification(
+            @Valid @RequestBody BroadcastNotificationRequest request) {
+        logger.debug("REST request to broadcast notification '{}'", request.getTitle());
+        
+        NotificationTemplate template = NotificationTemplate
+                .of(request.getType(), request.getTitle(), request.getMessage())
+                .withAction(request.getActionUrl(), request.getActionText());
+        Map<String, String> parameters = request.getParameters() != null ? request.getParameters() : Map.of();
+        
+        int queued = request.getUserIds() == null
+                ? notificationService.broadcastNotification(template, parameters)
+                : notificationService.createNotifications(request.getUserIds(), template, parameters);
+        
+        Map<String, Integer> response = new HashMap<>();
+        response.put("queued", queued);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+    }
+    
     /**
      * Mark a notification as read
      * @param id notification ID
@@ -0,0 +1,66 @@
+package com.ist.lms.model;
+
+import com.ist.lms.model.enums.AccrualRunStatus;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ledger entry for one monthly accrual of a leave type. Users are accrued in ID
+ * order, and lastUserId is advanced in the same transaction as each chunk, so it
+ * is the checkpoint a resumed run continues from.
+ */
+@Entity
+@Table(name = "accrual_runs", uniqueConstraints = {
+    @UniqueConstraint(columnNames = {"month", "year", "leave_type_id"})
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccrualRun {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private int month;
+
+    private int year;
+
+    @ManyToOne(fetch = FetchType.EAGER)
+    @JoinColumn(name = "leave_type_id", nullable = false)
+    private LeaveType leaveType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private AccrualRunStatus status;
+
+    @Column(name = "last_user_id")
+    private long lastUserId;
+
+    @Column(name = "chunks_completed")
+    private int chunksCompleted;
+
+    @Column(name = "users_accrued")
+    private int usersAccrued;
+
+    @Size(max = 1000)
+    @Column(name = "error_message")
+    private String errorMessage;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+}
@@ -15,6 +15,7 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
+@EntityListeners(HolidayChangeListener.class)
 @Table(name = "holidays", uniqueConstraints = {
     @UniqueConstraint(columnNames = {"date"})
 })
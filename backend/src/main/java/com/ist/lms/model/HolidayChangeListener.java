@@ -0,0 +1,31 @@
+package com.ist.lms.model;
+
+import com.ist.lms.util.ChangeGeneration;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * Entity listener that bumps a global generation counter whenever a holiday changes.
+ * The holiday calendar compares this generation against the one it was loaded with
+ * and rebuilds its in-memory index when they differ.
+ */
+public class HolidayChangeListener {
+
+    private static final ChangeGeneration GENERATION = new ChangeGeneration();
+
+    /**
+     * Current holiday generation
+     * @return a value that changes every time a holiday is written
+     */
+    public static long currentGeneration() {
+        return GENERATION.current();
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onHolidayChanged(Holiday holiday) {
+        GENERATION.bump();
+    }
+}
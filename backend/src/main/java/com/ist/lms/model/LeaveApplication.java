@@ -10,6 +10,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDate;
@@ -62,7 +64,10 @@ public class LeaveApplication {
     @Column(name = "cancellation_reason")
     private String cancellationReason;
 
+    // Loaded for all applications of a query in one statement; a second list cannot
+    // be join-fetched alongside approvals
     @OneToMany(mappedBy = "leaveApplication", cascade = CascadeType.ALL, orphanRemoval = true)
+    @Fetch(FetchMode.SUBSELECT)
     private List<LeaveDocument> documents = new ArrayList<>();
 
     @OneToMany(mappedBy = "leaveApplication", cascade = CascadeType.ALL, orphanRemoval = true)
@@ -1,5 +1,6 @@
 package com.ist.lms.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.ist.lms.model.enums.ApprovalStatus;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Size;
@@ -20,11 +21,13 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class LeaveApproval {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "leave_approvals_id_seq")
+    @SequenceGenerator(name = "leave_approvals_id_seq", sequenceName = "leave_approvals_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "leave_application_id", nullable = false)
+    @JsonIgnore
     private LeaveApplication leaveApplication;
 
     @ManyToOne(fetch = FetchType.EAGER)
@@ -1,5 +1,6 @@
 package com.ist.lms.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -21,7 +22,8 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class LeaveBalance {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "leave_balances_id_seq")
+    @SequenceGenerator(name = "leave_balances_id_seq", sequenceName = "leave_balances_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.EAGER)
@@ -43,6 +45,11 @@ public class LeaveBalance {
     @Column(name = "carried_over_days")
     private double carriedOverDays;
     
+    // Held by pending applications; maintained by the database, never written from requests
+    @Column(name = "reserved_days")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private double reservedDays;
+    
     @Column(name = "expiry_date")
     private LocalDate expiryDate;
 
@@ -51,11 +58,19 @@ public class LeaveBalance {
 
     @UpdateTimestamp
     private LocalDateTime updatedAt;
+
+    // Bumped by every write, including the native delta updates in LeaveBalanceRepository
+    @Version
+    private Long version;
     
     public double getRemainingDays() {
         return totalDays - usedDays;
     }
     
+    public double getAvailableDays() {
+        return totalDays - usedDays - reservedDays;
+    }
+    
     // Explicitly added getters to resolve compilation issues
     public Long getId() {
         return id;
@@ -85,6 +100,10 @@ public class LeaveBalance {
         return carriedOverDays;
     }
     
+    public double getReservedDays() {
+        return reservedDays;
+    }
+    
     // Explicitly added setters to resolve compilation issues
     public void setId(Long id) {
         this.id = id;
@@ -162,6 +181,11 @@ public class LeaveBalance {
             return this;
         }
         
+        public LeaveBalanceBuilder reservedDays(double reservedDays) {
+            instance.reservedDays = reservedDays;
+            return this;
+        }
+        
         public LeaveBalanceBuilder expiryDate(LocalDate expiryDate) {
             instance.expiryDate = expiryDate;
             return this;
@@ -12,6 +12,11 @@ import org.hibernate.annotations.CreationTimestamp;
 
 import java.time.LocalDateTime;
 
+/**
+ * Entry in the ledger of a leave balance. Entries are only ever appended, and
+ * totalDelta and usedDelta record the entry's exact effect on the balance, so the
+ * balance at any time is the sum of its entries up to then.
+ */
 @Entity
 @Table(name = "leave_balance_adjustments")
 @Data
@@ -20,7 +25,8 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class LeaveBalanceAdjustment {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "leave_balance_adjustments_id_seq")
+    @SequenceGenerator(name = "leave_balance_adjustments_id_seq", sequenceName = "leave_balance_adjustments_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.EAGER)
@@ -42,6 +48,12 @@ public class LeaveBalanceAdjustment {
     @Enumerated(EnumType.STRING)
     private AdjustmentType type;
 
+    @Column(name = "total_delta")
+    private double totalDelta;
+
+    @Column(name = "used_delta")
+    private double usedDelta;
+
     @CreationTimestamp
     private LocalDateTime createdAt;
 
@@ -84,6 +96,16 @@ public class LeaveBalanceAdjustment {
             return this;
         }
         
+        public LeaveBalanceAdjustmentBuilder totalDelta(double totalDelta) {
+            instance.totalDelta = totalDelta;
+            return this;
+        }
+        
+        public LeaveBalanceAdjustmentBuilder usedDelta(double usedDelta) {
+            instance.usedDelta = usedDelta;
+            return this;
+        }
+        
         public LeaveBalanceAdjustment build() {
             return instance;
         }
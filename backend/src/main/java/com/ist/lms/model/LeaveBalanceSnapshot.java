@@ -0,0 +1,49 @@
+package com.ist.lms.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Running totals of a leave balance's ledger, folded over every entry created
+ * up to asOf (the time of the entry that completed the snapshot's interval).
+ * Reading the balance at a later time starts from the latest such snapshot and
+ * folds only the entries after it.
+ */
+@Entity
+@Table(name = "leave_balance_snapshots", uniqueConstraints = {
+    @UniqueConstraint(columnNames = {"leave_balance_id", "as_of"})
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeaveBalanceSnapshot {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "leave_balance_id", nullable = false)
+    private LeaveBalance leaveBalance;
+
+    @Column(name = "as_of", nullable = false)
+    private LocalDateTime asOf;
+
+    @Column(name = "total_days")
+    private double totalDays;
+
+    @Column(name = "used_days")
+    private double usedDays;
+
+    @Column(name = "entry_count")
+    private int entryCount;
+
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+}
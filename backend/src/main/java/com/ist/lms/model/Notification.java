@@ -8,6 +8,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.Formula;
 
 import java.time.LocalDateTime;
 
@@ -19,18 +20,23 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class Notification {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notifications_id_seq")
+    @SequenceGenerator(name = "notifications_id_seq", sequenceName = "notifications_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.EAGER)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
+    // Notifications are only written by NotificationRepository#moveFromOutbox; those written
+    // from a template store no text of their own and are rendered when read
     @NotBlank
     @Size(max = 200)
+    @Formula("COALESCE(title, render_notification('title', template_id, template_params, user_id))")
     private String title;
 
     @Size(max = 500)
+    @Formula("COALESCE(message, render_notification('message', template_id, template_params, user_id))")
     private String message;
 
     @Column(name = "is_read")
@@ -0,0 +1,51 @@
+package com.ist.lms.model;
+
+import com.ist.lms.model.enums.NotificationType;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Notification waiting to be delivered. Entries are written in the transaction of
+ * the change they report, so they exist exactly when that change committed, and
+ * are removed once the dispatcher has moved them into notifications.
+ */
+@Entity
+@Table(name = "notification_outbox")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationOutboxEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notification_outbox_id_seq")
+    @SequenceGenerator(name = "notification_outbox_id_seq", sequenceName = "notification_outbox_id_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private NotificationType type;
+
+    // Null on entries written from a template, see NotificationOutboxRepository
+    private String title;
+
+    private String message;
+
+    @Column(name = "action_url")
+    private String actionUrl;
+
+    @Column(name = "action_text")
+    private String actionText;
+
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+}
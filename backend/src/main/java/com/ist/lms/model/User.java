@@ -20,6 +20,7 @@ import java.util.HashSet;
 import java.util.Set;
 
 @Entity
+@EntityListeners(UserChangeListener.class)
 @Table(name = "users", uniqueConstraints = {
     @UniqueConstraint(columnNames = "email")
 })
@@ -0,0 +1,39 @@
+package com.ist.lms.model;
+
+import com.ist.lms.util.ChangeGeneration;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * Entity listener that bumps a global generation counter whenever a user is written.
+ * Caches derived from users (such as approvers per role) compare this generation
+ * against the one they were loaded with and reload when they differ.
+ */
+public class UserChangeListener {
+
+    private static final ChangeGeneration GENERATION = new ChangeGeneration();
+
+    /**
+     * Current user generation
+     * @return a value that changes every time a user is written
+     */
+    public static long currentGeneration() {
+        return GENERATION.current();
+    }
+
+    /**
+     * Force caches keyed on the user generation to reload, for changes that do not
+     * dirty the user row itself (e.g. role collection updates)
+     */
+    public static void markChanged() {
+        GENERATION.bump();
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onUserChanged(User user) {
+        markChanged();
+    }
+}
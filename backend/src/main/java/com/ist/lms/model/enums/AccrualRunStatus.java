@@ -0,0 +1,7 @@
+package com.ist.lms.model.enums;
+
+public enum AccrualRunStatus {
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -7,5 +7,7 @@ public enum AdjustmentType {
     LEAVE_TAKEN,
     LEAVE_CANCELLED,
     CARRIED_OVER,
-    EXPIRED
+    EXPIRED,
+    OPENING_BALANCE,
+    CORRECTION
 }
@@ -0,0 +1,38 @@
+package com.ist.lms.payload.request;
+
+import com.ist.lms.model.enums.NotificationType;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Request DTO for sending one notification to many users. The title and message
+ * may use {firstName}, {lastName} and {fullName} for the recipient, and any other
+ * {placeholder} given in parameters.
+ */
+@Data
+public class BroadcastNotificationRequest {
+
+    @NotBlank(message = "Title is required")
+    @Size(max = 255, message = "Title must not exceed 255 characters")
+    private String title;
+
+    @NotBlank(message = "Message is required")
+    @Size(max = 255, message = "Message must not exceed 255 characters")
+    private String message;
+
+    private NotificationType type = NotificationType.GENERAL;
+
+    private String actionUrl;
+
+    private String actionText;
+
+    private Map<String, String> parameters = new HashMap<>();
+
+    // Recipients; every active user when left out (an empty list reaches no one)
+    private List<Long> userIds;
+}
@@ -0,0 +1,34 @@
+package com.ist.lms.payload.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Request DTO for calculating business days of several date ranges at once
+ */
+@Data
+public class BusinessDaysBatchRequest {
+
+    @NotEmpty(message = "At least one date range is required")
+    @Size(max = 500, message = "No more than 500 date ranges can be calculated at once")
+    private List<@Valid DateRange> ranges;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class DateRange {
+        @NotNull(message = "Start date is required")
+        private LocalDate startDate;
+
+        @NotNull(message = "End date is required")
+        private LocalDate endDate;
+    }
+}
@@ -0,0 +1,20 @@
+package com.ist.lms.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Business days and return date calculated for a single date range
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BusinessDaysResponse {
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private double totalDays;
+    private LocalDate returnDate;
+}
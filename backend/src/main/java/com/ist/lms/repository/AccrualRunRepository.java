@@ -0,0 +1,53 @@
+package com.ist.lms.repository;
+
+import com.ist.lms.model.AccrualRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface AccrualRunRepository extends JpaRepository<AccrualRun, Long> {
+    Optional<AccrualRun> findByMonthAndYearAndLeaveTypeId(int month, int year, Long leaveTypeId);
+    
+    List<AccrualRun> findByYearOrderByMonthDescIdDesc(int year);
+    
+    /**
+     * Take over a failed run, or a running one whose worker stopped checkpointing
+     * @param staleBefore running runs last touched before this are considered abandoned
+     * @return 1 if the run was claimed, 0 if another worker owns it or it is complete
+     */
+    @Modifying
+    @Query("UPDATE AccrualRun r SET r.status = 'RUNNING', r.errorMessage = NULL, r.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE r.id = :id AND (r.status = 'FAILED' OR (r.status = 'RUNNING' AND r.updatedAt < :staleBefore))")
+    int claim(@Param("id") Long id, @Param("staleBefore") LocalDateTime staleBefore);
+    
+    /**
+     * Advance the checkpoint past a chunk, only if nobody else advanced it first
+     * @param previousUserId the checkpoint the chunk was read from
+     * @return 1 if the checkpoint moved, 0 if it had already moved
+     */
+    @Modifying
+    @Query("UPDATE AccrualRun r SET r.lastUserId = :lastUserId, r.chunksCompleted = r.chunksCompleted + 1, " +
+           "r.usersAccrued = r.usersAccrued + :users, r.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE r.id = :id AND r.status = 'RUNNING' AND r.lastUserId = :previousUserId")
+    int checkpoint(@Param("id") Long id,
+                   @Param("previousUserId") long previousUserId,
+                   @Param("lastUserId") long lastUserId,
+                   @Param("users") int users);
+    
+    @Modifying
+    @Query("UPDATE AccrualRun r SET r.status = 'COMPLETED', r.completedAt = CURRENT_TIMESTAMP, " +
+           "r.updatedAt = CURRENT_TIMESTAMP WHERE r.id = :id AND r.status = 'RUNNING'")
+    int complete(@Param("id") Long id);
+    
+    @Modifying
+    @Query("UPDATE AccrualRun r SET r.status = 'FAILED', r.errorMessage = :errorMessage, " +
+           "r.updatedAt = CURRENT_TIMESTAMP WHERE r.id = :id AND r.status = 'RUNNING'")
+    int fail(@Param("id") Long id, @Param("errorMessage") String errorMessage);
+}
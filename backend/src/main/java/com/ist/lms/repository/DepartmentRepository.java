@@ -2,6 +2,8 @@ package com.ist.lms.repository;
 
 import com.ist.lms.model.Department;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -11,4 +13,7 @@ public interface DepartmentRepository extends JpaRepository<Department, Long> {
     Optional<Department> findByName(String name);
     
     boolean existsByName(String name);
+    
+    @Query("SELECT d.manager.id FROM Department d WHERE d.id = :id")
+    Optional<Long> findManagerIdById(@Param("id") Long id);
 } 
\ No newline at end of file
@@ -23,4 +23,7 @@ public interface HolidayRepository extends JpaRepository<Holiday, Long> {
     
     @Query("SELECT h FROM Holiday h WHERE (MONTH(h.date) = :month AND DAY(h.date) = :day) AND h.isRecurring = true")
     List<Holiday> findRecurringHolidayByMonthAndDay(@Param("month") int month, @Param("day") int day);
+    
+    @Query("SELECT h FROM Holiday h WHERE h.isRecurring = true")
+    List<Holiday> findAllRecurring();
 } 
\ No newline at end of file
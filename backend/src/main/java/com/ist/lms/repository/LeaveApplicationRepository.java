@@ -2,48 +2,110 @@ package com.ist.lms.repository;
 
 import com.ist.lms.model.LeaveApplication;
 import com.ist.lms.model.enums.LeaveStatus;
+import com.ist.lms.repository.projection.LeaveApplicationSummary;
+import com.ist.lms.repository.projection.LeaveIntervalView;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface LeaveApplicationRepository extends JpaRepository<LeaveApplication, Long> {
-       //SORT BY CREATED DATE DESC
-    List<LeaveApplication> findByUserId(Long userId);
+    // Listings are ordered newest first by (createdAt, id) in the database and capped by the limit
+    List<LeaveApplication> findByUserIdOrderByCreatedAtDescIdDesc(Long userId, Pageable limit);
     
-    List<LeaveApplication> findByUserIdAndStatus(Long userId, LeaveStatus status);
+    List<LeaveApplication> findByUserIdAndStatusOrderByCreatedAtDescIdDesc(Long userId, LeaveStatus status, Pageable limit);
     
-    List<LeaveApplication> findByStatus(LeaveStatus status);
+    List<LeaveApplication> findByStatusOrderByCreatedAtDescIdDesc(LeaveStatus status, Pageable limit);
     
-    @Query("SELECT la FROM LeaveApplication la WHERE la.user.id = :userId AND la.status = 'APPROVED' " +
-           "AND ((la.startDate BETWEEN :startDate AND :endDate) OR (la.endDate BETWEEN :startDate AND :endDate) " +
-           "OR (:startDate BETWEEN la.startDate AND la.endDate))")
-    List<LeaveApplication> findOverlappingLeaves(@Param("userId") Long userId,  
-                                                @Param("startDate") LocalDate startDate, 
-                                                @Param("endDate") LocalDate endDate);
+    /**
+     * Approved leaves overlapping a closed date range, compared as PostgreSQL daterange
+     * values so the partial GiST index on approved periods can serve the && test
+     */
+    String APPROVED_PERIOD_OVERLAPS = "la.status = 'APPROVED' " +
+            "AND daterange(la.start_date, la.end_date, '[]') && daterange(CAST(:startDate AS date), CAST(:endDate AS date), '[]') ";
     
-    @Query("SELECT la FROM LeaveApplication la WHERE la.status = 'APPROVED' " +
-           "AND ((la.startDate BETWEEN :startDate AND :endDate) OR (la.endDate BETWEEN :startDate AND :endDate))")
-    List<LeaveApplication> findAllLeavesInDateRange(@Param("startDate") LocalDate startDate, 
-                                                  @Param("endDate") LocalDate endDate);
+    /**
+     * Whether the user has another approved leave overlapping the range; the
+     * transactional counterpart of the in-memory overlap index
+     */
+    @Query(value = "SELECT EXISTS (SELECT 1 FROM leave_applications la WHERE la.user_id = :userId " +
+           "AND la.id <> :excludeId AND " + APPROVED_PERIOD_OVERLAPS + ")", nativeQuery = true)
+    boolean existsApprovedOverlap(@Param("userId") Long userId,
+                                  @Param("startDate") LocalDate startDate,
+                                  @Param("endDate") LocalDate endDate,
+                                  @Param("excludeId") Long excludeId);
     
-    @Query("SELECT la FROM LeaveApplication la WHERE la.user.department.id = :departmentId AND la.status = 'APPROVED' " +
-           "AND ((la.startDate BETWEEN :startDate AND :endDate) OR (la.endDate BETWEEN :startDate AND :endDate))")
-    List<LeaveApplication> findDepartmentLeavesInDateRange(@Param("departmentId") Long departmentId,
-                                                         @Param("startDate") LocalDate startDate, 
-                                                         @Param("endDate") LocalDate endDate);
+    /**
+     * Date ranges of every approved leave, used to build the in-memory overlap index
+     */
+    @Query("SELECT la.id AS id, u.id AS userId, d.id AS departmentId, la.startDate AS startDate, la.endDate AS endDate " +
+           "FROM LeaveApplication la JOIN la.user u LEFT JOIN u.department d WHERE la.status = 'APPROVED'")
+    List<LeaveIntervalView> findApprovedIntervals();
     
-    @Query("SELECT la FROM LeaveApplication la JOIN la.approvals ap WHERE ap.approver.id = :approverId AND ap.status = 'PENDING'")
+    List<LeaveApplication> findByIdInOrderByCreatedAtDescIdDesc(Collection<Long> ids);
+    
+    /**
+     * Approval inbox: each application with a PENDING level for the approver, once,
+     * with applicant (and their roles and department), leave type and approvals
+     * fetched in the same statement
+     */
+    @EntityGraph(attributePaths = {"user", "user.roles", "user.department", "leaveType", "approvals",
+            "approvals.approver"})
+    @Query("SELECT la FROM LeaveApplication la WHERE EXISTS (" +
+           "SELECT 1 FROM LeaveApproval ap WHERE ap.leaveApplication = la " +
+           "AND ap.approver.id = :approverId AND ap.status = 'PENDING') " +
+           "ORDER BY la.createdAt DESC, la.id DESC")
     List<LeaveApplication> findPendingApprovalsByApproverId(@Param("approverId") Long approverId);
     
-    @Query("SELECT la FROM LeaveApplication la JOIN FETCH la.user")
-    List<LeaveApplication> findAllWithUsers();
+    @Query("SELECT la FROM LeaveApplication la JOIN FETCH la.user ORDER BY la.createdAt DESC, la.id DESC")
+    List<LeaveApplication> findAllWithUsers(Pageable limit);
     
     @Query("SELECT la FROM LeaveApplication la JOIN FETCH la.user WHERE la.id = :id")
     Optional<LeaveApplication> findByIdWithUser(@Param("id") Long id);
-} 
\ No newline at end of file
+    
+    /*
+     * Keyset pages: summary rows strictly after the (createdAt, id) cursor, newest first.
+     * Pass PageRequest.of(0, size) as the limit; no count query is issued.
+     */
+    
+    String SUMMARY_SELECT = "SELECT la.id AS id, u.id AS userId, CONCAT(u.firstName, ' ', u.lastName) AS applicantName, " +
+            "lt.id AS leaveTypeId, lt.name AS leaveTypeName, la.startDate AS startDate, la.endDate AS endDate, " +
+            "la.totalDays AS totalDays, la.status AS status, la.createdAt AS createdAt " +
+            "FROM LeaveApplication la JOIN la.user u JOIN la.leaveType lt ";
+    
+    String KEYSET_AFTER = "(la.createdAt < :createdAt OR (la.createdAt = :createdAt AND la.id < :id)) " +
+            "ORDER BY la.createdAt DESC, la.id DESC";
+    
+    @Query(SUMMARY_SELECT + "WHERE " + KEYSET_AFTER)
+    List<LeaveApplicationSummary> findPageAfter(@Param("createdAt") LocalDateTime createdAt,
+                                                @Param("id") Long id,
+                                                Pageable limit);
+    
+    @Query(SUMMARY_SELECT + "WHERE la.status = :status AND " + KEYSET_AFTER)
+    List<LeaveApplicationSummary> findPageByStatusAfter(@Param("status") LeaveStatus status,
+                                                        @Param("createdAt") LocalDateTime createdAt,
+                                                        @Param("id") Long id,
+                                                        Pageable limit);
+    
+    @Query(SUMMARY_SELECT + "WHERE u.id = :userId AND " + KEYSET_AFTER)
+    List<LeaveApplicationSummary> findPageByUserIdAfter(@Param("userId") Long userId,
+                                                        @Param("createdAt") LocalDateTime createdAt,
+                                                        @Param("id") Long id,
+                                                        Pageable limit);
+    
+    @Query(SUMMARY_SELECT + "WHERE u.id = :userId AND la.status = :status AND " + KEYSET_AFTER)
+    List<LeaveApplicationSummary> findPageByUserIdAndStatusAfter(@Param("userId") Long userId,
+                                                                 @Param("status") LeaveStatus status,
+                                                                 @Param("createdAt") LocalDateTime createdAt,
+                                                                 @Param("id") Long id,
+                                                                 Pageable limit);
+}
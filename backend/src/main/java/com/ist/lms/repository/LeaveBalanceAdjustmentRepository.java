@@ -1,9 +1,16 @@
 package com.ist.lms.repository;
 
 import com.ist.lms.model.LeaveBalanceAdjustment;
+import com.ist.lms.repository.projection.LedgerDeltaView;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -11,4 +18,70 @@ public interface LeaveBalanceAdjustmentRepository extends JpaRepository<LeaveBal
     List<LeaveBalanceAdjustment> findByLeaveBalanceId(Long leaveBalanceId);
     
     List<LeaveBalanceAdjustment> findByLeaveBalanceUserId(Long userId);
-} 
\ No newline at end of file
+    
+    /**
+     * Effects of a balance's ledger entries created up to a time
+     */
+    @Query("SELECT a.totalDelta AS totalDelta, a.usedDelta AS usedDelta FROM LeaveBalanceAdjustment a " +
+           "WHERE a.leaveBalance.id = :balanceId AND a.createdAt <= :asOf")
+    List<LedgerDeltaView> findDeltasThrough(@Param("balanceId") Long balanceId, @Param("asOf") LocalDateTime asOf);
+    
+    /**
+     * Effects of a balance's ledger entries created after one time and up to another
+     */
+    @Query("SELECT a.totalDelta AS totalDelta, a.usedDelta AS usedDelta FROM LeaveBalanceAdjustment a " +
+           "WHERE a.leaveBalance.id = :balanceId AND a.createdAt > :after AND a.createdAt <= :asOf")
+    List<LedgerDeltaView> findDeltasBetween(@Param("balanceId") Long balanceId,
+                                            @Param("after") LocalDateTime after,
+                                            @Param("asOf") LocalDateTime asOf);
+    
+    /**
+     * Record an adjustment on the given users' balances of one leave type and year,
+     * attributed to each balance owner
+     * @return number of adjustments inserted
+     */
+    @Modifying
+    @Query(value = "INSERT INTO leave_balance_adjustments (leave_balance_id, adjusted_by_id, adjustment_value, " +
+            "reason, type, total_delta, used_delta, createdAt) " +
+            "SELECT lb.id, lb.user_id, :amount, :reason, :type, :amount, 0, now() FROM leave_balances lb " +
+            "WHERE lb.user_id IN (:userIds) AND lb.leave_type_id = :leaveTypeId AND lb.year = :year",
+            nativeQuery = true)
+    int insertForBalances(@Param("userIds") Collection<Long> userIds,
+                          @Param("leaveTypeId") Long leaveTypeId,
+                          @Param("year") int year,
+                          @Param("amount") double amount,
+                          @Param("reason") String reason,
+                          @Param("type") String type);
+    
+    /**
+     * Record the carry-over into each of the given users' next-year balances,
+     * see {@link LeaveBalanceRepository#upsertCarryOver}
+     * @return number of adjustments inserted
+     */
+    @Modifying
+    @Query(value = "INSERT INTO leave_balance_adjustments (leave_balance_id, adjusted_by_id, adjustment_value, " +
+            "reason, type, total_delta, used_delta, createdAt) " +
+            "SELECT next.id, prev.user_id, " + LeaveBalanceRepository.CARRY_OVER_DAYS + ", " +
+            LeaveBalanceRepository.CARRY_OVER_REASON + ", 'CARRIED_OVER', " + LeaveBalanceRepository.CARRY_OVER_DAYS + ", 0, now() " +
+            "FROM leave_balances prev JOIN leave_balances next ON next.user_id = prev.user_id " +
+            "AND next.leave_type_id = prev.leave_type_id AND next.year = :toYear " +
+            LeaveBalanceRepository.CARRY_OVER_FILTER,
+            nativeQuery = true)
+    int insertCarryOverAdjustments(@Param("userIds") Collection<Long> userIds,
+                                   @Param("fromYear") int fromYear,
+                                   @Param("toYear") int toYear,
+                                   @Param("maxDays") double maxDays);
+    
+    /**
+     * Record the days about to expire on a batch of balances,
+     * see {@link LeaveBalanceRepository#expireRemainingDays}
+     * @return number of adjustments inserted
+     */
+    @Modifying
+    @Query(value = "INSERT INTO leave_balance_adjustments (leave_balance_id, adjusted_by_id, adjustment_value, " +
+            "reason, type, total_delta, used_delta, createdAt) " +
+            "SELECT lb.id, lb.user_id, lb.total_days - lb.used_days - lb.reserved_days, CONCAT('Balance expired on ', CAST(:currentDate AS date)), " +
+            "'EXPIRED', lb.used_days + lb.reserved_days - lb.total_days, 0, now() FROM leave_balances lb " + LeaveBalanceRepository.EXPIRY_FILTER,
+            nativeQuery = true)
+    int insertExpiryAdjustments(@Param("ids") Collection<Long> ids, @Param("currentDate") LocalDate currentDate);
+}
\ No newline at end of file
@@ -1,14 +1,22 @@
 package com.ist.lms.repository;
 
 import com.ist.lms.model.LeaveBalance;
+import com.ist.lms.repository.projection.LeaveBalanceAsOfView;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface LeaveBalanceRepository extends JpaRepository<LeaveBalance, Long> {
@@ -23,6 +31,183 @@ public interface LeaveBalanceRepository extends JpaRepository<LeaveBalance, Long
                                               @Param("leaveTypeId") Long leaveTypeId, 
                                               @Param("year") int year);
     
-    @Query("SELECT lb FROM LeaveBalance lb WHERE lb.expiryDate < :currentDate AND lb.totalDays > lb.usedDays")
-    List<LeaveBalance> findAllExpiredBalances(@Param("currentDate") LocalDate currentDate);
-} 
\ No newline at end of file
+    /**
+     * A user's balances as they stood just before a time, each folded from its latest ledger
+     * snapshot before then plus the entries after it; both reads are index range scans
+     */
+    @Query(value = "SELECT lb.id AS leaveBalanceId, lt.id AS leaveTypeId, lt.name AS leaveTypeName, lb.year AS year, " +
+           "COALESCE(s.total_days, 0) + COALESCE(t.total_delta, 0) AS totalDays, " +
+           "COALESCE(s.used_days, 0) + COALESCE(t.used_delta, 0) AS usedDays " +
+           "FROM leave_balances lb JOIN leave_types lt ON lt.id = lb.leave_type_id " +
+           "LEFT JOIN LATERAL (SELECT sn.as_of, sn.total_days, sn.used_days FROM leave_balance_snapshots sn " +
+           "WHERE sn.leave_balance_id = lb.id AND sn.as_of < :before ORDER BY sn.as_of DESC LIMIT 1) s ON true " +
+           "LEFT JOIN LATERAL (SELECT sum(a.total_delta) AS total_delta, sum(a.used_delta) AS used_delta " +
+           "FROM leave_balance_adjustments a WHERE a.leave_balance_id = lb.id AND a.createdAt < :before " +
+           "AND a.createdAt > COALESCE(s.as_of, CAST('-infinity' AS timestamp))) t ON true " +
+           "WHERE lb.user_id = :userId AND lb.createdAt < :before " +
+           "ORDER BY lb.year DESC, lt.name",
+           nativeQuery = true)
+    List<LeaveBalanceAsOfView> findUserBalancesBefore(@Param("userId") Long userId,
+                                                      @Param("before") LocalDateTime before);
+    
+    /**
+     * Apply a ledger entry's effect to the stored totals of a balance. The delta is added in the
+     * database instead of writing back a value read earlier, so concurrent approvals and accruals
+     * never lose an update; the row lock taken by the UPDATE only serializes writers of the same balance.
+     * @return number of balances updated
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE leave_balances SET total_days = total_days + :totalDelta, " +
+           "used_days = used_days + :usedDelta, version = version + 1, updatedAt = now() WHERE id = :id",
+           nativeQuery = true)
+    int applyDelta(@Param("id") Long id, @Param("totalDelta") double totalDelta, @Param("usedDelta") double usedDelta);
+    
+    /*
+     * Reservations hold the days of pending applications on the balance they will be taken from,
+     * so the days available (total - used - reserved) already account for requests in flight.
+     * A reservation is one conditional UPDATE: concurrent requests against a balance serialize on
+     * its row, and each sees the reservations committed before it.
+     */
+    
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE leave_balances SET reserved_days = reserved_days + :days, version = version + 1, " +
+           "updatedAt = now() WHERE user_id = :userId AND leave_type_id = :leaveTypeId AND year = :year " +
+           "AND total_days - used_days - reserved_days >= :days - 1e-9",
+           nativeQuery = true)
+    int reserveDays(@Param("userId") Long userId,
+                    @Param("leaveTypeId") Long leaveTypeId,
+                    @Param("year") int year,
+                    @Param("days") double days);
+    
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE leave_balances SET reserved_days = GREATEST(reserved_days - :days, 0), " +
+           "version = version + 1, updatedAt = now() " +
+           "WHERE user_id = :userId AND leave_type_id = :leaveTypeId AND year = :year",
+           nativeQuery = true)
+    int releaseReservedDays(@Param("userId") Long userId,
+                            @Param("leaveTypeId") Long leaveTypeId,
+                            @Param("year") int year,
+                            @Param("days") double days);
+    
+    /**
+     * IDs of balances whose stored totals differ from their ledger, folded from the latest
+     * snapshot plus the entries after it, so each balance reads fewer than a snapshot
+     * interval of entries through the ledger index instead of its whole history
+     */
+    @Query(value = "SELECT lb.id FROM leave_balances lb " +
+           "LEFT JOIN LATERAL (SELECT sn.as_of, sn.total_days, sn.used_days FROM leave_balance_snapshots sn " +
+           "WHERE sn.leave_balance_id = lb.id ORDER BY sn.as_of DESC LIMIT 1) s ON true " +
+           "LEFT JOIN LATERAL (SELECT sum(a.total_delta) AS total_delta, sum(a.used_delta) AS used_delta " +
+           "FROM leave_balance_adjustments a WHERE a.leave_balance_id = lb.id " +
+           "AND a.createdAt > COALESCE(s.as_of, CAST('-infinity' AS timestamp))) t ON true " +
+           "WHERE abs(lb.total_days - COALESCE(s.total_days, 0) - COALESCE(t.total_delta, 0)) > 1e-6 " +
+           "OR abs(lb.used_days - COALESCE(s.used_days, 0) - COALESCE(t.used_delta, 0)) > 1e-6 ORDER BY lb.id",
+           nativeQuery = true)
+    List<Long> findIdsOutOfLedger();
+    
+    /**
+     * Overwrite the stored totals of a balance with the sum of its ledger if they differ; lock the
+     * balance first, so no entry is appended between the sum and the write
+     * @return number of balances updated
+     */
+    @Modifying
+    @Query(value = "UPDATE leave_balances lb SET total_days = l.total_days, used_days = l.used_days, " +
+           "version = lb.version + 1, updatedAt = now() FROM (" +
+           "SELECT COALESCE(sum(total_delta), 0) AS total_days, COALESCE(sum(used_delta), 0) AS used_days " +
+           "FROM leave_balance_adjustments WHERE leave_balance_id = :id) l WHERE lb.id = :id " +
+           "AND (abs(lb.total_days - l.total_days) > 1e-6 OR abs(lb.used_days - l.used_days) > 1e-6)",
+           nativeQuery = true)
+    int rebuildFromLedger(@Param("id") Long id);
+    
+    /**
+     * Stream the IDs of expired balances with days left beyond those reserved by pending
+     * applications, in ID order; must be consumed inside a transaction so rows arrive through a cursor
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT lb.id FROM LeaveBalance lb WHERE lb.expiryDate < :currentDate " +
+           "AND lb.totalDays > lb.usedDays + lb.reservedDays ORDER BY lb.id")
+    Stream<Long> streamExpiredBalanceIds(@Param("currentDate") LocalDate currentDate);
+    
+    /*
+     * Expiry of a batch of balances: lock the rows, record adjustments and notifications
+     * from the days still left, then zero the available days with one UPDATE. Days reserved
+     * by pending applications do not expire, so those applications can still be approved.
+     */
+    
+    String EXPIRY_FILTER = "WHERE lb.id IN (:ids) AND lb.expiry_date < :currentDate " +
+            "AND lb.total_days > lb.used_days + lb.reserved_days";
+    
+    @Query(value = "SELECT lb.id FROM leave_balances lb WHERE lb.id IN (:ids) ORDER BY lb.id FOR UPDATE",
+           nativeQuery = true)
+    List<Long> lockByIds(@Param("ids") Collection<Long> ids);
+    
+    @Modifying
+    @Query(value = "UPDATE leave_balances lb SET total_days = lb.used_days + lb.reserved_days, version = lb.version + 1, " +
+           "updatedAt = now() " + EXPIRY_FILTER, nativeQuery = true)
+    int expireRemainingDays(@Param("ids") Collection<Long> ids, @Param("currentDate") LocalDate currentDate);
+    
+    /**
+     * Add an accrual to the balances of the given users in one statement, creating
+     * missing balances for the year with the accrued amount as their total
+     * @return number of balances inserted or updated
+     */
+    @Modifying
+    @Query(value = "INSERT INTO leave_balances (user_id, leave_type_id, year, total_days, used_days, " +
+            "carried_over_days, expiry_date, createdAt, updatedAt) " +
+            "SELECT u.id, :leaveTypeId, :year, :amount, 0, 0, :expiryDate, now(), now() " +
+            "FROM users u WHERE u.id IN (:userIds) " +
+            "ON CONFLICT (user_id, leave_type_id, year) DO UPDATE " +
+            "SET total_days = leave_balances.total_days + EXCLUDED.total_days, " +
+            "version = leave_balances.version + 1, updatedAt = now()",
+            nativeQuery = true)
+    int upsertAccrual(@Param("userIds") Collection<Long> userIds,
+                      @Param("leaveTypeId") Long leaveTypeId,
+                      @Param("year") int year,
+                      @Param("amount") double amount,
+                      @Param("expiryDate") LocalDate expiryDate);
+    
+    /**
+     * Stream the owners of balances with unreserved days left in a year, in user ID order;
+     * must be consumed inside a transaction so rows arrive through a cursor
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT DISTINCT lb.user.id FROM LeaveBalance lb WHERE lb.year = :year " +
+           "AND lb.totalDays > lb.usedDays + lb.reservedDays ORDER BY lb.user.id")
+    Stream<Long> streamUserIdsWithRemainingDays(@Param("year") int year);
+    
+    /*
+     * Carry-over of the given users' remaining days (capped at maxDays) from one year to the next;
+     * days reserved by pending applications stay with the year the leave was requested in.
+     * Adjustments and notifications are inserted from the same previous-year rows, which the
+     * upsert leaves untouched. The CARRIED_OVER adjustment marks a balance as carried, so it is
+     * written last and balances that already have one are skipped: rerunning a carry-over,
+     * say after some partitions failed, only carries the balances it has not carried yet.
+     */
+    
+    String CARRY_OVER_DAYS = "LEAST(prev.total_days - prev.used_days - prev.reserved_days, :maxDays)";
+    
+    String CARRY_OVER_REASON = "CONCAT('Carried over from ', :fromYear)";
+    
+    String CARRY_OVER_FILTER = "WHERE prev.year = :fromYear AND prev.user_id IN (:userIds) " +
+            "AND prev.total_days > prev.used_days + prev.reserved_days " +
+            "AND NOT EXISTS (SELECT 1 FROM leave_balances carried " +
+            "JOIN leave_balance_adjustments a ON a.leave_balance_id = carried.id " +
+            "WHERE carried.user_id = prev.user_id AND carried.leave_type_id = prev.leave_type_id " +
+            "AND carried.year = :toYear AND a.type = 'CARRIED_OVER' AND a.reason = " + CARRY_OVER_REASON + ")";
+    
+    @Modifying
+    @Query(value = "INSERT INTO leave_balances (user_id, leave_type_id, year, total_days, used_days, " +
+            "carried_over_days, expiry_date, createdAt, updatedAt) " +
+            "SELECT prev.user_id, prev.leave_type_id, :toYear, " + CARRY_OVER_DAYS + ", 0, " + CARRY_OVER_DAYS + ", " +
+            ":expiryDate, now(), now() FROM leave_balances prev " + CARRY_OVER_FILTER + " " +
+            "ON CONFLICT (user_id, leave_type_id, year) DO UPDATE " +
+            "SET carried_over_days = EXCLUDED.carried_over_days, " +
+            "total_days = leave_balances.total_days + EXCLUDED.carried_over_days, " +
+            "version = leave_balances.version + 1, updatedAt = now()",
+            nativeQuery = true)
+    int upsertCarryOver(@Param("userIds") Collection<Long> userIds,
+                        @Param("fromYear") int fromYear,
+                        @Param("toYear") int toYear,
+                        @Param("maxDays") double maxDays,
+                        @Param("expiryDate") LocalDate expiryDate);
+}
\ No newline at end of file
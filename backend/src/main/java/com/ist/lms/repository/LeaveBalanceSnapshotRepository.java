@@ -0,0 +1,43 @@
+package com.ist.lms.repository;
+
+import com.ist.lms.model.LeaveBalanceSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface LeaveBalanceSnapshotRepository extends JpaRepository<LeaveBalanceSnapshot, Long> {
+    Optional<LeaveBalanceSnapshot> findFirstByLeaveBalanceIdAndAsOfLessThanEqualOrderByAsOfDesc(
+            Long leaveBalanceId, LocalDateTime asOf);
+    
+    /**
+     * Checkpoint the running totals of every balance at each interval-th ledger entry after
+     * its latest snapshot, up to the cutoff; a checkpoint is taken at its entry's time and
+     * covers every entry created up to then, so a fold from it reads fewer than interval entries
+     * @return number of snapshots inserted
+     */
+    @Modifying
+    @Query(value = "WITH latest AS (" +
+            "SELECT DISTINCT ON (leave_balance_id) leave_balance_id, as_of, total_days, used_days, entry_count " +
+            "FROM leave_balance_snapshots ORDER BY leave_balance_id, as_of DESC) " +
+            "INSERT INTO leave_balance_snapshots (leave_balance_id, as_of, total_days, used_days, entry_count, createdAt) " +
+            "SELECT e.leave_balance_id, e.createdAt, e.total_days, e.used_days, e.entry_count, now() FROM (" +
+            "SELECT a.leave_balance_id, a.createdAt, " +
+            "COALESCE(s.total_days, 0) + sum(a.total_delta) OVER w AS total_days, " +
+            "COALESCE(s.used_days, 0) + sum(a.used_delta) OVER w AS used_days, " +
+            "COALESCE(s.entry_count, 0) + count(*) OVER w AS entry_count, " +
+            "row_number() OVER (PARTITION BY a.leave_balance_id ORDER BY a.createdAt, a.id) AS n " +
+            "FROM leave_balance_adjustments a LEFT JOIN latest s ON s.leave_balance_id = a.leave_balance_id " +
+            "WHERE a.createdAt <= :cutoff AND (s.as_of IS NULL OR a.createdAt > s.as_of) " +
+            // Peers with the same time share a running total, so a checkpoint never splits them
+            "WINDOW w AS (PARTITION BY a.leave_balance_id ORDER BY a.createdAt)) e " +
+            "WHERE e.n % :interval = 0 " +
+            "ON CONFLICT (leave_balance_id, as_of) DO NOTHING",
+            nativeQuery = true)
+    int insertCheckpoints(@Param("cutoff") LocalDateTime cutoff, @Param("interval") int interval);
+}
@@ -0,0 +1,162 @@
+package com.ist.lms.repository;
+
+import com.ist.lms.model.NotificationOutboxEntry;
+import com.ist.lms.repository.projection.OutboxMailView;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutboxEntry, Long> {
+    
+    /*
+     * Templated entries reference a stored NotificationTemplate and carry the parameters
+     * it is rendered with when read (see render_notification in V11); the type and action
+     * come from the template. Parameters shared by every recipient are passed as a JSON
+     * object and merged with any computed per row.
+     */
+    
+    String INSERT_TEMPLATED = "INSERT INTO notification_outbox " +
+            "(user_id, type, action_url, action_text, template_id, template_params, createdAt) ";
+    
+    String TEMPLATE_COLUMNS = "t.type, t.action_url, t.action_text, t.id, ";
+    
+    String SHARED_PARAMETERS = "CAST(:parameters AS jsonb)";
+    
+    /**
+     * Store a template under its key, or find the one already stored
+     * @return the template's ID
+     */
+    @Query(value = "INSERT INTO notification_templates (template_key, type, title, message, action_url, " +
+           "action_text, createdAt) VALUES (:key, :type, :title, :message, :actionUrl, :actionText, now()) " +
+           "ON CONFLICT (template_key) DO UPDATE SET template_key = EXCLUDED.template_key RETURNING id",
+           nativeQuery = true)
+    Long saveTemplate(@Param("key") String key,
+                      @Param("type") String type,
+                      @Param("title") String title,
+                      @Param("message") String message,
+                      @Param("actionUrl") String actionUrl,
+                      @Param("actionText") String actionText);
+    
+    /**
+     * Lock the oldest undelivered entries, skipping those another dispatcher holds
+     * @param limit maximum number of entries
+     * @return IDs of the locked entries in creation order
+     */
+    @Query(value = "SELECT id FROM notification_outbox ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<Long> lockNextBatch(@Param("limit") int limit);
+    
+    /**
+     * Entries of a batch whose recipients are active and have not turned email off
+     * @param ids the entry IDs
+     * @return the entries with their recipient's address
+     */
+    @Query(value = "SELECT o.id AS id, u.email AS email, " +
+           "COALESCE(o.title, render_notification('title', o.template_id, o.template_params, o.user_id)) AS title, " +
+           "COALESCE(o.message, render_notification('message', o.template_id, o.template_params, o.user_id)) AS message, " +
+           "o.action_url AS actionUrl, o.action_text AS actionText " +
+           "FROM notification_outbox o JOIN users u ON u.id = o.user_id " +
+           "WHERE o.id IN (:ids) AND u.is_active " +
+           "AND COALESCE(CAST(CAST(u.notification_preferences AS jsonb) ->> 'email' AS boolean), true) " +
+           "ORDER BY o.id",
+           nativeQuery = true)
+    List<OutboxMailView> findMailForBatch(@Param("ids") Collection<Long> ids);
+    
+    /**
+     * Queue one notification from a stored template for each of the given users who
+     * are active, see {@link com.ist.lms.service.notification.NotificationTemplate}
+     * @param userIds the recipients
+     * @param templateId the template
+     * @param parameters the parameters as a JSON object
+     * @return number of notifications queued
+     */
+    @Modifying
+    @Query(value = INSERT_TEMPLATED + "SELECT u.id, " + TEMPLATE_COLUMNS + SHARED_PARAMETERS + ", now() " +
+           "FROM users u JOIN notification_templates t ON t.id = :templateId " +
+           "WHERE u.id IN (:userIds) AND u.is_active", nativeQuery = true)
+    int insertTemplated(@Param("userIds") Collection<Long> userIds,
+                        @Param("templateId") Long templateId,
+                        @Param("parameters") String parameters);
+    
+    /**
+     * Queue one notification from a stored template for every active user
+     * @param templateId the template
+     * @param parameters the parameters as a JSON object
+     * @return number of notifications queued
+     */
+    @Modifying
+    @Query(value = INSERT_TEMPLATED + "SELECT u.id, " + TEMPLATE_COLUMNS + SHARED_PARAMETERS + ", now() " +
+           "FROM users u JOIN notification_templates t ON t.id = :templateId WHERE u.is_active", nativeQuery = true)
+    int insertTemplatedForActiveUsers(@Param("templateId") Long templateId, @Param("parameters") String parameters);
+    
+    /**
+     * Notify the given users about their balance of one leave type and year, adding
+     * {leaveType} and {available} (days available to new requests, rounded to 2 decimals)
+     * to the shared parameters
+     * @return number of notifications queued
+     */
+    @Modifying
+    @Query(value = INSERT_TEMPLATED + "SELECT lb.user_id, " + TEMPLATE_COLUMNS + SHARED_PARAMETERS + " || " +
+            "jsonb_build_object('leaveType', lt.name, " +
+            "'available', round(CAST(lb.total_days - lb.used_days - lb.reserved_days AS numeric), 2)), now() " +
+            "FROM leave_balances lb JOIN leave_types lt ON lt.id = lb.leave_type_id " +
+            "JOIN notification_templates t ON t.id = :templateId " +
+            "WHERE lb.user_id IN (:userIds) AND lb.leave_type_id = :leaveTypeId AND lb.year = :year",
+            nativeQuery = true)
+    int insertBalanceNotifications(@Param("userIds") Collection<Long> userIds,
+                                   @Param("leaveTypeId") Long leaveTypeId,
+                                   @Param("year") int year,
+                                   @Param("templateId") Long templateId,
+                                   @Param("parameters") String parameters);
+    
+    /**
+     * Notify the given users of the days carried over into the next year, adding
+     * {leaveType} and {days} to the shared parameters, see
+     * {@link LeaveBalanceRepository#upsertCarryOver}
+     * @return number of notifications queued
+     */
+    @Modifying
+    @Query(value = INSERT_TEMPLATED + "SELECT prev.user_id, " + TEMPLATE_COLUMNS + SHARED_PARAMETERS + " || " +
+            "jsonb_build_object('leaveType', lt.name, " +
+            "'days', round(CAST(" + LeaveBalanceRepository.CARRY_OVER_DAYS + " AS numeric), 2)), now() " +
+            "FROM leave_balances prev JOIN leave_types lt ON lt.id = prev.leave_type_id " +
+            "JOIN notification_templates t ON t.id = :templateId " +
+            LeaveBalanceRepository.CARRY_OVER_FILTER,
+            nativeQuery = true)
+    int insertCarryOverNotifications(@Param("userIds") Collection<Long> userIds,
+                                     @Param("fromYear") int fromYear,
+                                     @Param("toYear") int toYear,
+                                     @Param("maxDays") double maxDays,
+                                     @Param("templateId") Long templateId,
+                                     @Param("parameters") String parameters);
+    
+    /**
+     * Notify the owners of a batch of balances about the days about to expire, adding
+     * {leaveType}, {days} and {reserved} to the shared parameters; balances with days held
+     * by pending applications use the second template, see
+     * {@link LeaveBalanceRepository#expireRemainingDays}
+     * @return number of notifications queued
+     */
+    @Modifying
+    @Query(value = INSERT_TEMPLATED + "SELECT lb.user_id, " + TEMPLATE_COLUMNS + SHARED_PARAMETERS + " || " +
+            "jsonb_build_object('leaveType', lt.name, " +
+            "'days', round(CAST(lb.total_days - lb.used_days - lb.reserved_days AS numeric), 2), " +
+            "'reserved', round(CAST(lb.reserved_days AS numeric), 2)), now() " +
+            "FROM leave_balances lb JOIN leave_types lt ON lt.id = lb.leave_type_id " +
+            "JOIN notification_templates t ON t.id = CASE WHEN lb.reserved_days > 0 " +
+            "THEN :reservedTemplateId ELSE :templateId END " +
+            LeaveBalanceRepository.EXPIRY_FILTER,
+            nativeQuery = true)
+    int insertExpiryNotifications(@Param("ids") Collection<Long> ids,
+                                  @Param("currentDate") LocalDate currentDate,
+                                  @Param("templateId") Long templateId,
+                                  @Param("reservedTemplateId") Long reservedTemplateId,
+                                  @Param("parameters") String parameters);
+}
@@ -1,12 +1,17 @@
 package com.ist.lms.repository;
 
 import com.ist.lms.model.Notification;
+import com.ist.lms.repository.projection.NotificationSummary;
+import com.ist.lms.repository.projection.UnreadCountView;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -26,6 +31,26 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
      */
     List<Notification> findByUser_IdAndReadFalseOrderByCreatedAtDesc(Long userId);
     
+    String SUMMARY_SELECT = "SELECT n.id AS id, n.user.id AS userId, n.title AS title, n.message AS message, " +
+            "n.read AS read, n.actionUrl AS actionUrl, n.actionText AS actionText, n.createdAt AS createdAt " +
+            "FROM Notification n ";
+    
+    // The redundant upper bound on createdAt lets newer partitions be pruned
+    String KEYSET_AFTER = "n.createdAt <= :createdAt AND (n.createdAt < :createdAt OR n.id < :id) " +
+            "ORDER BY n.createdAt DESC, n.id DESC";
+    
+    @Query(SUMMARY_SELECT + "WHERE n.user.id = :userId AND " + KEYSET_AFTER)
+    List<NotificationSummary> findPageByUserIdAfter(@Param("userId") Long userId,
+                                                    @Param("createdAt") LocalDateTime createdAt,
+                                                    @Param("id") Long id,
+                                                    Pageable limit);
+    
+    @Query(SUMMARY_SELECT + "WHERE n.user.id = :userId AND n.read = false AND " + KEYSET_AFTER)
+    List<NotificationSummary> findUnreadPageByUserIdAfter(@Param("userId") Long userId,
+                                                          @Param("createdAt") LocalDateTime createdAt,
+                                                          @Param("id") Long id,
+                                                          Pageable limit);
+    
     /**
      * Count unread notifications for a user
      * @param userId the user ID
@@ -33,19 +58,49 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
      */
     long countByUser_IdAndReadFalse(Long userId);
     
+    /**
+     * Count unread notifications for several users; users without any are left out
+     * @param userIds the user IDs
+     * @return the counts
+     */
+    @Query("SELECT n.user.id AS userId, COUNT(n) AS unreadCount FROM Notification n " +
+           "WHERE n.read = false AND n.user.id IN :userIds GROUP BY n.user.id")
+    List<UnreadCountView> countUnreadByUserIds(@Param("userIds") Collection<Long> userIds);
+    
     /**
      * Mark a notification as read
      * @param id notification ID
+     * @return 1 if the notification was unread, otherwise 0
      */
     @Modifying
-    @Query("UPDATE Notification n SET n.read = true WHERE n.id = :id")
-    void markAsRead(@Param("id") Long id);
+    @Query("UPDATE Notification n SET n.read = true WHERE n.id = :id AND n.read = false")
+    int markAsRead(@Param("id") Long id);
     
     /**
      * Mark all notifications as read for a user
      * @param userId the user ID
+     * @return number of notifications that were unread
      */
     @Modifying
-    @Query("UPDATE Notification n SET n.read = true WHERE n.user.id = :userId")
-    void markAllAsRead(@Param("userId") Long userId);
-} 
\ No newline at end of file
+    @Query("UPDATE Notification n SET n.read = true WHERE n.user.id = :userId AND n.read = false")
+    int markAllAsRead(@Param("userId") Long userId);
+    
+    /**
+     * Deliver a batch of outbox entries: remove them from the outbox and insert them
+     * as notifications, keeping the time each was created, in one statement. Templated
+     * entries stay templated; the returned notifications are rendered
+     * @param outboxIds the entry IDs
+     * @return the inserted notifications
+     */
+    @Query(value = "WITH moved AS (DELETE FROM notification_outbox WHERE id IN (:outboxIds) RETURNING *) " +
+            "INSERT INTO notifications (user_id, title, message, is_read, action_url, action_text, " +
+            "template_id, template_params, createdAt) " +
+            "SELECT user_id, title, message, false, action_url, action_text, template_id, template_params, " +
+            "createdAt FROM moved ORDER BY id " +
+            "RETURNING id AS id, user_id AS userId, " +
+            "COALESCE(title, render_notification('title', template_id, template_params, user_id)) AS title, " +
+            "COALESCE(message, render_notification('message', template_id, template_params, user_id)) AS message, " +
+            "is_read AS read, action_url AS actionUrl, action_text AS actionText, createdAt AS createdAt",
+            nativeQuery = true)
+    List<NotificationSummary> moveFromOutbox(@Param("outboxIds") Collection<Long> outboxIds);
+}
\ No newline at end of file
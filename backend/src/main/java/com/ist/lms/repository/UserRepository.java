@@ -1,8 +1,12 @@
 package com.ist.lms.repository;
 
+import com.ist.lms.model.ERole;
 import com.ist.lms.model.User;
+import com.ist.lms.repository.projection.UserRoutingView;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -26,6 +30,24 @@ public interface UserRepository extends JpaRepository<User, Long> {
     @Query("SELECT u FROM User u WHERE u.active = true")
     List<User> findAllActiveUsers();
     
+    /**
+     * Find the IDs of active users holding a role, without loading the users
+     *
+     * @param role the role to look up
+     * @return user IDs ordered by ID
+     */
+    @Query("SELECT u.id FROM User u JOIN u.roles r WHERE r.name = :role AND u.active = true ORDER BY u.id")
+    List<Long> findActiveUserIdsByRole(@Param("role") ERole role);
+    
+    /**
+     * Find the next chunk of active user IDs in ID order, for batch jobs that walk all users
+     * @param afterId only IDs greater than this are returned
+     * @param limit the chunk size, as PageRequest.of(0, size)
+     * @return user IDs ordered by ID
+     */
+    @Query("SELECT u.id FROM User u WHERE u.active = true AND u.id > :afterId ORDER BY u.id")
+    List<Long> findActiveUserIdsAfter(@Param("afterId") Long afterId, Pageable limit);
+    
     /**
      * Find user by email and eagerly fetch roles
      *
@@ -34,4 +56,15 @@ public interface UserRepository extends JpaRepository<User, Long> {
      */
     @Query("SELECT u FROM User u LEFT JOIN FETCH u.roles WHERE u.email = :email")
     Optional<User> findByEmailWithRoles(String email);
-} 
\ No newline at end of file
+    
+    /**
+     * Find the fields needed for approval routing without loading the user graph
+     *
+     * @param id the user's ID
+     * @return the routing view of the user
+     */
+    @Query("SELECT u.id AS id, u.firstName AS firstName, u.lastName AS lastName, " +
+           "d.id AS departmentId, m.id AS managerId " +
+           "FROM User u LEFT JOIN u.department d LEFT JOIN u.manager m WHERE u.id = :id")
+    Optional<UserRoutingView> findRoutingViewById(@Param("id") Long id);
+}
@@ -0,0 +1,32 @@
+package com.ist.lms.repository.projection;
+
+import com.ist.lms.model.enums.LeaveStatus;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Flat view of a leave application for list screens, read with a single
+ * statement and no entity graph
+ */
+public interface LeaveApplicationSummary {
+    Long getId();
+
+    Long getUserId();
+
+    String getApplicantName();
+
+    Long getLeaveTypeId();
+
+    String getLeaveTypeName();
+
+    LocalDate getStartDate();
+
+    LocalDate getEndDate();
+
+    double getTotalDays();
+
+    LeaveStatus getStatus();
+
+    LocalDateTime getCreatedAt();
+}
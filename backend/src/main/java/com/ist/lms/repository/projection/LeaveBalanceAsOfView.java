@@ -0,0 +1,22 @@
+package com.ist.lms.repository.projection;
+
+/**
+ * A leave balance's totals at a point in time, folded from its ledger
+ */
+public interface LeaveBalanceAsOfView {
+    Long getLeaveBalanceId();
+
+    Long getLeaveTypeId();
+
+    String getLeaveTypeName();
+
+    int getYear();
+
+    double getTotalDays();
+
+    double getUsedDays();
+
+    default double getRemainingDays() {
+        return getTotalDays() - getUsedDays();
+    }
+}
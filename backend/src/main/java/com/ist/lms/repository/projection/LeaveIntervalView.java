@@ -0,0 +1,18 @@
+package com.ist.lms.repository.projection;
+
+import java.time.LocalDate;
+
+/**
+ * Date range of a leave application with the applicant and department it counts against
+ */
+public interface LeaveIntervalView {
+    Long getId();
+
+    Long getUserId();
+
+    Long getDepartmentId();
+
+    LocalDate getStartDate();
+
+    LocalDate getEndDate();
+}
@@ -0,0 +1,10 @@
+package com.ist.lms.repository.projection;
+
+/**
+ * Effect of one ledger entry on a leave balance
+ */
+public interface LedgerDeltaView {
+    double getTotalDelta();
+
+    double getUsedDelta();
+}
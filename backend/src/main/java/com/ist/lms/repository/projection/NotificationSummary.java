@@ -0,0 +1,24 @@
+package com.ist.lms.repository.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * Flat view of a notification, read without loading its recipient
+ */
+public interface NotificationSummary {
+    Long getId();
+
+    Long getUserId();
+
+    String getTitle();
+
+    String getMessage();
+
+    boolean isRead();
+
+    String getActionUrl();
+
+    String getActionText();
+
+    LocalDateTime getCreatedAt();
+}
@@ -0,0 +1,18 @@
+package com.ist.lms.repository.projection;
+
+/**
+ * Outbox entry addressed to a user who receives notifications by email
+ */
+public interface OutboxMailView {
+    Long getId();
+
+    String getEmail();
+
+    String getTitle();
+
+    String getMessage();
+
+    String getActionUrl();
+
+    String getActionText();
+}
@@ -0,0 +1,10 @@
+package com.ist.lms.repository.projection;
+
+/**
+ * Number of unread notifications of a user
+ */
+public interface UnreadCountView {
+    Long getUserId();
+
+    long getUnreadCount();
+}
@@ -0,0 +1,20 @@
+package com.ist.lms.repository.projection;
+
+/**
+ * Minimal view of a user needed to route a leave application for approval
+ */
+public interface UserRoutingView {
+    Long getId();
+
+    String getFirstName();
+
+    String getLastName();
+
+    Long getDepartmentId();
+
+    Long getManagerId();
+
+    default String getFullName() {
+        return getFirstName() + " " + getLastName();
+    }
+}
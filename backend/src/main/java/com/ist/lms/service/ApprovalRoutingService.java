@@ -0,0 +1,22 @@
+package com.ist.lms.service;
+
+import com.ist.lms.model.LeaveApplication;
+import com.ist.lms.model.LeaveApproval;
+
+import java.util.List;
+
+public interface ApprovalRoutingService {
+
+    /**
+     * Create the approval chain for a newly saved leave application and notify
+     * the first approver
+     * @param leaveApplication the saved leave application
+     * @return the created approvals, ordered by level
+     */
+    List<LeaveApproval> createApprovals(LeaveApplication leaveApplication);
+
+    /**
+     * Drop all compiled route plans so they are rebuilt on next use
+     */
+    void invalidate();
+}
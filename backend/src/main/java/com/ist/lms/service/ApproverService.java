@@ -0,0 +1,29 @@
+package com.ist.lms.service;
+
+import com.ist.lms.model.ERole;
+import com.ist.lms.model.User;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface ApproverService {
+
+    /**
+     * Get the IDs of active users holding a role, served from an in-memory cache
+     * @param role the role to look up
+     * @return user IDs ordered by ID
+     */
+    List<Long> getApproverIdsByRole(ERole role);
+
+    /**
+     * Get the first active user holding a role as a lazy reference, without loading the user
+     * @param role the role to look up
+     * @return a reference to the approver, or empty if nobody holds the role
+     */
+    Optional<User> getFirstApproverByRole(ERole role);
+
+    /**
+     * Drop all cached approvers so they are reloaded on next use
+     */
+    void invalidate();
+}
@@ -0,0 +1,61 @@
+package com.ist.lms.service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface HolidayCalendarService {
+
+    /**
+     * Check whether a date is a public holiday (fixed or recurring)
+     * @param date the date to check
+     * @return true if the date is a holiday
+     */
+    boolean isHoliday(LocalDate date);
+
+    /**
+     * Check whether a date is a working day, i.e. neither a weekend nor a holiday
+     * @param date the date to check
+     * @return true if the date is a business day
+     */
+    boolean isBusinessDay(LocalDate date);
+
+    /**
+     * Count business days between two dates, both inclusive
+     * @param startDate first day of the range
+     * @param endDate last day of the range
+     * @return number of business days in the range
+     */
+    double countBusinessDays(LocalDate startDate, LocalDate endDate);
+
+    /**
+     * Find the first business day strictly after the given date
+     * @param date the reference date
+     * @return the next business day
+     */
+    LocalDate nextBusinessDay(LocalDate date);
+
+    /**
+     * Calculate business days and return dates for many ranges against a single
+     * holiday snapshot, so concurrent holiday changes cannot skew the results
+     * @param ranges the date ranges
+     * @return one result per range, in the same order
+     */
+    List<BusinessDays> calculateBusinessDays(List<DateSpan> ranges);
+
+    /**
+     * Drop all cached holiday data so it is reloaded on next use
+     */
+    void invalidate();
+
+    /**
+     * A date range, both ends inclusive
+     */
+    record DateSpan(LocalDate startDate, LocalDate endDate) {
+    }
+
+    /**
+     * Business days of a date range and the first business day after it
+     */
+    record BusinessDays(double days, LocalDate returnDate) {
+    }
+}
@@ -2,12 +2,21 @@ package com.ist.lms.service;
 
 import com.ist.lms.model.LeaveApplication;
 import com.ist.lms.model.enums.LeaveStatus;
+import com.ist.lms.payload.response.CursorPage;
+import com.ist.lms.repository.projection.LeaveApplicationSummary;
+import com.ist.lms.service.HolidayCalendarService.BusinessDays;
+import com.ist.lms.service.HolidayCalendarService.DateSpan;
 
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
 public interface LeaveApplicationService {
+    /*
+     * Unpaged listings, newest first: they return at most the newest 100 applications,
+     * the page size limit of getLeaveApplicationsPage, which reads past them.
+     */
+    
     List<LeaveApplication> getAllLeaveApplications();
     
     List<LeaveApplication> getLeaveApplicationsByStatus(LeaveStatus status);
@@ -24,6 +33,16 @@ public interface LeaveApplicationService {
     
     List<LeaveApplication> getPendingApprovalsByApproverId(Long approverId);
     
+    /**
+     * Get one page of leave application summaries, newest first, using keyset pagination
+     * @param userId restrict to this applicant, or null for all
+     * @param status restrict to this status, or null for all
+     * @param cursor nextCursor of the previous page, or null for the first page
+     * @param size maximum number of items (capped at 100)
+     * @return the page and the cursor of the following one
+     */
+    CursorPage<LeaveApplicationSummary> getLeaveApplicationsPage(Long userId, LeaveStatus status, String cursor, int size);
+    
     Optional<LeaveApplication> getLeaveApplicationById(Long id);
     
     LeaveApplication createLeaveApplication(LeaveApplication leaveApplication);
@@ -38,5 +57,7 @@ public interface LeaveApplicationService {
     
     double calculateBusinessDays(LocalDate startDate, LocalDate endDate);
     
+    List<BusinessDays> calculateBusinessDays(List<DateSpan> ranges);
+    
     boolean checkLeaveBalanceAvailability(Long userId, Long leaveTypeId, LocalDate startDate, LocalDate endDate);
 } 
\ No newline at end of file
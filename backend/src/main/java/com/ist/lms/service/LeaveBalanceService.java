@@ -1,8 +1,14 @@
 package com.ist.lms.service;
 
+import com.ist.lms.model.AccrualRun;
 import com.ist.lms.model.LeaveBalance;
 import com.ist.lms.model.enums.AdjustmentType;
+import com.ist.lms.payload.response.CacheStatsResponse;
+import com.ist.lms.repository.projection.LeaveBalanceAsOfView;
+import com.ist.lms.service.balance.BalanceTotals;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,16 +23,28 @@ public interface LeaveBalanceService {
     
     Optional<LeaveBalance> getLeaveBalanceByUserAndType(Long userId, Long leaveTypeId, int year);
     
+    CacheStatsResponse getBalanceCacheStats();
+    
+    BalanceTotals getLeaveBalanceTotalsAsOf(Long leaveBalanceId, LocalDateTime asOf);
+    
+    List<LeaveBalanceAsOfView> getLeaveBalancesAsOf(Long userId, LocalDate date);
+    
     LeaveBalance createLeaveBalance(LeaveBalance leaveBalance);
     
     LeaveBalance updateLeaveBalance(LeaveBalance leaveBalance);
     
     void deleteLeaveBalance(Long id);
     
-    void accrueLeaveBalances(int month, int year);
+    AccrualRun accrueLeaveBalances(int month, int year, boolean resume);
+    
+    List<AccrualRun> getAccrualRuns(int year);
     
     void carryOverBalances(int fromYear, int toYear, double maxDays);
     
+    void reserveDays(Long userId, Long leaveTypeId, int year, double days);
+    
+    void releaseReservedDays(Long userId, Long leaveTypeId, int year, double days);
+    
     LeaveBalance adjustBalance(Long leaveBalanceId, double amount, AdjustmentType type, String reason, Long adjustedById);
     
     void expireBalances();
@@ -0,0 +1,62 @@
+package com.ist.lms.service;
+
+import com.ist.lms.model.LeaveApplication;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface LeaveOverlapService {
+
+    /**
+     * Check whether a user has an approved leave overlapping a date range
+     * @param userId the applicant
+     * @param startDate first day of the range, inclusive
+     * @param endDate last day of the range, inclusive
+     * @return true if an approved leave overlaps the range
+     */
+    boolean hasApprovedOverlap(Long userId, LocalDate startDate, LocalDate endDate);
+
+    /**
+     * Find a user's approved leaves overlapping a date range
+     * @param userId the applicant
+     * @param startDate first day of the range, inclusive
+     * @param endDate last day of the range, inclusive
+     * @return IDs of the overlapping leave applications
+     */
+    List<Long> findOverlappingLeaveIds(Long userId, LocalDate startDate, LocalDate endDate);
+
+    /**
+     * Find all approved leaves overlapping a date range
+     * @param startDate first day of the range, inclusive
+     * @param endDate last day of the range, inclusive
+     * @return IDs of the overlapping leave applications
+     */
+    List<Long> findLeaveIdsInRange(LocalDate startDate, LocalDate endDate);
+
+    /**
+     * Find approved leaves of a department's members overlapping a date range
+     * @param departmentId the department
+     * @param startDate first day of the range, inclusive
+     * @param endDate last day of the range, inclusive
+     * @return IDs of the overlapping leave applications
+     */
+    List<Long> findDepartmentLeaveIdsInRange(Long departmentId, LocalDate startDate, LocalDate endDate);
+
+    /**
+     * Record a change to a leave application's status or dates. The index is
+     * updated once the surrounding transaction commits.
+     * @param leaveApplication the application as it will be committed
+     */
+    void leaveChanged(LeaveApplication leaveApplication);
+
+    /**
+     * Record that a leave application is deleted, once the surrounding transaction commits
+     * @param leaveApplicationId the deleted application
+     */
+    void leaveRemoved(Long leaveApplicationId);
+
+    /**
+     * Drop the overlap index so it is rebuilt on next use
+     */
+    void invalidate();
+}
@@ -3,13 +3,21 @@ package com.ist.lms.service;
 import com.ist.lms.model.Notification;
 import com.ist.lms.model.User;
 import com.ist.lms.model.enums.NotificationType;
+import com.ist.lms.payload.response.CursorPage;
+import com.ist.lms.repository.projection.NotificationSummary;
+import com.ist.lms.service.notification.NotificationTemplate;
 
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface NotificationService {
     
     /**
-     * Create a notification for a user
+     * Queue a notification for a user. It is written to the outbox as part of the
+     * caller's transaction and delivered in the background once that commits.
      * 
      * @param user the recipient user
      * @param title the notification title
@@ -17,11 +25,30 @@ public interface NotificationService {
      * @param type the notification type
      * @param actionUrl optional URL for the notification action
      * @param actionText optional text for the action button
-     * @return the created notification
      */
-    Notification createNotification(User user, String title, String message, NotificationType type,
+    void createNotification(User user, String title, String message, NotificationType type,
                                   String actionUrl, String actionText);
     
+    /**
+     * Queue the same notification for many users, with one insert per few thousand
+     * recipients. Inactive users are skipped.
+     * 
+     * @param userIds the recipient user IDs
+     * @param template the notification; recipient placeholders are filled per user
+     * @param parameters values of the template's other placeholders
+     * @return number of notifications queued
+     */
+    int createNotifications(Collection<Long> userIds, NotificationTemplate template, Map<String, ?> parameters);
+    
+    /**
+     * Queue the same notification for every active user, with a single insert
+     * 
+     * @param template the notification; recipient placeholders are filled per user
+     * @param parameters values of the template's other placeholders
+     * @return number of notifications queued
+     */
+    int broadcastNotification(NotificationTemplate template, Map<String, ?> parameters);
+    
     /**
      * Get all notifications for a user
      * 
@@ -30,6 +57,17 @@ public interface NotificationService {
      */
     List<Notification> getUserNotifications(Long userId);
     
+    /**
+     * Get a page of a user's notifications, newest first
+     * 
+     * @param userId the user ID
+     * @param unreadOnly whether to list unread notifications only
+     * @param cursor the cursor from the previous page, or null for the first page
+     * @param size the page size, capped at 100
+     * @return the page and the cursor of the next one
+     */
+    CursorPage<NotificationSummary> getNotificationsPage(Long userId, boolean unreadOnly, String cursor, int size);
+    
     /**
      * Get unread notifications for a user
      * 
@@ -46,6 +84,15 @@ public interface NotificationService {
      */
     long countUnreadNotifications(Long userId);
     
+    /**
+     * Open a stream of the user's notification events: their unread count on
+     * connect and whenever it changes, and each new notification as it is delivered
+     * 
+     * @param userId the user ID
+     * @return the server-sent event emitter
+     */
+    SseEmitter openStream(Long userId);
+    
     /**
      * Mark a notification as read
      * 
@@ -0,0 +1,17 @@
+package com.ist.lms.service.balance;
+
+/**
+ * Total and used days of a leave balance, as folded from its ledger
+ */
+public record BalanceTotals(double totalDays, double usedDays) {
+
+    public static final BalanceTotals ZERO = new BalanceTotals(0, 0);
+
+    public BalanceTotals plus(double totalDelta, double usedDelta) {
+        return new BalanceTotals(totalDays + totalDelta, usedDays + usedDelta);
+    }
+
+    public double remainingDays() {
+        return totalDays - usedDays;
+    }
+}
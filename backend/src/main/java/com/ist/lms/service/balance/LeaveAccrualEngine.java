@@ -0,0 +1,211 @@
+package com.ist.lms.service.balance;
+
+import com.ist.lms.exception.ResourceNotFoundException;
+import com.ist.lms.model.AccrualRun;
+import com.ist.lms.model.LeaveType;
+import com.ist.lms.model.enums.AccrualRunStatus;
+import com.ist.lms.model.enums.AdjustmentType;
+import com.ist.lms.model.enums.NotificationType;
+import com.ist.lms.repository.AccrualRunRepository;
+import com.ist.lms.repository.LeaveBalanceAdjustmentRepository;
+import com.ist.lms.repository.LeaveBalanceRepository;
+import com.ist.lms.repository.LeaveTypeRepository;
+import com.ist.lms.repository.NotificationOutboxRepository;
+import com.ist.lms.repository.UserRepository;
+import com.ist.lms.service.notification.NotificationTemplate;
+import com.ist.lms.service.notification.NotificationTemplateStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Set-based monthly accrual. Active users are walked in ID order in chunks, and
+ * each chunk is accrued with three statements (balance upsert, adjustment
+ * insert-select, notification insert-select) committed in its own transaction,
+ * so the statement count grows with the number of chunks rather than users.
+ *
+ * Every run is recorded in the {@link AccrualRun} ledger and its checkpoint is
+ * advanced inside each chunk transaction, so a month is never accrued twice and
+ * an interrupted run can resume after its last committed chunk.
+ */
+@Component
+public class LeaveAccrualEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(LeaveAccrualEngine.class);
+
+    public static final String ACCRUAL_LEAVE_TYPE = "Annual Leave";
+    public static final double MONTHLY_ACCRUAL_DAYS = 1.66;
+    public static final int CHUNK_SIZE = 1000;
+
+    static final NotificationTemplate ACCRUAL_NOTIFICATION = NotificationTemplate.of(
+            NotificationType.BALANCE_UPDATE, "Leave Balance Updated",
+            "Your {leaveType} balance has been increased by {accrued} days as part of the monthly accrual " +
+            "for {period}. Your new available balance is {available} days.")
+            .withAction("/dashboard/leave-balances", "View Leave Balances");
+
+    // A running run that has not checkpointed for this long is treated as crashed
+    private static final Duration ABANDONED_AFTER = Duration.ofMinutes(10);
+
+    private final UserRepository userRepository;
+    private final LeaveTypeRepository leaveTypeRepository;
+    private final LeaveBalanceRepository leaveBalanceRepository;
+    private final LeaveBalanceAdjustmentRepository adjustmentRepository;
+    private final NotificationOutboxRepository notificationOutboxRepository;
+    private final NotificationTemplateStore notificationTemplateStore;
+    private final AccrualRunRepository accrualRunRepository;
+    private final LeaveBalanceCache leaveBalanceCache;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public LeaveAccrualEngine(
+            UserRepository userRepository,
+            LeaveTypeRepository leaveTypeRepository,
+            LeaveBalanceRepository leaveBalanceRepository,
+            LeaveBalanceAdjustmentRepository adjustmentRepository,
+            NotificationOutboxRepository notificationOutboxRepository,
+            NotificationTemplateStore notificationTemplateStore,
+            AccrualRunRepository accrualRunRepository,
+            LeaveBalanceCache leaveBalanceCache,
+            PlatformTransactionManager transactionManager) {
+        this.userRepository = userRepository;
+        this.leaveTypeRepository = leaveTypeRepository;
+        this.leaveBalanceRepository = leaveBalanceRepository;
+        this.adjustmentRepository = adjustmentRepository;
+        this.notificationOutboxRepository = notificationOutboxRepository;
+        this.notificationTemplateStore = notificationTemplateStore;
+        this.accrualRunRepository = accrualRunRepository;
+        this.leaveBalanceCache = leaveBalanceCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Accrue the monthly allowance for every active user, at most once per month.
+     * A completed run is returned as-is; an interrupted one is only continued from
+     * its checkpoint when resume is requested.
+     * @param month the accrual month
+     * @param year the balance year accrued into
+     * @param resume whether to continue a failed or abandoned run
+     * @return the run ledger entry
+     */
+    public AccrualRun accrue(int month, int year, boolean resume) {
+        if (month < 1 || month > 12) {
+            throw new IllegalArgumentException("Invalid accrual month: " + month);
+        }
+
+        LeaveType leaveType = leaveTypeRepository.findByName(ACCRUAL_LEAVE_TYPE)
+                .orElseThrow(() -> new ResourceNotFoundException("Leave type not found: " + ACCRUAL_LEAVE_TYPE));
+
+        AccrualRun run = startRun(month, year, leaveType, resume);
+        if (run.getStatus() == AccrualRunStatus.COMPLETED) {
+            logger.info("Accrual for {}/{} already completed, skipping", month, year);
+            return run;
+        }
+
+        long afterUserId = run.getLastUserId();
+        try {
+            while (true) {
+                List<Long> userIds = userRepository.findActiveUserIdsAfter(afterUserId, PageRequest.of(0, CHUNK_SIZE));
+                if (userIds.isEmpty()) {
+                    break;
+                }
+
+                long previousUserId = afterUserId;
+                transactionTemplate.executeWithoutResult(status -> {
+                    // Moving the checkpoint first makes a concurrent worker on the same chunk roll back
+                    long lastUserId = userIds.get(userIds.size() - 1);
+                    if (accrualRunRepository.checkpoint(run.getId(), previousUserId, lastUserId, userIds.size()) == 0) {
+                        throw new IllegalStateException("Accrual run " + run.getId() + " was advanced by another worker");
+                    }
+                    accrueChunk(userIds, leaveType, month, year);
+                });
+
+                afterUserId = userIds.get(userIds.size() - 1);
+                logger.debug("Accrued {}/{} up to user {}", month, year, afterUserId);
+            }
+
+            transactionTemplate.executeWithoutResult(status -> accrualRunRepository.complete(run.getId()));
+        } catch (RuntimeException e) {
+            logger.error("Accrual for {}/{} failed after user {}", month, year, afterUserId, e);
+            String message = String.valueOf(e.getMessage());
+            String errorMessage = message.length() > 1000 ? message.substring(0, 1000) : message;
+            transactionTemplate.executeWithoutResult(status -> accrualRunRepository.fail(run.getId(), errorMessage));
+            throw e;
+        }
+
+        AccrualRun completed = accrualRunRepository.findById(run.getId()).orElseThrow();
+        logger.info("Monthly accrual for {}/{} applied to {} users in {} chunks",
+                month, year, completed.getUsersAccrued(), completed.getChunksCompleted());
+        return completed;
+    }
+
+    /**
+     * Create the ledger entry for a month, or claim an existing one that can be resumed
+     */
+    private AccrualRun startRun(int month, int year, LeaveType leaveType, boolean resume) {
+        Optional<AccrualRun> existing = accrualRunRepository.findByMonthAndYearAndLeaveTypeId(month, year, leaveType.getId());
+
+        if (existing.isEmpty()) {
+            try {
+                return transactionTemplate.execute(status -> accrualRunRepository.saveAndFlush(AccrualRun.builder()
+                        .month(month)
+                        .year(year)
+                        .leaveType(leaveType)
+                        .status(AccrualRunStatus.RUNNING)
+                        .build()));
+            } catch (DataIntegrityViolationException e) {
+                throw new IllegalArgumentException("Accrual for " + month + "/" + year + " is already in progress");
+            }
+        }
+
+        AccrualRun run = existing.get();
+        if (run.getStatus() == AccrualRunStatus.COMPLETED) {
+            return run;
+        }
+        if (!resume) {
+            throw new IllegalArgumentException("Accrual for " + month + "/" + year + " is " +
+                    run.getStatus().name().toLowerCase() + " at user " + run.getLastUserId() +
+                    "; retry with resume=true to continue it");
+        }
+
+        LocalDateTime staleBefore = LocalDateTime.now().minus(ABANDONED_AFTER);
+        Integer claimed = transactionTemplate.execute(status -> accrualRunRepository.claim(run.getId(), staleBefore));
+        if (claimed == null || claimed == 0) {
+            throw new IllegalArgumentException("Accrual for " + month + "/" + year + " is already in progress");
+        }
+
+        logger.info("Resuming accrual for {}/{} after user {}", month, year, run.getLastUserId());
+        return accrualRunRepository.findById(run.getId()).orElseThrow();
+    }
+
+    /**
+     * Accrue one chunk of users; must run inside a transaction
+     */
+    void accrueChunk(List<Long> userIds, LeaveType leaveType, int month, int year) {
+        String period = month + "/" + year;
+
+        leaveBalanceRepository.upsertAccrual(userIds, leaveType.getId(), year, MONTHLY_ACCRUAL_DAYS,
+                LocalDate.of(year + 1, 3, 31)); // Expires March 31 next year
+
+        adjustmentRepository.insertForBalances(userIds, leaveType.getId(), year, MONTHLY_ACCRUAL_DAYS,
+                "Monthly accrual for " + period, AdjustmentType.ACCRUAL.name());
+        leaveBalanceCache.evictUsers(userIds, year);
+
+        notificationOutboxRepository.insertBalanceNotifications(userIds, leaveType.getId(), year,
+                notificationTemplateStore.idOf(ACCRUAL_NOTIFICATION),
+                notificationTemplateStore.parameters(ACCRUAL_NOTIFICATION,
+                        Map.of("accrued", MONTHLY_ACCRUAL_DAYS, "period", period), Set.of("leaveType", "available")));
+    }
+}
@@ -0,0 +1,110 @@
+package com.ist.lms.service.balance;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.ist.lms.model.LeaveBalance;
+import com.ist.lms.payload.response.CacheStatsResponse;
+import com.ist.lms.util.TransactionCallbacks;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Local cache of each user's leave balances for a year, read through by the balance
+ * service. It holds detached copies and hands out copies of those, so no caller ever
+ * gets or changes an instance another persistence context manages; loads inside a
+ * writing transaction bypass it, as they may see that transaction's uncommitted
+ * writes and are usually followed by a write anyway. Every write to a balance
+ * evicts its (user, year) entry through
+ * {@link TransactionCallbacks#invalidateNowAndAfterCompletion}; entries also expire
+ * after a while as a backstop for writes made outside the application.
+ */
+@Component
+public class LeaveBalanceCache {
+
+    public static final String NAME = "leaveBalances";
+
+    public static final int MAXIMUM_SIZE = 10_000;
+
+    public static final Duration TIME_TO_LIVE = Duration.ofMinutes(10);
+
+    private final Cache<Key, List<LeaveBalance>> cache = Caffeine.newBuilder()
+            .maximumSize(MAXIMUM_SIZE)
+            .expireAfterWrite(TIME_TO_LIVE)
+            .recordStats()
+            .build();
+
+    /**
+     * Get a user's balances for a year, loading them on a miss
+     * @param userId the user
+     * @param year the year
+     * @param loader loads the balances from the database
+     * @return the balances, unmodifiable; detached copies unless loaded by a writing transaction
+     */
+    public List<LeaveBalance> get(Long userId, int year, Supplier<List<LeaveBalance>> loader) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return List.copyOf(loader.get());
+        }
+        return copies(cache.get(new Key(userId, year), key -> copies(loader.get())));
+    }
+
+    /**
+     * Evict a user's balances for a year
+     */
+    public void evict(Long userId, int year) {
+        Key key = new Key(userId, year);
+        TransactionCallbacks.invalidateNowAndAfterCompletion(() -> cache.invalidate(key));
+    }
+
+    /**
+     * Evict several users' balances for a year, after a bulk write to them
+     */
+    public void evictUsers(Collection<Long> userIds, int year) {
+        List<Key> keys = userIds.stream().map(userId -> new Key(userId, year)).toList();
+        TransactionCallbacks.invalidateNowAndAfterCompletion(() -> cache.invalidateAll(keys));
+    }
+
+    /**
+     * Evict everything, after a bulk write whose owners are not known
+     */
+    public void evictAll() {
+        TransactionCallbacks.invalidateNowAndAfterCompletion(cache::invalidateAll);
+    }
+
+    public CacheStatsResponse stats() {
+        CacheStats stats = cache.stats();
+        return new CacheStatsResponse(NAME, cache.estimatedSize(), stats.hitCount(), stats.missCount(),
+                stats.hitRate(), stats.evictionCount());
+    }
+
+    private static List<LeaveBalance> copies(List<LeaveBalance> balances) {
+        return balances.stream().map(LeaveBalanceCache::copy).toList();
+    }
+
+    private static LeaveBalance copy(LeaveBalance balance) {
+        LeaveBalance copy = LeaveBalance.builder()
+                .id(balance.getId())
+                .user(balance.getUser())
+                .leaveType(balance.getLeaveType())
+                .year(balance.getYear())
+                .totalDays(balance.getTotalDays())
+                .usedDays(balance.getUsedDays())
+                .carriedOverDays(balance.getCarriedOverDays())
+                .reservedDays(balance.getReservedDays())
+                .expiryDate(balance.getExpiryDate())
+                .build();
+        copy.setCreatedAt(balance.getCreatedAt());
+        copy.setUpdatedAt(balance.getUpdatedAt());
+        copy.setVersion(balance.getVersion());
+        return copy;
+    }
+
+    private record Key(Long userId, int year) {
+    }
+}
@@ -0,0 +1,156 @@
+package com.ist.lms.service.balance;
+
+import com.ist.lms.model.LeaveBalance;
+import com.ist.lms.model.LeaveBalanceAdjustment;
+import com.ist.lms.model.LeaveBalanceSnapshot;
+import com.ist.lms.model.User;
+import com.ist.lms.model.enums.AdjustmentType;
+import com.ist.lms.repository.LeaveBalanceAdjustmentRepository;
+import com.ist.lms.repository.LeaveBalanceRepository;
+import com.ist.lms.repository.LeaveBalanceSnapshotRepository;
+import com.ist.lms.repository.projection.LedgerDeltaView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Ledger of leave balances. Every change to a balance is appended as an adjustment
+ * carrying its signed effect on total and used days, in the same transaction that
+ * applies the effect to the totals stored on the balance; the ledger is the source
+ * of truth and the stored totals are its projection. Snapshots checkpoint the running
+ * totals at every {@link #SNAPSHOT_INTERVAL}th entry of a balance, so the balance at
+ * any time is folded from one snapshot and fewer than that many entries after it,
+ * however long the history.
+ */
+@Component
+public class LeaveBalanceLedger {
+
+    private static final Logger logger = LoggerFactory.getLogger(LeaveBalanceLedger.class);
+
+    // Ledger entries between consecutive snapshots of a balance
+    public static final int SNAPSHOT_INTERVAL = 20;
+
+    // Entries younger than this may belong to transactions still open, so snapshots leave them out
+    public static final Duration SNAPSHOT_SETTLE_TIME = Duration.ofHours(1);
+
+    private final LeaveBalanceAdjustmentRepository adjustmentRepository;
+    private final LeaveBalanceSnapshotRepository snapshotRepository;
+    private final LeaveBalanceRepository leaveBalanceRepository;
+    private final LeaveBalanceCache leaveBalanceCache;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public LeaveBalanceLedger(
+            LeaveBalanceAdjustmentRepository adjustmentRepository,
+            LeaveBalanceSnapshotRepository snapshotRepository,
+            LeaveBalanceRepository leaveBalanceRepository,
+            LeaveBalanceCache leaveBalanceCache,
+            PlatformTransactionManager transactionManager) {
+        this.adjustmentRepository = adjustmentRepository;
+        this.snapshotRepository = snapshotRepository;
+        this.leaveBalanceRepository = leaveBalanceRepository;
+        this.leaveBalanceCache = leaveBalanceCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Append an entry to a balance's ledger; the caller applies the same deltas to the
+     * stored totals in its transaction
+     * @param balance the balance
+     * @param adjustedBy the user the entry is attributed to
+     * @param value the amount recorded with the entry
+     * @param type the adjustment type
+     * @param reason the reason shown with the entry
+     * @param totalDelta the change in total days
+     * @param usedDelta the change in used days
+     * @return the appended entry
+     */
+    public LeaveBalanceAdjustment append(LeaveBalance balance, User adjustedBy, double value,
+                                         AdjustmentType type, String reason, double totalDelta, double usedDelta) {
+        return adjustmentRepository.save(LeaveBalanceAdjustment.builder()
+                .leaveBalance(balance)
+                .adjustedBy(adjustedBy)
+                .adjustmentValue(value)
+                .type(type)
+                .reason(reason)
+                .totalDelta(totalDelta)
+                .usedDelta(usedDelta)
+                .build());
+    }
+
+    /**
+     * Fold a balance's ledger up to a time
+     * @param balanceId the balance
+     * @param asOf the time, inclusive
+     * @return the balance's totals at that time
+     */
+    public BalanceTotals totalsAsOf(Long balanceId, LocalDateTime asOf) {
+        Optional<LeaveBalanceSnapshot> snapshot =
+                snapshotRepository.findFirstByLeaveBalanceIdAndAsOfLessThanEqualOrderByAsOfDesc(balanceId, asOf);
+
+        BalanceTotals totals = snapshot
+                .map(s -> new BalanceTotals(s.getTotalDays(), s.getUsedDays()))
+                .orElse(BalanceTotals.ZERO);
+        List<LedgerDeltaView> entries = snapshot
+                .map(s -> adjustmentRepository.findDeltasBetween(balanceId, s.getAsOf(), asOf))
+                .orElseGet(() -> adjustmentRepository.findDeltasThrough(balanceId, asOf));
+
+        for (LedgerDeltaView entry : entries) {
+            totals = totals.plus(entry.getTotalDelta(), entry.getUsedDelta());
+        }
+        return totals;
+    }
+
+    /**
+     * Checkpoint the settled entries since each balance's latest snapshot, then bring
+     * any stored totals that drifted from their ledger back in line
+     */
+    @Scheduled(cron = "${app.ledger.snapshot-cron:0 30 2 * * *}")
+    public void snapshotAndReconcile() {
+        snapshot(LocalDateTime.now().minus(SNAPSHOT_SETTLE_TIME));
+        reconcile();
+    }
+
+    /**
+     * Snapshot every balance at each {@link #SNAPSHOT_INTERVAL}th entry after its latest
+     * snapshot, up to a cutoff
+     * @param cutoff the time of the latest entries considered
+     * @return number of snapshots taken
+     */
+    public int snapshot(LocalDateTime cutoff) {
+        Integer taken = transactionTemplate.execute(status ->
+                snapshotRepository.insertCheckpoints(cutoff, SNAPSHOT_INTERVAL));
+        logger.info("Took {} leave balance snapshots up to {}", taken, cutoff);
+        return taken != null ? taken : 0;
+    }
+
+    /**
+     * Rewrite the stored totals of every balance that no longer matches its ledger
+     * @return number of balances rewritten
+     */
+    public int reconcile() {
+        int rebuilt = 0;
+        for (Long balanceId : leaveBalanceRepository.findIdsOutOfLedger()) {
+            // Every writer locks the balance before appending, so the ledger is stable under the lock
+            Integer updated = transactionTemplate.execute(status -> {
+                leaveBalanceRepository.lockByIds(List.of(balanceId));
+                leaveBalanceCache.evictAll();
+                return leaveBalanceRepository.rebuildFromLedger(balanceId);
+            });
+            if (updated != null && updated > 0) {
+                logger.warn("Leave balance {} differed from its ledger and was rebuilt", balanceId);
+                rebuilt += updated;
+            }
+        }
+        return rebuilt;
+    }
+}
@@ -0,0 +1,189 @@
+package com.ist.lms.service.balance;
+
+import com.ist.lms.model.enums.NotificationType;
+import com.ist.lms.repository.LeaveBalanceAdjustmentRepository;
+import com.ist.lms.repository.LeaveBalanceRepository;
+import com.ist.lms.repository.NotificationOutboxRepository;
+import com.ist.lms.service.notification.NotificationTemplate;
+import com.ist.lms.service.notification.NotificationTemplateStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Year-end carry-over split into user-ID-range partitions. Owners of balances
+ * with days left are streamed from the database for the source year only, cut
+ * into partitions, and each partition is carried over by a bounded worker pool
+ * as one set-based write (balance upsert, notifications, adjustments) in its own
+ * transaction. Partitions commit independently, and a rerun skips the balances
+ * already carried, so a failed carry-over can simply be run again.
+ */
+@Component
+public class LeaveCarryOverEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(LeaveCarryOverEngine.class);
+
+    public static final int PARTITION_SIZE = 500;
+
+    static final NotificationTemplate CARRY_OVER_NOTIFICATION = NotificationTemplate.of(
+            NotificationType.BALANCE_UPDATE, "Leave Balance Carried Over",
+            "{days} days of {leaveType} have been carried over from {fromYear} to {toYear}.")
+            .withAction("/dashboard/leave-balances", "View Leave Balances");
+
+    private final LeaveBalanceRepository leaveBalanceRepository;
+    private final LeaveBalanceAdjustmentRepository adjustmentRepository;
+    private final NotificationOutboxRepository notificationOutboxRepository;
+    private final NotificationTemplateStore notificationTemplateStore;
+    private final LeaveBalanceCache leaveBalanceCache;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+
+    // Keep below the connection pool size: the reader holds one connection while workers write
+    @Value("${app.carry-over.workers:3}")
+    private int workers;
+
+    @Autowired
+    public LeaveCarryOverEngine(
+            LeaveBalanceRepository leaveBalanceRepository,
+            LeaveBalanceAdjustmentRepository adjustmentRepository,
+            NotificationOutboxRepository notificationOutboxRepository,
+            NotificationTemplateStore notificationTemplateStore,
+            LeaveBalanceCache leaveBalanceCache,
+            PlatformTransactionManager transactionManager) {
+        this.leaveBalanceRepository = leaveBalanceRepository;
+        this.adjustmentRepository = adjustmentRepository;
+        this.notificationOutboxRepository = notificationOutboxRepository;
+        this.notificationTemplateStore = notificationTemplateStore;
+        this.leaveBalanceCache = leaveBalanceCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Carry remaining days of every balance in one year over to the next
+     * @param fromYear the year whose remaining days are carried
+     * @param toYear the year receiving them
+     * @param maxDays cap on the days carried per balance
+     * @return number of balances carried over
+     */
+    public int carryOver(int fromYear, int toYear, double maxDays) {
+        if (maxDays <= 0) {
+            return 0;
+        }
+
+        int poolSize = Math.max(1, Math.min(workers, Runtime.getRuntime().availableProcessors()));
+        ExecutorService executor = Executors.newFixedThreadPool(poolSize);
+        // Bound the partitions waiting in the queue so the stream is read at the pace of the workers
+        Semaphore inFlight = new Semaphore(poolSize * 2);
+        List<Future<?>> partitions = new ArrayList<>();
+        AtomicInteger carried = new AtomicInteger();
+
+        try {
+            readOnlyTransactionTemplate.executeWithoutResult(status -> {
+                try (Stream<Long> userIds = leaveBalanceRepository.streamUserIdsWithRemainingDays(fromYear)) {
+                    List<Long> partition = new ArrayList<>(PARTITION_SIZE);
+                    for (Long userId : (Iterable<Long>) userIds::iterator) {
+                        partition.add(userId);
+                        if (partition.size() == PARTITION_SIZE) {
+                            partitions.add(submit(executor, inFlight, partition, fromYear, toYear, maxDays, carried));
+                            partition = new ArrayList<>(PARTITION_SIZE);
+                        }
+                    }
+                    if (!partition.isEmpty()) {
+                        partitions.add(submit(executor, inFlight, partition, fromYear, toYear, maxDays, carried));
+                    }
+                }
+            });
+
+            awaitAll(partitions);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        logger.info("Carried over {} balances from {} to {} in {} partitions", carried.get(), fromYear, toYear,
+                partitions.size());
+        return carried.get();
+    }
+
+    private Future<?> submit(ExecutorService executor, Semaphore inFlight, List<Long> userIds,
+                             int fromYear, int toYear, double maxDays, AtomicInteger carried) {
+        inFlight.acquireUninterruptibly();
+        try {
+            return executor.submit(() -> {
+                try {
+                    transactionTemplate.executeWithoutResult(status ->
+                            carried.addAndGet(carryOverPartition(userIds, fromYear, toYear, maxDays)));
+                } finally {
+                    inFlight.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Carry over one partition of users; must run inside a transaction
+     */
+    int carryOverPartition(List<Long> userIds, int fromYear, int toYear, double maxDays) {
+        // Notifications and adjustments read the previous year's rows, so they can follow the upsert;
+        // the adjustments mark the balances as carried, so they come last
+        int balances = leaveBalanceRepository.upsertCarryOver(userIds, fromYear, toYear, maxDays,
+                LocalDate.of(toYear + 1, 3, 31)); // Expires March 31 next year
+        notificationOutboxRepository.insertCarryOverNotifications(userIds, fromYear, toYear, maxDays,
+                notificationTemplateStore.idOf(CARRY_OVER_NOTIFICATION),
+                notificationTemplateStore.parameters(CARRY_OVER_NOTIFICATION,
+                        Map.of("fromYear", fromYear, "toYear", toYear), Set.of("days", "leaveType")));
+        adjustmentRepository.insertCarryOverAdjustments(userIds, fromYear, toYear, maxDays);
+        leaveBalanceCache.evictUsers(userIds, toYear);
+
+        logger.debug("Carried over partition of users {}..{} ({} balances)",
+                userIds.get(0), userIds.get(userIds.size() - 1), balances);
+        return balances;
+    }
+
+    private void awaitAll(List<Future<?>> partitions) {
+        RuntimeException failure = null;
+        int failed = 0;
+
+        for (Future<?> partition : partitions) {
+            try {
+                partition.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for carry-over partitions", e);
+            } catch (ExecutionException e) {
+                failed++;
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException cause
+                            ? cause
+                            : new IllegalStateException(e.getCause());
+                }
+            }
+        }
+
+        if (failure != null) {
+            logger.error("{} of {} carry-over partitions failed", failed, partitions.size());
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.ist.lms.service.balance;
+
+import com.ist.lms.model.enums.NotificationType;
+import com.ist.lms.repository.LeaveBalanceAdjustmentRepository;
+import com.ist.lms.repository.LeaveBalanceRepository;
+import com.ist.lms.repository.NotificationOutboxRepository;
+import com.ist.lms.service.notification.NotificationTemplate;
+import com.ist.lms.service.notification.NotificationTemplateStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Expiry of balances past their expiry date. IDs of expired balances are read
+ * through a cursor and expired in batches; each batch locks its rows, records
+ * adjustments and notifications with insert-selects and zeroes the remaining
+ * days with a single UPDATE, all in one transaction per batch.
+ */
+@Component
+public class LeaveExpiryEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(LeaveExpiryEngine.class);
+
+    public static final int BATCH_SIZE = 500;
+
+    static final NotificationTemplate EXPIRY_NOTIFICATION = NotificationTemplate.of(
+            NotificationType.BALANCE_UPDATE, "Leave Balance Expired",
+            "{days} days of your {leaveType} balance have expired. Your new balance is 0 days.")
+            .withAction("/dashboard/leave-balances", "View Leave Balances");
+
+    // For balances with days still held by pending applications
+    static final NotificationTemplate RESERVED_EXPIRY_NOTIFICATION = NotificationTemplate.of(
+            NotificationType.BALANCE_UPDATE, "Leave Balance Expired",
+            "{days} days of your {leaveType} balance have expired. " +
+            "Only the {reserved} days held by your pending applications remain.")
+            .withAction("/dashboard/leave-balances", "View Leave Balances");
+
+    private static final Set<String> EXPIRY_PARAMETERS = Set.of("days", "leaveType", "reserved");
+
+    private final LeaveBalanceRepository leaveBalanceRepository;
+    private final LeaveBalanceAdjustmentRepository adjustmentRepository;
+    private final NotificationOutboxRepository notificationOutboxRepository;
+    private final NotificationTemplateStore notificationTemplateStore;
+    private final LeaveBalanceCache leaveBalanceCache;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+
+    @Autowired
+    public LeaveExpiryEngine(
+            LeaveBalanceRepository leaveBalanceRepository,
+            LeaveBalanceAdjustmentRepository adjustmentRepository,
+            NotificationOutboxRepository notificationOutboxRepository,
+            NotificationTemplateStore notificationTemplateStore,
+            LeaveBalanceCache leaveBalanceCache,
+            PlatformTransactionManager transactionManager) {
+        this.leaveBalanceRepository = leaveBalanceRepository;
+        this.adjustmentRepository = adjustmentRepository;
+        this.notificationOutboxRepository = notificationOutboxRepository;
+        this.notificationTemplateStore = notificationTemplateStore;
+        this.leaveBalanceCache = leaveBalanceCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Batches are written from inside the read-only cursor transaction and must not join it
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Expire the remaining days of every balance whose expiry date is before a date
+     * @param today the reference date
+     * @return number of balances expired
+     */
+    public int expire(LocalDate today) {
+        int[] expired = {0};
+
+        readOnlyTransactionTemplate.executeWithoutResult(status -> {
+            try (Stream<Long> balanceIds = leaveBalanceRepository.streamExpiredBalanceIds(today)) {
+                List<Long> batch = new ArrayList<>(BATCH_SIZE);
+                for (Long balanceId : (Iterable<Long>) balanceIds::iterator) {
+                    batch.add(balanceId);
+                    if (batch.size() == BATCH_SIZE) {
+                        expired[0] += expireBatch(batch, today);
+                        batch.clear();
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    expired[0] += expireBatch(batch, today);
+                }
+            }
+        });
+
+        logger.info("Expired {} leave balances as of {}", expired[0], today);
+        return expired[0];
+    }
+
+    private int expireBatch(List<Long> balanceIds, LocalDate today) {
+        Integer expired = transactionTemplate.execute(status -> {
+            // Lock first so the days recorded are the days removed, even with concurrent adjustments
+            leaveBalanceRepository.lockByIds(balanceIds);
+            adjustmentRepository.insertExpiryAdjustments(balanceIds, today);
+            notificationOutboxRepository.insertExpiryNotifications(balanceIds, today,
+                    notificationTemplateStore.idOf(EXPIRY_NOTIFICATION),
+                    notificationTemplateStore.idOf(RESERVED_EXPIRY_NOTIFICATION),
+                    notificationTemplateStore.parameters(EXPIRY_NOTIFICATION, Map.of(), EXPIRY_PARAMETERS));
+            // Expiry runs once a year over balances of every owner, so drop the whole cache
+            leaveBalanceCache.evictAll();
+            return leaveBalanceRepository.expireRemainingDays(balanceIds, today);
+        });
+
+        logger.debug("Expired batch of balances {}..{}", balanceIds.get(0), balanceIds.get(balanceIds.size() - 1));
+        return expired == null ? 0 : expired;
+    }
+}
@@ -0,0 +1,72 @@
+package com.ist.lms.service.balance;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Retry policy for read-modify-write updates of versioned entities. Every attempt
+ * runs in a transaction of its own and must re-read what it changes, so an attempt
+ * that lost an optimistic lock race is replayed against the committed state.
+ * Attempts back off exponentially with jitter so writers colliding on the same
+ * balance spread out instead of colliding again.
+ */
+@Component
+public class OptimisticRetryTemplate {
+
+    private static final Logger logger = LoggerFactory.getLogger(OptimisticRetryTemplate.class);
+
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.balance-retry.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${app.balance-retry.backoff-millis:20}")
+    private long backoffMillis;
+
+    @Autowired
+    public OptimisticRetryTemplate(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // A failed attempt must roll back on its own, not mark a caller's transaction rollback-only
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Run an action in its own transaction, retrying it while it fails on an optimistic lock
+     * @param action the read-modify-write to run
+     * @return the action's result
+     * @throws OptimisticLockingFailureException if every attempt conflicted
+     */
+    public <T> T execute(Supplier<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> action.get());
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                logger.debug("Optimistic lock conflict on attempt {}, retrying: {}", attempt, e.getMessage());
+                backOff(attempt);
+            }
+        }
+    }
+
+    private void backOff(int attempt) {
+        long ceiling = backoffMillis << Math.min(attempt - 1, 6);
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling / 2, ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying an optimistic update", e);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.ist.lms.service.impl;
+
+import com.ist.lms.exception.ResourceNotFoundException;
+import com.ist.lms.model.LeaveApplication;
+import com.ist.lms.model.LeaveApproval;
+import com.ist.lms.model.User;
+import com.ist.lms.model.UserChangeListener;
+import com.ist.lms.model.enums.ApprovalStatus;
+import com.ist.lms.model.enums.NotificationType;
+import com.ist.lms.repository.LeaveApprovalRepository;
+import com.ist.lms.repository.UserRepository;
+import com.ist.lms.repository.projection.UserRoutingView;
+import com.ist.lms.service.ApprovalRoutingService;
+import com.ist.lms.service.NotificationService;
+import com.ist.lms.service.routing.ApprovalRoutePlan;
+import com.ist.lms.service.routing.ApprovalRouteRule;
+import com.ist.lms.util.TransactionCallbacks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Builds approval chains from route plans compiled by the registered
+ * {@link ApprovalRouteRule} beans. Plans are cached per leave type and department
+ * until a user is written or {@link #invalidate()} is called, so a submission
+ * only needs the applicant's routing view and one batched insert.
+ */
+@Service
+public class ApprovalRoutingServiceImpl implements ApprovalRoutingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ApprovalRoutingServiceImpl.class);
+
+    private final List<ApprovalRouteRule> rules;
+    private final UserRepository userRepository;
+    private final LeaveApprovalRepository leaveApprovalRepository;
+    private final NotificationService notificationService;
+
+    private volatile PlanCache planCache;
+
+    @Autowired
+    public ApprovalRoutingServiceImpl(
+            List<ApprovalRouteRule> rules,
+            UserRepository userRepository,
+            LeaveApprovalRepository leaveApprovalRepository,
+            NotificationService notificationService) {
+        this.rules = rules;
+        this.userRepository = userRepository;
+        this.leaveApprovalRepository = leaveApprovalRepository;
+        this.notificationService = notificationService;
+    }
+
+    @Override
+    @Transactional
+    public List<LeaveApproval> createApprovals(LeaveApplication leaveApplication) {
+        Long applicantId = leaveApplication.getUser().getId();
+        UserRoutingView applicant = userRepository.findRoutingViewById(applicantId)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + applicantId));
+
+        ApprovalRoutePlan plan = getPlan(leaveApplication.getLeaveType().getId(), applicant.getDepartmentId());
+
+        List<LeaveApproval> approvals = new ArrayList<>();
+        Set<Long> reviewers = new HashSet<>();
+        User firstApprover = null;
+
+        for (ApprovalRoutePlan.Step step : plan.getSteps()) {
+            Long approverId = step.getSource() == ApprovalRoutePlan.ApproverSource.DIRECT_MANAGER
+                    ? applicant.getManagerId()
+                    : step.getApproverId();
+
+            // Skip unresolved levels and reviewers already earlier in the chain
+            if (approverId == null || (step.isReviewing() && !reviewers.add(approverId))) {
+                continue;
+            }
+
+            User approver = userRepository.getReferenceById(approverId);
+            ApprovalStatus status = ApprovalStatus.SKIPPED;
+
+            // The first reviewing level is the one that has to act
+            if (step.isReviewing() && firstApprover == null) {
+                status = ApprovalStatus.PENDING;
+                firstApprover = approver;
+            }
+
+            approvals.add(LeaveApproval.builder()
+                    .leaveApplication(leaveApplication)
+                    .approver(approver)
+                    .status(status)
+                    .approvalLevel(step.getApprovalLevel())
+                    .notificationSent(false)
+                    .build());
+        }
+
+        List<LeaveApproval> savedApprovals = leaveApprovalRepository.saveAll(approvals);
+
+        if (firstApprover != null) {
+            notificationService.createNotification(
+                firstApprover,
+                "Leave Approval Required",
+                applicant.getFullName() + " has requested leave for " +
+                formatDateRange(leaveApplication.getStartDate(), leaveApplication.getEndDate()) +
+                ". Please review and approve or reject this request.",
+                NotificationType.LEAVE_REQUEST,
+                "/dashboard/pending-approvals",
+                "Review Request"
+            );
+        }
+
+        return savedApprovals;
+    }
+
+    @Override
+    public void invalidate() {
+        logger.debug("Invalidating approval route plans");
+        TransactionCallbacks.invalidateNowAndAfterCompletion(() -> planCache = null);
+    }
+
+    private ApprovalRoutePlan getPlan(Long leaveTypeId, Long departmentId) {
+        long generation = UserChangeListener.currentGeneration();
+        PlanCache current = planCache;
+
+        if (current == null || current.generation != generation) {
+            current = new PlanCache(generation);
+            planCache = current;
+        }
+
+        return current.plans.computeIfAbsent(new PlanKey(leaveTypeId, departmentId), this::compile);
+    }
+
+    private ApprovalRoutePlan compile(PlanKey key) {
+        List<ApprovalRoutePlan.Step> steps = rules.stream()
+                .map(rule -> rule.compile(key.leaveTypeId(), key.departmentId()))
+                .flatMap(Optional::stream)
+                .toList();
+
+        logger.debug("Compiled approval route for leave type {} and department {} with {} steps",
+                key.leaveTypeId(), key.departmentId(), steps.size());
+        return new ApprovalRoutePlan(steps);
+    }
+
+    // Helper method to format date ranges consistently
+    private String formatDateRange(LocalDate startDate, LocalDate endDate) {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMM d, yyyy");
+        return startDate.format(formatter) + " to " + endDate.format(formatter);
+    }
+
+    // Users without a department (null) get a plan too
+    private record PlanKey(Long leaveTypeId, Long departmentId) {
+    }
+
+    private static final class PlanCache {
+        private final long generation;
+        private final Map<PlanKey, ApprovalRoutePlan> plans = new ConcurrentHashMap<>();
+
+        private PlanCache(long generation) {
+            this.generation = generation;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.ist.lms.service.impl;
+
+import com.ist.lms.model.ERole;
+import com.ist.lms.model.User;
+import com.ist.lms.model.UserChangeListener;
+import com.ist.lms.repository.UserRepository;
+import com.ist.lms.service.ApproverService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Resolves approvers by role with one indexed query per role, cached until any
+ * user is written. Leave submissions therefore never scan the user table.
+ */
+@Service
+public class ApproverServiceImpl implements ApproverService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ApproverServiceImpl.class);
+
+    private final UserRepository userRepository;
+
+    private volatile ApproverIndex index;
+
+    @Autowired
+    public ApproverServiceImpl(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    @Override
+    public List<Long> getApproverIdsByRole(ERole role) {
+        return currentIndex().approverIds(role);
+    }
+
+    @Override
+    public Optional<User> getFirstApproverByRole(ERole role) {
+        return getApproverIdsByRole(role).stream()
+                .findFirst()
+                .map(userRepository::getReferenceById);
+    }
+
+    @Override
+    public void invalidate() {
+        logger.debug("Invalidating approver cache");
+        index = null;
+    }
+
+    private ApproverIndex currentIndex() {
+        long generation = UserChangeListener.currentGeneration();
+        ApproverIndex current = index;
+
+        if (current == null || current.generation != generation) {
+            current = new ApproverIndex(generation);
+            index = current;
+        }
+
+        return current;
+    }
+
+    /**
+     * Approver IDs per role, loaded lazily for a single user generation
+     */
+    private final class ApproverIndex {
+        private final long generation;
+        private final Map<ERole, List<Long>> approversByRole = new EnumMap<>(ERole.class);
+
+        private ApproverIndex(long generation) {
+            this.generation = generation;
+        }
+
+        private synchronized List<Long> approverIds(ERole role) {
+            return approversByRole.computeIfAbsent(role, key -> {
+                List<Long> ids = List.copyOf(userRepository.findActiveUserIdsByRole(key));
+                logger.debug("Loaded {} active users with role {}", ids.size(), key);
+                return ids;
+            });
+        }
+    }
+}
@@ -5,6 +5,7 @@ import com.ist.lms.model.Department;
 import com.ist.lms.model.User;
 import com.ist.lms.repository.DepartmentRepository;
 import com.ist.lms.repository.UserRepository;
+import com.ist.lms.service.ApprovalRoutingService;
 import com.ist.lms.service.DepartmentService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -21,11 +22,14 @@ public class DepartmentServiceImpl implements DepartmentService {
     
     private final DepartmentRepository departmentRepository;
     private final UserRepository userRepository;
+    private final ApprovalRoutingService approvalRoutingService;
 
     @Autowired
-    public DepartmentServiceImpl(DepartmentRepository departmentRepository, UserRepository userRepository) {
+    public DepartmentServiceImpl(DepartmentRepository departmentRepository, UserRepository userRepository,
+                                 ApprovalRoutingService approvalRoutingService) {
         this.departmentRepository = departmentRepository;
         this.userRepository = userRepository;
+        this.approvalRoutingService = approvalRoutingService;
     }
 
     @Override
@@ -91,6 +95,7 @@ public class DepartmentServiceImpl implements DepartmentService {
         }
         
         departmentRepository.delete(department);
+        approvalRoutingService.invalidate();
     }
 
     @Override
@@ -103,6 +108,10 @@ public class DepartmentServiceImpl implements DepartmentService {
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + managerId));
         
         department.setManager(manager);
-        return departmentRepository.save(department);
+        Department savedDepartment = departmentRepository.save(department);
+        
+        // Department heads are compiled into approval route plans
+        approvalRoutingService.invalidate();
+        return savedDepartment;
     }
 } 
\ No newline at end of file
@@ -0,0 +1,258 @@
+package com.ist.lms.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ist.lms.model.Holiday;
+import com.ist.lms.model.HolidayChangeListener;
+import com.ist.lms.repository.HolidayRepository;
+import com.ist.lms.service.HolidayCalendarService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.MonthDay;
+import java.time.Year;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * Holiday calendar backed by one bitset per year (bit n = day-of-year n + 1).
+ * Years are loaded lazily, the missing years of a range with a single query, and
+ * a bounded number of them are kept until a holiday is written, so business-day
+ * math never queries the database per day.
+ *
+ * Business days are counted in closed form: weekdays come from epoch-day
+ * arithmetic and weekday holidays from per-year prefix sums, so the cost does
+ * not depend on the length of the range.
+ */
+@Service
+public class HolidayCalendarServiceImpl implements HolidayCalendarService {
+
+    private static final Logger logger = LoggerFactory.getLogger(HolidayCalendarServiceImpl.class);
+
+    // 1970-01-01 (epoch day 0) was a Thursday, i.e. index 3 when Monday is 0
+    private static final int EPOCH_DAY_OF_WEEK = 3;
+
+    // Longest range counted, in calendar years; longer ones are rejected rather than loaded
+    public static final int MAX_RANGE_YEARS = 10;
+
+    // Years kept per snapshot, least recently used ones evicted first
+    public static final int MAX_CACHED_YEARS = 64;
+
+    private final HolidayRepository holidayRepository;
+
+    private volatile CalendarIndex index;
+
+    @Autowired
+    public HolidayCalendarServiceImpl(HolidayRepository holidayRepository) {
+        this.holidayRepository = holidayRepository;
+    }
+
+    @Override
+    public boolean isHoliday(LocalDate date) {
+        return isHoliday(currentIndex(), date);
+    }
+
+    @Override
+    public boolean isBusinessDay(LocalDate date) {
+        return isBusinessDay(currentIndex(), date);
+    }
+
+    @Override
+    public double countBusinessDays(LocalDate startDate, LocalDate endDate) {
+        return countBusinessDays(currentIndex(), startDate, endDate);
+    }
+
+    @Override
+    public LocalDate nextBusinessDay(LocalDate date) {
+        return nextBusinessDay(currentIndex(), date);
+    }
+
+    @Override
+    public List<BusinessDays> calculateBusinessDays(List<DateSpan> ranges) {
+        CalendarIndex snapshot = currentIndex();
+
+        return ranges.stream()
+                .map(range -> new BusinessDays(
+                        countBusinessDays(snapshot, range.startDate(), range.endDate()),
+                        nextBusinessDay(snapshot, range.endDate())))
+                .toList();
+    }
+
+    @Override
+    public void invalidate() {
+        logger.debug("Invalidating holiday calendar");
+        index = null;
+    }
+
+    private CalendarIndex currentIndex() {
+        long generation = HolidayChangeListener.currentGeneration();
+        CalendarIndex current = index;
+
+        if (current == null || current.generation != generation) {
+            // Read the generation before loading so a concurrent write forces another reload
+            List<MonthDay> recurring = holidayRepository.findAllRecurring().stream()
+                    .map(holiday -> MonthDay.from(holiday.getDate()))
+                    .distinct()
+                    .toList();
+            current = new CalendarIndex(generation, recurring);
+            index = current;
+            logger.debug("Holiday calendar reloaded (generation {}, {} recurring holidays)",
+                    generation, recurring.size());
+        }
+
+        return current;
+    }
+
+    private boolean isHoliday(CalendarIndex current, LocalDate date) {
+        return current.year(date.getYear()).holidays.get(date.getDayOfYear() - 1);
+    }
+
+    private boolean isBusinessDay(CalendarIndex current, LocalDate date) {
+        return !isWeekend(date) && !isHoliday(current, date);
+    }
+
+    private double countBusinessDays(CalendarIndex current, LocalDate startDate, LocalDate endDate) {
+        if (endDate.isBefore(startDate)) {
+            return 0;
+        }
+
+        int startYear = startDate.getYear();
+        int endYear = endDate.getYear();
+        if (endYear - startYear >= MAX_RANGE_YEARS) {
+            throw new IllegalArgumentException(
+                    "Date range must not span more than " + MAX_RANGE_YEARS + " calendar years");
+        }
+
+        long weekdays = weekdaysBefore(endDate.toEpochDay() + 1) - weekdaysBefore(startDate.toEpochDay());
+
+        Map<Integer, YearIndex> years = current.years(startYear, endYear);
+        long weekdayHolidays = 0;
+
+        for (int year = startYear; year <= endYear; year++) {
+            YearIndex yearIndex = years.get(year);
+            int fromDay = year == startYear ? startDate.getDayOfYear() - 1 : 0;
+            int toDay = year == endYear ? endDate.getDayOfYear() : yearIndex.length;
+            weekdayHolidays += yearIndex.weekdayHolidaysBetween(fromDay, toDay);
+        }
+
+        return weekdays - weekdayHolidays;
+    }
+
+    private LocalDate nextBusinessDay(CalendarIndex current, LocalDate date) {
+        LocalDate nextDate = date.plusDays(1);
+        while (!isBusinessDay(current, nextDate)) {
+            nextDate = nextDate.plusDays(1);
+        }
+        return nextDate;
+    }
+
+    private boolean isWeekend(LocalDate date) {
+        DayOfWeek dayOfWeek = date.getDayOfWeek();
+        return dayOfWeek == DayOfWeek.SATURDAY || dayOfWeek == DayOfWeek.SUNDAY;
+    }
+
+    /**
+     * Number of weekdays in the epoch-day range [0, epochDay), negative for dates before 1970
+     */
+    private static long weekdaysBefore(long epochDay) {
+        return weekdaysInFirst(epochDay + EPOCH_DAY_OF_WEEK) - weekdaysInFirst(EPOCH_DAY_OF_WEEK);
+    }
+
+    /**
+     * Number of weekdays among the first n days of a sequence starting on a Monday
+     */
+    private static long weekdaysInFirst(long days) {
+        return 5 * Math.floorDiv(days, 7) + Math.min(Math.floorMod(days, 7), 5);
+    }
+
+    /**
+     * Immutable snapshot of recurring holidays plus lazily built per-year indexes
+     */
+    private final class CalendarIndex {
+        private final long generation;
+        private final List<MonthDay> recurring;
+        private final Cache<Integer, YearIndex> years = Caffeine.newBuilder()
+                .maximumSize(MAX_CACHED_YEARS)
+                .build();
+
+        private CalendarIndex(long generation, List<MonthDay> recurring) {
+            this.generation = generation;
+            this.recurring = recurring;
+        }
+
+        private YearIndex year(int year) {
+            return years(year, year).get(year);
+        }
+
+        /**
+         * Indexes of a range of years; the missing ones are loaded together, outside
+         * any lock, so concurrent callers may load a year twice but never wait on each other
+         */
+        private Map<Integer, YearIndex> years(int fromYear, int toYear) {
+            return years.getAll(IntStream.rangeClosed(fromYear, toYear).boxed().toList(), this::loadYears);
+        }
+
+        private Map<Integer, YearIndex> loadYears(Set<? extends Integer> missing) {
+            Map<Integer, BitSet> bitsByYear = new HashMap<>();
+            missing.forEach(year -> bitsByYear.put(year, new BitSet(366)));
+
+            List<Holiday> holidays = holidayRepository.findHolidaysInDateRange(
+                    LocalDate.of(Collections.min(missing), 1, 1), LocalDate.of(Collections.max(missing), 12, 31));
+            for (Holiday holiday : holidays) {
+                // The query spans the gaps between missing years too
+                BitSet bits = bitsByYear.get(holiday.getDate().getYear());
+                if (bits != null) {
+                    bits.set(holiday.getDate().getDayOfYear() - 1);
+                }
+            }
+
+            Map<Integer, YearIndex> loaded = new HashMap<>();
+            bitsByYear.forEach((year, bits) -> {
+                for (MonthDay monthDay : recurring) {
+                    // Feb 29 only recurs in leap years
+                    if (monthDay.isValidYear(year)) {
+                        bits.set(monthDay.atYear(year).getDayOfYear() - 1);
+                    }
+                }
+                loaded.put(year, new YearIndex(year, bits));
+            });
+            return loaded;
+        }
+    }
+
+    /**
+     * Holidays of a single year with a prefix sum of the ones falling on weekdays
+     */
+    private static final class YearIndex {
+        private final int length;
+        private final BitSet holidays;
+        // weekdayHolidayPrefix[n] = weekday holidays among the first n days of the year
+        private final int[] weekdayHolidayPrefix;
+
+        private YearIndex(int year, BitSet holidays) {
+            this.length = Year.of(year).length();
+            this.holidays = holidays;
+            this.weekdayHolidayPrefix = new int[length + 1];
+
+            long firstEpochDay = LocalDate.of(year, 1, 1).toEpochDay();
+            for (int day = 0; day < length; day++) {
+                int dayOfWeek = (int) Math.floorMod(firstEpochDay + day + EPOCH_DAY_OF_WEEK, 7L);
+                boolean weekdayHoliday = dayOfWeek < 5 && holidays.get(day);
+                weekdayHolidayPrefix[day + 1] = weekdayHolidayPrefix[day] + (weekdayHoliday ? 1 : 0);
+            }
+        }
+
+        private int weekdayHolidaysBetween(int fromDay, int toDay) {
+            return weekdayHolidayPrefix[toDay] - weekdayHolidayPrefix[fromDay];
+        }
+    }
+}
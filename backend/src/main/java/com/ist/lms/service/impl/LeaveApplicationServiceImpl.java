@@ -3,19 +3,26 @@ package com.ist.lms.service.impl;
 import com.ist.lms.exception.ResourceNotFoundException;
 import com.ist.lms.model.*;
 import com.ist.lms.model.enums.AdjustmentType;
-import com.ist.lms.model.enums.ApprovalStatus;
 import com.ist.lms.model.enums.LeaveStatus;
 import com.ist.lms.model.enums.NotificationType;
+import com.ist.lms.payload.response.CursorPage;
+import com.ist.lms.repository.projection.LeaveApplicationSummary;
 import com.ist.lms.repository.*;
+import com.ist.lms.service.ApprovalRoutingService;
+import com.ist.lms.service.HolidayCalendarService;
+import com.ist.lms.service.HolidayCalendarService.BusinessDays;
+import com.ist.lms.service.HolidayCalendarService.DateSpan;
 import com.ist.lms.service.LeaveApplicationService;
 import com.ist.lms.service.LeaveBalanceService;
+import com.ist.lms.service.LeaveOverlapService;
 import com.ist.lms.service.NotificationService;
+import com.ist.lms.util.KeysetCursor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
@@ -24,94 +31,101 @@ import java.util.Optional;
 @Service
 public class LeaveApplicationServiceImpl implements LeaveApplicationService {
     
+    private static final int MAX_PAGE_SIZE = 100;
+    
     private final LeaveApplicationRepository leaveApplicationRepository;
     private final LeaveBalanceService leaveBalanceService;
-    private final UserRepository userRepository;
     private final LeaveTypeRepository leaveTypeRepository;
-    private final HolidayRepository holidayRepository;
-    private final LeaveApprovalRepository leaveApprovalRepository;
+    private final HolidayCalendarService holidayCalendarService;
     private final NotificationService notificationService;
+    private final ApprovalRoutingService approvalRoutingService;
+    private final LeaveOverlapService leaveOverlapService;
     
     @Autowired
     public LeaveApplicationServiceImpl(
             LeaveApplicationRepository leaveApplicationRepository,
             LeaveBalanceService leaveBalanceService,
-            UserRepository userRepository,
             LeaveTypeRepository leaveTypeRepository,
-            HolidayRepository holidayRepository,
-            LeaveApprovalRepository leaveApprovalRepository,
-            NotificationService notificationService) {
+            HolidayCalendarService holidayCalendarService,
+            NotificationService notificationService,
+            ApprovalRoutingService approvalRoutingService,
+            LeaveOverlapService leaveOverlapService) {
         this.leaveApplicationRepository = leaveApplicationRepository;
         this.leaveBalanceService = leaveBalanceService;
-        this.userRepository = userRepository;
         this.leaveTypeRepository = leaveTypeRepository;
-        this.holidayRepository = holidayRepository;
-        this.leaveApprovalRepository = leaveApprovalRepository;
+        this.holidayCalendarService = holidayCalendarService;
         this.notificationService = notificationService;
+        this.approvalRoutingService = approvalRoutingService;
+        this.leaveOverlapService = leaveOverlapService;
     }
     
     @Override
     public List<LeaveApplication> getAllLeaveApplications() {
-        return leaveApplicationRepository.findAllWithUsers()
-                .stream()
-                .sorted((a, b) -> b.getCreatedAt().compareTo(a.getCreatedAt()))
-                .toList();
+        return leaveApplicationRepository.findAllWithUsers(PageRequest.of(0, MAX_PAGE_SIZE));
     }
     
     @Override
     public List<LeaveApplication> getLeaveApplicationsByStatus(LeaveStatus status) {
-        return leaveApplicationRepository.findByStatus(status)
-                .stream()
-                .sorted((a, b) -> b.getCreatedAt().compareTo(a.getCreatedAt()))
-                .toList();
+        return leaveApplicationRepository.findByStatusOrderByCreatedAtDescIdDesc(status, PageRequest.of(0, MAX_PAGE_SIZE));
     }
     
     @Override
     public List<LeaveApplication> getLeaveApplicationsByUserId(Long userId) {
-        return leaveApplicationRepository.findByUserId(userId)
-                .stream()
-                .sorted((a, b) -> b.getCreatedAt().compareTo(a.getCreatedAt()))
-                .toList();
+        return leaveApplicationRepository.findByUserIdOrderByCreatedAtDescIdDesc(userId, PageRequest.of(0, MAX_PAGE_SIZE));
     }
     
     @Override
     public List<LeaveApplication> getLeaveApplicationsByUserIdAndStatus(Long userId, LeaveStatus status) {
-        return leaveApplicationRepository.findByUserIdAndStatus(userId, status)
-                .stream()
-                .sorted((a, b) -> b.getCreatedAt().compareTo(a.getCreatedAt()))
-                .toList();
+        return leaveApplicationRepository.findByUserIdAndStatusOrderByCreatedAtDescIdDesc(userId, status,
+                PageRequest.of(0, MAX_PAGE_SIZE));
     }
     
     @Override
     public List<LeaveApplication> getOverlappingLeaves(Long userId, LocalDate startDate, LocalDate endDate) {
-        return leaveApplicationRepository.findOverlappingLeaves(userId, startDate, endDate)
-                .stream()
-                .sorted((a, b) -> b.getCreatedAt().compareTo(a.getCreatedAt()))
-                .toList();
+        return findByIds(leaveOverlapService.findOverlappingLeaveIds(userId, startDate, endDate));
     }
     
     @Override
     public List<LeaveApplication> getAllLeavesInDateRange(LocalDate startDate, LocalDate endDate) {
-        return leaveApplicationRepository.findAllLeavesInDateRange(startDate, endDate)
-                .stream()
-                .sorted((a, b) -> b.getCreatedAt().compareTo(a.getCreatedAt()))
-                .toList();
+        return findByIds(leaveOverlapService.findLeaveIdsInRange(startDate, endDate));
     }
     
     @Override
     public List<LeaveApplication> getDepartmentLeavesInDateRange(Long departmentId, LocalDate startDate, LocalDate endDate) {
-        return leaveApplicationRepository.findDepartmentLeavesInDateRange(departmentId, startDate, endDate)
-                .stream()
-                .sorted((a, b) -> b.getCreatedAt().compareTo(a.getCreatedAt()))
-                .toList();
+        return findByIds(leaveOverlapService.findDepartmentLeaveIdsInRange(departmentId, startDate, endDate));
     }
     
     @Override
     public List<LeaveApplication> getPendingApprovalsByApproverId(Long approverId) {
-        return leaveApplicationRepository.findPendingApprovalsByApproverId(approverId)
-                .stream()
-                .sorted((a, b) -> b.getCreatedAt().compareTo(a.getCreatedAt()))
-                .toList();
+        return leaveApplicationRepository.findPendingApprovalsByApproverId(approverId);
+    }
+    
+    @Override
+    public CursorPage<LeaveApplicationSummary> getLeaveApplicationsPage(Long userId, LeaveStatus status, String cursor, int size) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        // Fetch one extra row to know whether another page exists
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+        
+        List<LeaveApplicationSummary> rows;
+        if (userId != null && status != null) {
+            rows = leaveApplicationRepository.findPageByUserIdAndStatusAfter(
+                    userId, status, after.getCreatedAt(), after.getId(), limit);
+        } else if (userId != null) {
+            rows = leaveApplicationRepository.findPageByUserIdAfter(userId, after.getCreatedAt(), after.getId(), limit);
+        } else if (status != null) {
+            rows = leaveApplicationRepository.findPageByStatusAfter(status, after.getCreatedAt(), after.getId(), limit);
+        } else {
+            rows = leaveApplicationRepository.findPageAfter(after.getCreatedAt(), after.getId(), limit);
+        }
+        
+        if (rows.size() <= pageSize) {
+            return new CursorPage<>(rows, null);
+        }
+        
+        List<LeaveApplicationSummary> items = rows.subList(0, pageSize);
+        LeaveApplicationSummary last = items.get(pageSize - 1);
+        return new CursorPage<>(items, new KeysetCursor(last.getCreatedAt(), last.getId()).encode());
     }
     
     @Override
@@ -122,6 +136,13 @@ public class LeaveApplicationServiceImpl implements LeaveApplicationService {
     @Override
     @Transactional
     public LeaveApplication createLeaveApplication(LeaveApplication leaveApplication) {
+        // Reject requests that collide with leave the applicant already has approved
+        if (leaveOverlapService.hasApprovedOverlap(leaveApplication.getUser().getId(),
+                leaveApplication.getStartDate(), leaveApplication.getEndDate())) {
+            throw new IllegalArgumentException("Leave application overlaps an approved leave for " +
+                    formatDateRange(leaveApplication.getStartDate(), leaveApplication.getEndDate()));
+        }
+        
         // Calculate business days
         double businessDays = calculateBusinessDays(leaveApplication.getStartDate(), leaveApplication.getEndDate());
         leaveApplication.setTotalDays(businessDays);
@@ -129,18 +150,17 @@ public class LeaveApplicationServiceImpl implements LeaveApplicationService {
         // Set initial status
         leaveApplication.setStatus(LeaveStatus.PENDING);
         
+        // Hold the days until the request is decided; fails when the balance cannot cover them
+        reserveDays(leaveApplication);
+        
         // Set return date (next business day after end date)
-        LocalDate returnDate = leaveApplication.getEndDate().plusDays(1);
-        while (isWeekend(returnDate) || isHoliday(returnDate)) {
-            returnDate = returnDate.plusDays(1);
-        }
-        leaveApplication.setReturnDate(returnDate);
+        leaveApplication.setReturnDate(holidayCalendarService.nextBusinessDay(leaveApplication.getEndDate()));
         
         // Save the application
         LeaveApplication savedApplication = leaveApplicationRepository.save(leaveApplication);
         
-        // Create approvals
-        createApprovalChain(savedApplication);
+        // Create approvals from the cached route plan
+        approvalRoutingService.createApprovals(savedApplication);
         
         // Send notification to the employee
         notificationService.createNotification(
@@ -159,25 +179,25 @@ public class LeaveApplicationServiceImpl implements LeaveApplicationService {
     @Override
     @Transactional
     public LeaveApplication updateLeaveApplication(LeaveApplication leaveApplication) {
-        // Recalculate business days if dates changed
         LeaveApplication existingApplication = leaveApplicationRepository.findByIdWithUser(leaveApplication.getId())
                 .orElseThrow(() -> new ResourceNotFoundException("Leave Application not found with id: " + leaveApplication.getId()));
         
-        if (!existingApplication.getStartDate().equals(leaveApplication.getStartDate()) || 
-            !existingApplication.getEndDate().equals(leaveApplication.getEndDate())) {
-            
-            double businessDays = calculateBusinessDays(leaveApplication.getStartDate(), leaveApplication.getEndDate());
-            leaveApplication.setTotalDays(businessDays);
-            
-            // Update return date
-            LocalDate returnDate = leaveApplication.getEndDate().plusDays(1);
-            while (isWeekend(returnDate) || isHoliday(returnDate)) {
-                returnDate = returnDate.plusDays(1);
-            }
-            leaveApplication.setReturnDate(returnDate);
+        // Hand back what the pending request held before saving merges the changes into it
+        if (existingApplication.getStatus() == LeaveStatus.PENDING) {
+            releaseReservedDays(existingApplication);
         }
         
-        return leaveApplicationRepository.save(leaveApplication);
+        // Always recalculate rather than trust the days sent with the request, since they are reserved below
+        double businessDays = calculateBusinessDays(leaveApplication.getStartDate(), leaveApplication.getEndDate());
+        leaveApplication.setTotalDays(businessDays);
+        leaveApplication.setReturnDate(holidayCalendarService.nextBusinessDay(leaveApplication.getEndDate()));
+        
+        LeaveApplication savedApplication = leaveApplicationRepository.save(leaveApplication);
+        if (savedApplication.getStatus() == LeaveStatus.PENDING) {
+            reserveDays(savedApplication);
+        }
+        leaveOverlapService.leaveChanged(savedApplication);
+        return savedApplication;
     }
     
     @Override
@@ -186,19 +206,34 @@ public class LeaveApplicationServiceImpl implements LeaveApplicationService {
         LeaveApplication leaveApplication = leaveApplicationRepository.findByIdWithUser(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Leave Application not found with id: " + id));
         
+        LeaveStatus previousStatus = leaveApplication.getStatus();
         leaveApplication.setStatus(status);
         
+        // A decided request hands back its reservation (approval takes the days below),
+        // and a reopened one has to hold them again
+        if (previousStatus == LeaveStatus.PENDING && status != LeaveStatus.PENDING) {
+            releaseReservedDays(leaveApplication);
+        } else if (previousStatus != LeaveStatus.PENDING && status == LeaveStatus.PENDING) {
+            reserveDays(leaveApplication);
+        }
+        
         User applicant = leaveApplication.getUser();
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMM d, yyyy");
         String dateRange = formatDateRange(leaveApplication.getStartDate(), leaveApplication.getEndDate());
         
         // Handle leave balance update if approved
         if (status == LeaveStatus.APPROVED) {
+            // Check against the database, which also sees approvals the index has not applied yet
+            if (leaveApplicationRepository.existsApprovedOverlap(applicant.getId(),
+                    leaveApplication.getStartDate(), leaveApplication.getEndDate(), leaveApplication.getId())) {
+                throw new IllegalArgumentException("Leave application overlaps an approved leave for " + dateRange);
+            }
+            
             // Update leave balance
             LeaveBalance leaveBalance = leaveBalanceService.getLeaveBalanceByUserAndType(
                     leaveApplication.getUser().getId(),
                     leaveApplication.getLeaveType().getId(),
-                    LocalDate.now().getYear())
+                    leaveApplication.getStartDate().getYear())
                     .orElseThrow(() -> new ResourceNotFoundException("Leave Balance not found for user and leave type"));
             
             leaveBalanceService.adjustBalance(
@@ -231,7 +266,9 @@ public class LeaveApplicationServiceImpl implements LeaveApplicationService {
             );
         }
         
-        return leaveApplicationRepository.save(leaveApplication);
+        LeaveApplication savedApplication = leaveApplicationRepository.save(leaveApplication);
+        leaveOverlapService.leaveChanged(savedApplication);
+        return savedApplication;
     }
     
     @Override
@@ -241,17 +278,22 @@ public class LeaveApplicationServiceImpl implements LeaveApplicationService {
                 .orElseThrow(() -> new ResourceNotFoundException("Leave Application not found with id: " + id));
         
         // Can only cancel if not already completed
-        if (leaveApplication.getStatus() != LeaveStatus.COMPLETED) {
+        LeaveStatus previousStatus = leaveApplication.getStatus();
+        if (previousStatus != LeaveStatus.COMPLETED) {
             leaveApplication.setStatus(LeaveStatus.CANCELLED);
             leaveApplication.setCancellationReason(reason);
             
+            if (previousStatus == LeaveStatus.PENDING) {
+                releaseReservedDays(leaveApplication);
+            }
+            
             // If was approved, adjust leave balance back
-            if (leaveApplication.getStatus() == LeaveStatus.APPROVED) {
+            if (previousStatus == LeaveStatus.APPROVED) {
                 // Update leave balance
                 LeaveBalance leaveBalance = leaveBalanceService.getLeaveBalanceByUserAndType(
                         leaveApplication.getUser().getId(),
                         leaveApplication.getLeaveType().getId(),
-                        LocalDate.now().getYear())
+                        leaveApplication.getStartDate().getYear())
                         .orElseThrow(() -> new ResourceNotFoundException("Leave Balance not found for user and leave type"));
                 
                 leaveBalanceService.adjustBalance(
@@ -278,29 +320,37 @@ public class LeaveApplicationServiceImpl implements LeaveApplicationService {
             }
         }
         
-        return leaveApplicationRepository.save(leaveApplication);
+        LeaveApplication savedApplication = leaveApplicationRepository.save(leaveApplication);
+        leaveOverlapService.leaveChanged(savedApplication);
+        return savedApplication;
     }
     
     @Override
     @Transactional
     public void deleteLeaveApplication(Long id) {
+        leaveApplicationRepository.findById(id)
+                .filter(leaveApplication -> leaveApplication.getStatus() == LeaveStatus.PENDING)
+                .ifPresent(this::releaseReservedDays);
         leaveApplicationRepository.deleteById(id);
+        leaveOverlapService.leaveRemoved(id);
     }
     
     @Override
     public double calculateBusinessDays(LocalDate startDate, LocalDate endDate) {
-        double businessDays = 0;
-        LocalDate currentDate = startDate;
-        
-        while (!currentDate.isAfter(endDate)) {
-            // Skip weekends and holidays
-            if (!isWeekend(currentDate) && !isHoliday(currentDate)) {
-                businessDays++;
+        // Weekends and holidays are resolved in memory by the holiday calendar
+        return holidayCalendarService.countBusinessDays(startDate, endDate);
+    }
+    
+    @Override
+    public List<BusinessDays> calculateBusinessDays(List<DateSpan> ranges) {
+        ranges.forEach(range -> {
+            if (range.endDate().isBefore(range.startDate())) {
+                throw new IllegalArgumentException("End date " + range.endDate() + 
+                        " is before start date " + range.startDate());
             }
-            currentDate = currentDate.plusDays(1);
-        }
+        });
         
-        return businessDays;
+        return holidayCalendarService.calculateBusinessDays(ranges);
     }
     
     @Override
@@ -316,91 +366,33 @@ public class LeaveApplicationServiceImpl implements LeaveApplicationService {
             return false;
         }
         
-        LeaveBalance leaveBalance = leaveBalanceOpt.get();
-        double availableDays = leaveBalance.getTotalDays() - leaveBalance.getUsedDays();
-        
-        return availableDays >= requiredDays;
+        // Days held by pending requests are already spoken for
+        return leaveBalanceOpt.get().getAvailableDays() >= requiredDays;
     }
     
-    private boolean isWeekend(LocalDate date) {
-        DayOfWeek dayOfWeek = date.getDayOfWeek();
-        return dayOfWeek == DayOfWeek.SATURDAY || dayOfWeek == DayOfWeek.SUNDAY;
+    // Pending applications hold their days on the balance of the year the leave starts in
+    private void reserveDays(LeaveApplication leaveApplication) {
+        leaveBalanceService.reserveDays(
+                leaveApplication.getUser().getId(),
+                leaveApplication.getLeaveType().getId(),
+                leaveApplication.getStartDate().getYear(),
+                leaveApplication.getTotalDays());
     }
     
-    private boolean isHoliday(LocalDate date) {
-        // Check if date is a public holiday
-        return holidayRepository.findByDate(date).isPresent();
+    private void releaseReservedDays(LeaveApplication leaveApplication) {
+        leaveBalanceService.releaseReservedDays(
+                leaveApplication.getUser().getId(),
+                leaveApplication.getLeaveType().getId(),
+                leaveApplication.getStartDate().getYear(),
+                leaveApplication.getTotalDays());
     }
     
-    private void createApprovalChain(LeaveApplication leaveApplication) {
-        User employee = leaveApplication.getUser();
-        String dateRange = formatDateRange(leaveApplication.getStartDate(), leaveApplication.getEndDate());
-        
-        // First level approval - Manager
-        if (employee.getManager() != null) {
-            LeaveApproval managerApproval = LeaveApproval.builder()
-                    .leaveApplication(leaveApplication)
-                    .approver(employee.getManager())
-                    .status(ApprovalStatus.PENDING)
-                    .approvalLevel(1)
-                    .notificationSent(false)
-                    .build();
-            leaveApprovalRepository.save(managerApproval);
-            
-            // Send notification to manager
-            notificationService.createNotification(
-                employee.getManager(),
-                "Leave Approval Required",
-                employee.getFullName() + " has requested leave for " + dateRange + 
-                ". Please review and approve or reject this request.",
-                NotificationType.LEAVE_REQUEST,
-                "/dashboard/pending-approvals",
-                "Review Request"
-            );
+    // Load leave applications found by the overlap index, newest first
+    private List<LeaveApplication> findByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
         }
-        
-        // Second level approval - Department Head (if different from manager)
-        if (employee.getDepartment() != null && employee.getDepartment().getManager() != null &&
-                (employee.getManager() == null || !employee.getManager().getId().equals(employee.getDepartment().getManager().getId()))) {
-            
-            LeaveApproval deptHeadApproval = LeaveApproval.builder()
-                    .leaveApplication(leaveApplication)
-                    .approver(employee.getDepartment().getManager())
-                    .status(employee.getManager() == null ? ApprovalStatus.PENDING : ApprovalStatus.SKIPPED)
-                    .approvalLevel(2)
-                    .notificationSent(false)
-                    .build();
-            leaveApprovalRepository.save(deptHeadApproval);
-            
-            // Only send notification if this is the first approver (no manager)
-            if (employee.getManager() == null) {
-                notificationService.createNotification(
-                    employee.getDepartment().getManager(),
-                    "Leave Approval Required",
-                    employee.getFullName() + " has requested leave for " + dateRange + 
-                    ". Please review and approve or reject this request.",
-                    NotificationType.LEAVE_REQUEST,
-                    "/dashboard/pending-approvals",
-                    "Review Request"
-                );
-            }
-        }
-        
-        // Find HR approver (first HR role user)
-        userRepository.findAllActiveUsers().stream()
-                .filter(user -> user.getRoles().stream()
-                        .anyMatch(role -> role.getName().toString().equals("ROLE_HR")))
-                .findFirst()
-                .ifPresent(hrUser -> {
-                    LeaveApproval hrApproval = LeaveApproval.builder()
-                            .leaveApplication(leaveApplication)
-                            .approver(hrUser)
-                            .status(ApprovalStatus.SKIPPED)
-                            .approvalLevel(3)
-                            .notificationSent(false)
-                            .build();
-                    leaveApprovalRepository.save(hrApproval);
-                });
+        return leaveApplicationRepository.findByIdInOrderByCreatedAtDescIdDesc(ids);
     }
     
     // Helper method to format date ranges consistently
@@ -1,22 +1,34 @@
 package com.ist.lms.service.impl;
 
 import com.ist.lms.exception.ResourceNotFoundException;
+import com.ist.lms.model.AccrualRun;
 import com.ist.lms.model.LeaveBalance;
-import com.ist.lms.model.LeaveBalanceAdjustment;
 import com.ist.lms.model.User;
 import com.ist.lms.model.enums.AdjustmentType;
 import com.ist.lms.model.enums.NotificationType;
-import com.ist.lms.repository.LeaveBalanceAdjustmentRepository;
+import com.ist.lms.payload.response.CacheStatsResponse;
+import com.ist.lms.repository.AccrualRunRepository;
 import com.ist.lms.repository.LeaveBalanceRepository;
-import com.ist.lms.repository.LeaveTypeRepository;
 import com.ist.lms.repository.UserRepository;
+import com.ist.lms.repository.projection.LeaveBalanceAsOfView;
 import com.ist.lms.service.LeaveBalanceService;
 import com.ist.lms.service.NotificationService;
+import com.ist.lms.service.balance.BalanceTotals;
+import com.ist.lms.service.balance.LeaveAccrualEngine;
+import com.ist.lms.service.balance.LeaveBalanceCache;
+import com.ist.lms.service.balance.LeaveBalanceLedger;
+import com.ist.lms.service.balance.LeaveCarryOverEngine;
+import com.ist.lms.service.balance.LeaveExpiryEngine;
+import com.ist.lms.service.balance.OptimisticRetryTemplate;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -24,23 +36,41 @@ import java.util.Optional;
 public class LeaveBalanceServiceImpl implements LeaveBalanceService {
     
     private final LeaveBalanceRepository leaveBalanceRepository;
-    private final LeaveBalanceAdjustmentRepository adjustmentRepository;
     private final UserRepository userRepository;
-    private final LeaveTypeRepository leaveTypeRepository;
     private final NotificationService notificationService;
+    private final LeaveAccrualEngine leaveAccrualEngine;
+    private final AccrualRunRepository accrualRunRepository;
+    private final LeaveCarryOverEngine leaveCarryOverEngine;
+    private final LeaveExpiryEngine leaveExpiryEngine;
+    private final OptimisticRetryTemplate optimisticRetryTemplate;
+    private final LeaveBalanceLedger leaveBalanceLedger;
+    private final LeaveBalanceCache leaveBalanceCache;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
     
     @Autowired
     public LeaveBalanceServiceImpl(
             LeaveBalanceRepository leaveBalanceRepository,
-            LeaveBalanceAdjustmentRepository adjustmentRepository,
             UserRepository userRepository,
-            LeaveTypeRepository leaveTypeRepository,
-            NotificationService notificationService) {
+            NotificationService notificationService,
+            LeaveAccrualEngine leaveAccrualEngine,
+            AccrualRunRepository accrualRunRepository,
+            LeaveCarryOverEngine leaveCarryOverEngine,
+            LeaveExpiryEngine leaveExpiryEngine,
+            OptimisticRetryTemplate optimisticRetryTemplate,
+            LeaveBalanceLedger leaveBalanceLedger,
+            LeaveBalanceCache leaveBalanceCache) {
         this.leaveBalanceRepository = leaveBalanceRepository;
-        this.adjustmentRepository = adjustmentRepository;
         this.userRepository = userRepository;
-        this.leaveTypeRepository = leaveTypeRepository;
         this.notificationService = notificationService;
+        this.leaveAccrualEngine = leaveAccrualEngine;
+        this.accrualRunRepository = accrualRunRepository;
+        this.leaveCarryOverEngine = leaveCarryOverEngine;
+        this.leaveExpiryEngine = leaveExpiryEngine;
+        this.optimisticRetryTemplate = optimisticRetryTemplate;
+        this.leaveBalanceLedger = leaveBalanceLedger;
+        this.leaveBalanceCache = leaveBalanceCache;
     }
     
     @Override
@@ -61,10 +91,11 @@ public class LeaveBalanceServiceImpl implements LeaveBalanceService {
     
     @Override
     public List<LeaveBalance> getLeaveBalancesByUserIdAndYear(Long userId, int year) {
-        return leaveBalanceRepository.findByUserIdAndYear(userId, year)
+        // Read through the cache; every write to a balance evicts its user's year
+        return leaveBalanceCache.get(userId, year, () -> leaveBalanceRepository.findByUserIdAndYear(userId, year)
                 .stream()
                 .sorted((a, b) -> b.getCreatedAt().compareTo(a.getCreatedAt()))
-                .toList();
+                .toList());
     }
     
     @Override
@@ -74,149 +105,136 @@ public class LeaveBalanceServiceImpl implements LeaveBalanceService {
     
     @Override
     public Optional<LeaveBalance> getLeaveBalanceByUserAndType(Long userId, Long leaveTypeId, int year) {
-        return leaveBalanceRepository.findUserLeaveBalance(userId, leaveTypeId, year);
+        return getLeaveBalancesByUserIdAndYear(userId, year).stream()
+                .filter(balance -> balance.getLeaveType().getId().equals(leaveTypeId))
+                .findFirst();
     }
     
     @Override
-    @Transactional
-    public LeaveBalance createLeaveBalance(LeaveBalance leaveBalance) {
-        return leaveBalanceRepository.save(leaveBalance);
+    public CacheStatsResponse getBalanceCacheStats() {
+        return leaveBalanceCache.stats();
     }
     
     @Override
-    @Transactional
-    public LeaveBalance updateLeaveBalance(LeaveBalance leaveBalance) {
-        return leaveBalanceRepository.save(leaveBalance);
+    public BalanceTotals getLeaveBalanceTotalsAsOf(Long leaveBalanceId, LocalDateTime asOf) {
+        if (!leaveBalanceRepository.existsById(leaveBalanceId)) {
+            throw new ResourceNotFoundException("Leave Balance not found with id: " + leaveBalanceId);
+        }
+        return leaveBalanceLedger.totalsAsOf(leaveBalanceId, asOf);
     }
     
     @Override
-    @Transactional
-    public void deleteLeaveBalance(Long id) {
-        leaveBalanceRepository.deleteById(id);
+    public List<LeaveBalanceAsOfView> getLeaveBalancesAsOf(Long userId, LocalDate date) {
+        // Everything recorded during the day counts, so fold up to the start of the next one
+        return leaveBalanceRepository.findUserBalancesBefore(userId, date.plusDays(1).atStartOfDay());
     }
     
     @Override
     @Transactional
-    public void accrueLeaveBalances(int month, int year) {
-        // Get all active users
-        List<User> activeUsers = userRepository.findAllActiveUsers();
-        
-        // For each user, accrue 1.66 days for annual leave
-        LocalDate now = LocalDate.now();
+    public LeaveBalance createLeaveBalance(LeaveBalance leaveBalance) {
+        LeaveBalance savedBalance = leaveBalanceRepository.save(leaveBalance);
+        leaveBalanceCache.evict(savedBalance.getUser().getId(), savedBalance.getYear());
         
-        activeUsers.forEach(user -> {
-            // Find annual leave type
-            leaveTypeRepository.findByName("Annual Leave").ifPresent(leaveType -> {
-                // Get or create leave balance
-                LeaveBalance leaveBalance = leaveBalanceRepository
-                        .findUserLeaveBalance(user.getId(), leaveType.getId(), year)
-                        .orElseGet(() -> {
-                            LeaveBalance newBalance = LeaveBalance.builder()
-                                    .user(user)
-                                    .leaveType(leaveType)
-                                    .year(year)
-                                    .totalDays(0)
-                                    .usedDays(0)
-                                    .carriedOverDays(0)
-                                    .expiryDate(LocalDate.of(year + 1, 3, 31)) // Expires March 31 next year
-                                    .build();
-                            return leaveBalanceRepository.save(newBalance);
-                        });
-                
-                // Add 1.66 days
-                double accrualAmount = 1.66;
-                leaveBalance.setTotalDays(leaveBalance.getTotalDays() + accrualAmount);
-                LeaveBalance updatedBalance = leaveBalanceRepository.save(leaveBalance);
-                
-                // Record adjustment
-                LeaveBalanceAdjustment adjustment = LeaveBalanceAdjustment.builder()
-                        .leaveBalance(updatedBalance)
-                        .adjustedBy(user) // System accrual
-                        .adjustmentValue(accrualAmount)
-                        .reason("Monthly accrual for " + month + "/" + year)
-                        .type(AdjustmentType.ACCRUAL)
-                        .build();
-                
-                adjustmentRepository.save(adjustment);
-                
-                // Send notification
-                notificationService.createNotification(
-                    user,
-                    "Leave Balance Updated",
-                    "Your " + leaveType.getName() + " balance has been increased by " + accrualAmount + 
-                    " days as part of the monthly accrual for " + month + "/" + year + ". Your new balance is " + 
-                    updatedBalance.getRemainingDays() + " days.",
-                    NotificationType.BALANCE_UPDATE,
-                    "/dashboard/leave-balances",
-                    "View Leave Balances"
-                );
-            });
-        });
+        // Open the ledger with the days the balance starts with
+        if (savedBalance.getTotalDays() != 0 || savedBalance.getUsedDays() != 0) {
+            leaveBalanceLedger.append(savedBalance, savedBalance.getUser(),
+                    savedBalance.getRemainingDays(), AdjustmentType.OPENING_BALANCE, "Opening balance",
+                    savedBalance.getTotalDays(), savedBalance.getUsedDays());
+        }
+        return savedBalance;
     }
     
     @Override
-    @Transactional
-    public void carryOverBalances(int fromYear, int toYear, double maxDays) {
-        // Get all balances from the previous year
-        List<LeaveBalance> previousYearBalances = leaveBalanceRepository.findAll().stream()
-                .filter(balance -> balance.getYear() == fromYear)
-                .filter(balance -> balance.getRemainingDays() > 0)
-                .toList();
-        
-        for (LeaveBalance previousBalance : previousYearBalances) {
-            double remainingDays = previousBalance.getRemainingDays();
-            double daysToCarryOver = Math.min(remainingDays, maxDays);
+    public LeaveBalance updateLeaveBalance(LeaveBalance leaveBalance) {
+        // Apply the edit to a fresh copy on every attempt, so a concurrent accrual or approval
+        // makes this update retry instead of being overwritten by a stale write
+        return optimisticRetryTemplate.execute(() -> {
+            LeaveBalance current = leaveBalanceRepository.findById(leaveBalance.getId())
+                    .orElseThrow(() -> new ResourceNotFoundException("Leave Balance not found with id: " + leaveBalance.getId()));
             
-            if (daysToCarryOver <= 0) {
-                continue;
+            // An edit made against an older version would overwrite changes its author never saw
+            if (leaveBalance.getVersion() != null && !leaveBalance.getVersion().equals(current.getVersion())) {
+                throw new ConcurrencyFailureException("Leave Balance " + current.getId() + 
+                        " has changed since version " + leaveBalance.getVersion());
             }
             
-            // Get or create next year's balance
-            LeaveBalance nextYearBalance = leaveBalanceRepository
-                    .findUserLeaveBalance(
-                            previousBalance.getUser().getId(),
-                            previousBalance.getLeaveType().getId(),
-                            toYear)
-                    .orElseGet(() -> {
-                        LeaveBalance newBalance = LeaveBalance.builder()
-                                .user(previousBalance.getUser())
-                                .leaveType(previousBalance.getLeaveType())
-                                .year(toYear)
-                                .totalDays(0)
-                                .usedDays(0)
-                                .carriedOverDays(0)
-                                .expiryDate(LocalDate.of(toYear + 1, 3, 31)) // Expires March 31 next year
-                                .build();
-                        return leaveBalanceRepository.save(newBalance);
-                    });
-            
-            // Add carried over days
-            nextYearBalance.setCarriedOverDays(daysToCarryOver);
-            nextYearBalance.setTotalDays(nextYearBalance.getTotalDays() + daysToCarryOver);
-            LeaveBalance updatedBalance = leaveBalanceRepository.save(nextYearBalance);
+            if (leaveBalance.getUser() != null) {
+                current.setUser(leaveBalance.getUser());
+            }
+            if (leaveBalance.getLeaveType() != null) {
+                current.setLeaveType(leaveBalance.getLeaveType());
+            }
+            leaveBalanceCache.evict(current.getUser().getId(), current.getYear());
+            double totalDelta = leaveBalance.getTotalDays() - current.getTotalDays();
+            double usedDelta = leaveBalance.getUsedDays() - current.getUsedDays();
             
-            // Record adjustment
-            LeaveBalanceAdjustment adjustment = LeaveBalanceAdjustment.builder()
-                    .leaveBalance(updatedBalance)
-                    .adjustedBy(previousBalance.getUser()) // System carry-over
-                    .adjustmentValue(daysToCarryOver)
-                    .reason("Carried over from " + fromYear)
-                    .type(AdjustmentType.CARRIED_OVER)
-                    .build();
+            current.setYear(leaveBalance.getYear());
+            current.setTotalDays(leaveBalance.getTotalDays());
+            current.setUsedDays(leaveBalance.getUsedDays());
+            current.setCarriedOverDays(leaveBalance.getCarriedOverDays());
+            current.setExpiryDate(leaveBalance.getExpiryDate());
             
-            adjustmentRepository.save(adjustment);
+            LeaveBalance savedBalance = leaveBalanceRepository.saveAndFlush(current);
+            leaveBalanceCache.evict(savedBalance.getUser().getId(), savedBalance.getYear());
             
-            // Send notification
-            notificationService.createNotification(
-                previousBalance.getUser(),
-                "Leave Balance Carried Over",
-                daysToCarryOver + " days of " + previousBalance.getLeaveType().getName() + 
-                " have been carried over from " + fromYear + " to " + toYear + ".",
-                NotificationType.BALANCE_UPDATE,
-                "/dashboard/leave-balances",
-                "View Leave Balances"
-            );
+            // Days edited in place are recorded as a correction, so the ledger still folds to the balance
+            if (totalDelta != 0 || usedDelta != 0) {
+                leaveBalanceLedger.append(savedBalance, savedBalance.getUser(), totalDelta - usedDelta,
+                        AdjustmentType.CORRECTION, "Balance corrected", totalDelta, usedDelta);
+            }
+            return savedBalance;
+        });
+    }
+    
+    @Override
+    @Transactional
+    public void deleteLeaveBalance(Long id) {
+        leaveBalanceRepository.findById(id).ifPresent(leaveBalance -> {
+            leaveBalanceRepository.delete(leaveBalance);
+            leaveBalanceCache.evict(leaveBalance.getUser().getId(), leaveBalance.getYear());
+        });
+    }
+    
+    @Override
+    public AccrualRun accrueLeaveBalances(int month, int year, boolean resume) {
+        // Set-based and committed per chunk of users, so no transaction spans the whole run
+        return leaveAccrualEngine.accrue(month, year, resume);
+    }
+    
+    @Override
+    public List<AccrualRun> getAccrualRuns(int year) {
+        return accrualRunRepository.findByYearOrderByMonthDescIdDesc(year);
+    }
+    
+    @Override
+    public void carryOverBalances(int fromYear, int toYear, double maxDays) {
+        // Streams only the source year and writes per partition on a bounded worker pool
+        leaveCarryOverEngine.carryOver(fromYear, toYear, maxDays);
+    }
+    
+    @Override
+    @Transactional
+    public void reserveDays(Long userId, Long leaveTypeId, int year, double days) {
+        if (days <= 0) {
+            return;
+        }
+        
+        // Checked and held in one statement, so two requests can never be promised the same days
+        if (leaveBalanceRepository.reserveDays(userId, leaveTypeId, year, days) == 0) {
+            throw new IllegalArgumentException("Insufficient leave balance for " + days + " days in " + year);
         }
+        leaveBalanceCache.evict(userId, year);
+    }
+    
+    @Override
+    @Transactional
+    public void releaseReservedDays(Long userId, Long leaveTypeId, int year, double days) {
+        if (days <= 0) {
+            return;
+        }
+        
+        leaveBalanceRepository.releaseReservedDays(userId, leaveTypeId, year, days);
+        leaveBalanceCache.evict(userId, year);
     }
     
     @Override
@@ -229,29 +247,29 @@ public class LeaveBalanceServiceImpl implements LeaveBalanceService {
         User adjustedBy = userRepository.findById(adjustedById)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + adjustedById));
         
-        // Update balance
+        // Work out the entry's effect on the balance
+        double totalDelta = 0;
+        double usedDelta = 0;
         if (type == AdjustmentType.MANUAL_ADDITION || type == AdjustmentType.ACCRUAL || 
             type == AdjustmentType.LEAVE_CANCELLED || type == AdjustmentType.CARRIED_OVER) {
-            leaveBalance.setTotalDays(leaveBalance.getTotalDays() + amount);
+            totalDelta = amount;
         } else if (type == AdjustmentType.MANUAL_DEDUCTION || type == AdjustmentType.LEAVE_TAKEN) {
-            leaveBalance.setUsedDays(leaveBalance.getUsedDays() + amount);
+            usedDelta = amount;
         } else if (type == AdjustmentType.EXPIRED) {
-            double remainingDays = leaveBalance.getTotalDays() - leaveBalance.getUsedDays();
-            leaveBalance.setTotalDays(leaveBalance.getTotalDays() - Math.min(remainingDays, amount));
+            // Only what is left and not held by pending applications can expire, so read it under the row lock
+            leaveBalanceRepository.lockByIds(List.of(leaveBalanceId));
+            entityManager.refresh(leaveBalance);
+            totalDelta = -Math.max(0, Math.min(leaveBalance.getAvailableDays(), amount));
         }
         
-        LeaveBalance updatedBalance = leaveBalanceRepository.save(leaveBalance);
-        
-        // Record adjustment
-        LeaveBalanceAdjustment adjustment = LeaveBalanceAdjustment.builder()
-                .leaveBalance(updatedBalance)
-                .adjustedBy(adjustedBy)
-                .adjustmentValue(amount)
-                .reason(reason)
-                .type(type)
-                .build();
+        // Apply it as an atomic delta, so concurrent adjustments of the same balance all apply,
+        // and pick up the values and version the update produced
+        leaveBalanceRepository.applyDelta(leaveBalanceId, totalDelta, usedDelta);
+        entityManager.refresh(leaveBalance);
+        leaveBalanceCache.evict(leaveBalance.getUser().getId(), leaveBalance.getYear());
         
-        adjustmentRepository.save(adjustment);
+        // Record it in the ledger
+        leaveBalanceLedger.append(leaveBalance, adjustedBy, amount, type, reason, totalDelta, usedDelta);
         
         // Don't send notification for leave application-related adjustments (those are handled in LeaveApplicationService)
         if (type != AdjustmentType.LEAVE_TAKEN && type != AdjustmentType.LEAVE_CANCELLED) {
@@ -262,26 +280,26 @@ public class LeaveBalanceServiceImpl implements LeaveBalanceService {
                 title = "Leave Balance Increased";
                 message = "Your " + leaveBalance.getLeaveType().getName() + " balance has been increased by " + 
                           amount + " days. Reason: " + reason + ". Your new balance is " + 
-                          updatedBalance.getRemainingDays() + " days.";
+                          leaveBalance.getRemainingDays() + " days.";
             } else if (type == AdjustmentType.MANUAL_DEDUCTION) {
                 title = "Leave Balance Decreased";
                 message = "Your " + leaveBalance.getLeaveType().getName() + " balance has been decreased by " + 
                           amount + " days. Reason: " + reason + ". Your new balance is " + 
-                          updatedBalance.getRemainingDays() + " days.";
+                          leaveBalance.getRemainingDays() + " days.";
             } else if (type == AdjustmentType.EXPIRED) {
                 title = "Leave Balance Expired";
                 message = amount + " days of your " + leaveBalance.getLeaveType().getName() + 
                          " balance have expired. Your new balance is " + 
-                         updatedBalance.getRemainingDays() + " days.";
+                         leaveBalance.getRemainingDays() + " days.";
             } else {
                 title = "Leave Balance Updated";
                 message = "Your " + leaveBalance.getLeaveType().getName() + " balance has been updated. Reason: " + 
-                          reason + ". Your new balance is " + updatedBalance.getRemainingDays() + " days.";
+                          reason + ". Your new balance is " + leaveBalance.getRemainingDays() + " days.";
             }
             
             // Send notification to the user
             notificationService.createNotification(
-                updatedBalance.getUser(),
+                leaveBalance.getUser(),
                 title,
                 message,
                 NotificationType.BALANCE_UPDATE,
@@ -290,30 +308,12 @@ public class LeaveBalanceServiceImpl implements LeaveBalanceService {
             );
         }
         
-        return updatedBalance;
+        return leaveBalance;
     }
     
     @Override
-    @Transactional
     public void expireBalances() {
-        LocalDate today = LocalDate.now();
-        List<LeaveBalance> expiredBalances = leaveBalanceRepository.findAllExpiredBalances(today);
-        
-        for (LeaveBalance balance : expiredBalances) {
-            double remainingDays = balance.getRemainingDays();
-            
-            if (remainingDays > 0) {
-                // Record the expiry
-                adjustBalance(
-                        balance.getId(),
-                        remainingDays,
-                        AdjustmentType.EXPIRED,
-                        "Balance expired on " + today,
-                        balance.getUser().getId() // Use the user's ID as the adjuster (system)
-                );
-                
-                // Notification will be sent within the adjustBalance method
-            }
-        }
+        // Streamed and expired in batches, one UPDATE and one commit per batch
+        leaveExpiryEngine.expire(LocalDate.now());
     }
 } 
\ No newline at end of file
@@ -0,0 +1,213 @@
+package com.ist.lms.service.impl;
+
+import com.ist.lms.model.LeaveApplication;
+import com.ist.lms.model.UserChangeListener;
+import com.ist.lms.model.enums.LeaveStatus;
+import com.ist.lms.repository.LeaveApplicationRepository;
+import com.ist.lms.repository.projection.LeaveIntervalView;
+import com.ist.lms.service.LeaveOverlapService;
+import com.ist.lms.util.IntervalTree;
+import com.ist.lms.util.TransactionCallbacks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Overlap detection over approved leaves, backed by in-memory interval trees:
+ * one across all leaves, one per applicant and one per department. The index is
+ * loaded with a single query, then kept current by applying each committed
+ * status change, so conflict checks and calendar range queries never touch the
+ * database. Since leaves are indexed under the applicant's department, the whole
+ * index is reloaded when a user is written.
+ */
+@Service
+public class LeaveOverlapServiceImpl implements LeaveOverlapService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LeaveOverlapServiceImpl.class);
+
+    private final LeaveApplicationRepository leaveApplicationRepository;
+
+    // Writers hold the write lock while loading, so a change committed during a
+    // reload is applied after it rather than lost
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private OverlapIndex index;
+
+    @Autowired
+    public LeaveOverlapServiceImpl(LeaveApplicationRepository leaveApplicationRepository) {
+        this.leaveApplicationRepository = leaveApplicationRepository;
+    }
+
+    @Override
+    public boolean hasApprovedOverlap(Long userId, LocalDate startDate, LocalDate endDate) {
+        return read(current -> {
+            IntervalTree<Long> tree = current.byUser.get(userId);
+            return tree != null && tree.overlaps(startDate.toEpochDay(), endDate.toEpochDay());
+        });
+    }
+
+    @Override
+    public List<Long> findOverlappingLeaveIds(Long userId, LocalDate startDate, LocalDate endDate) {
+        return read(current -> find(current.byUser.get(userId), startDate, endDate));
+    }
+
+    @Override
+    public List<Long> findLeaveIdsInRange(LocalDate startDate, LocalDate endDate) {
+        return read(current -> find(current.all, startDate, endDate));
+    }
+
+    @Override
+    public List<Long> findDepartmentLeaveIdsInRange(Long departmentId, LocalDate startDate, LocalDate endDate) {
+        return read(current -> find(current.byDepartment.get(departmentId), startDate, endDate));
+    }
+
+    @Override
+    public void leaveChanged(LeaveApplication leaveApplication) {
+        Long id = leaveApplication.getId();
+        if (id == null) {
+            return;
+        }
+
+        // Capture the values now; the entity may change again before commit
+        Interval interval = null;
+        if (leaveApplication.getStatus() == LeaveStatus.APPROVED) {
+            Long departmentId = leaveApplication.getUser().getDepartment() != null
+                    ? leaveApplication.getUser().getDepartment().getId()
+                    : null;
+            interval = new Interval(id, leaveApplication.getUser().getId(), departmentId,
+                    leaveApplication.getStartDate().toEpochDay(), leaveApplication.getEndDate().toEpochDay());
+        }
+
+        Interval approved = interval;
+        TransactionCallbacks.afterCommit(() -> apply(id, approved));
+    }
+
+    @Override
+    public void leaveRemoved(Long leaveApplicationId) {
+        TransactionCallbacks.afterCommit(() -> apply(leaveApplicationId, null));
+    }
+
+    @Override
+    public void invalidate() {
+        logger.debug("Invalidating leave overlap index");
+        lock.writeLock().lock();
+        try {
+            index = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private <T> T read(Function<OverlapIndex, T> query) {
+        long generation = UserChangeListener.currentGeneration();
+
+        lock.readLock().lock();
+        try {
+            OverlapIndex current = index;
+            if (current != null && current.generation == generation) {
+                return query.apply(current);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        lock.writeLock().lock();
+        try {
+            // Another thread may have reloaded while we waited for the lock
+            if (index == null || index.generation != generation) {
+                index = load(generation);
+            }
+            return query.apply(index);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private OverlapIndex load(long generation) {
+        OverlapIndex loaded = new OverlapIndex(generation);
+        for (LeaveIntervalView view : leaveApplicationRepository.findApprovedIntervals()) {
+            loaded.add(new Interval(view.getId(), view.getUserId(), view.getDepartmentId(),
+                    view.getStartDate().toEpochDay(), view.getEndDate().toEpochDay()));
+        }
+
+        logger.debug("Leave overlap index loaded (generation {}, {} approved leaves)",
+                generation, loaded.intervals.size());
+        return loaded;
+    }
+
+    private void apply(Long id, Interval approved) {
+        lock.writeLock().lock();
+        try {
+            // Nothing to maintain until the index is first loaded
+            if (index == null) {
+                return;
+            }
+            index.remove(id);
+            if (approved != null) {
+                index.add(approved);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static List<Long> find(IntervalTree<Long> tree, LocalDate startDate, LocalDate endDate) {
+        if (tree == null) {
+            return List.of();
+        }
+        return tree.findOverlapping(startDate.toEpochDay(), endDate.toEpochDay());
+    }
+
+    private record Interval(Long id, Long userId, Long departmentId, long start, long end) {
+    }
+
+    private static final class OverlapIndex {
+        private final long generation;
+        private final Map<Long, Interval> intervals = new HashMap<>();
+        private final IntervalTree<Long> all = new IntervalTree<>();
+        private final Map<Long, IntervalTree<Long>> byUser = new HashMap<>();
+        private final Map<Long, IntervalTree<Long>> byDepartment = new HashMap<>();
+
+        private OverlapIndex(long generation) {
+            this.generation = generation;
+        }
+
+        private void add(Interval interval) {
+            intervals.put(interval.id(), interval);
+            all.put(interval.id(), interval.start(), interval.end(), interval.id());
+            byUser.computeIfAbsent(interval.userId(), key -> new IntervalTree<>())
+                    .put(interval.id(), interval.start(), interval.end(), interval.id());
+            if (interval.departmentId() != null) {
+                byDepartment.computeIfAbsent(interval.departmentId(), key -> new IntervalTree<>())
+                        .put(interval.id(), interval.start(), interval.end(), interval.id());
+            }
+        }
+
+        private void remove(Long id) {
+            Interval interval = intervals.remove(id);
+            if (interval == null) {
+                return;
+            }
+            all.remove(id);
+            removeFrom(byUser, interval.userId(), id);
+            if (interval.departmentId() != null) {
+                removeFrom(byDepartment, interval.departmentId(), id);
+            }
+        }
+
+        private static void removeFrom(Map<Long, IntervalTree<Long>> trees, Long key, Long id) {
+            IntervalTree<Long> tree = trees.get(key);
+            if (tree != null && tree.remove(id) && tree.isEmpty()) {
+                trees.remove(key);
+            }
+        }
+    }
+}
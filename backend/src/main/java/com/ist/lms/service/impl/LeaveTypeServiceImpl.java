@@ -3,6 +3,7 @@ package com.ist.lms.service.impl;
 import com.ist.lms.exception.ResourceNotFoundException;
 import com.ist.lms.model.LeaveType;
 import com.ist.lms.repository.LeaveTypeRepository;
+import com.ist.lms.service.ApprovalRoutingService;
 import com.ist.lms.service.LeaveTypeService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -15,10 +16,12 @@ import java.util.Optional;
 public class LeaveTypeServiceImpl implements LeaveTypeService {
     
     private final LeaveTypeRepository leaveTypeRepository;
+    private final ApprovalRoutingService approvalRoutingService;
     
     @Autowired
-    public LeaveTypeServiceImpl(LeaveTypeRepository leaveTypeRepository) {
+    public LeaveTypeServiceImpl(LeaveTypeRepository leaveTypeRepository, ApprovalRoutingService approvalRoutingService) {
         this.leaveTypeRepository = leaveTypeRepository;
+        this.approvalRoutingService = approvalRoutingService;
     }
     
     @Override
@@ -56,13 +59,17 @@ public class LeaveTypeServiceImpl implements LeaveTypeService {
     @Override
     @Transactional
     public LeaveType updateLeaveType(LeaveType leaveType) {
-        return leaveTypeRepository.save(leaveType);
+        LeaveType savedLeaveType = leaveTypeRepository.save(leaveType);
+        // Route plans are compiled per leave type
+        approvalRoutingService.invalidate();
+        return savedLeaveType;
     }
     
     @Override
     @Transactional
     public void deleteLeaveType(Long id) {
         leaveTypeRepository.deleteById(id);
+        approvalRoutingService.invalidate();
     }
     
     @Override
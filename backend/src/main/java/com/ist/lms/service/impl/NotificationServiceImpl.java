@@ -1,19 +1,36 @@
 package com.ist.lms.service.impl;
 
 import com.ist.lms.model.Notification;
+import com.ist.lms.model.NotificationOutboxEntry;
 import com.ist.lms.model.User;
 import com.ist.lms.model.enums.NotificationType;
+import com.ist.lms.payload.response.CursorPage;
+import com.ist.lms.repository.NotificationOutboxRepository;
 import com.ist.lms.repository.NotificationRepository;
 import com.ist.lms.repository.UserRepository;
+import com.ist.lms.repository.projection.NotificationSummary;
 import com.ist.lms.security.SecurityService;
 import com.ist.lms.service.NotificationService;
+import com.ist.lms.service.notification.NotificationHub;
+import com.ist.lms.service.notification.NotificationOutboxDispatcher;
+import com.ist.lms.service.notification.NotificationTemplate;
+import com.ist.lms.service.notification.NotificationTemplateStore;
+import com.ist.lms.service.notification.UnreadNotificationCounter;
+import com.ist.lms.util.KeysetCursor;
+import com.ist.lms.util.TransactionCallbacks;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -21,36 +38,93 @@ public class NotificationServiceImpl implements NotificationService {
 
     private static final Logger logger = LoggerFactory.getLogger(NotificationServiceImpl.class);
     
+    private static final int MAX_PAGE_SIZE = 100;
+    
+    // Recipients per insert; each is a bind parameter, and Postgres allows 32767 per statement
+    public static final int BULK_CHUNK_SIZE = 5000;
+    
     private final NotificationRepository notificationRepository;
+    private final NotificationOutboxRepository notificationOutboxRepository;
     private final UserRepository userRepository;
     private final SecurityService securityService;
+    private final NotificationHub notificationHub;
+    private final NotificationOutboxDispatcher notificationOutboxDispatcher;
+    private final UnreadNotificationCounter unreadNotificationCounter;
+    private final NotificationTemplateStore notificationTemplateStore;
     
     @Autowired
     public NotificationServiceImpl(
             NotificationRepository notificationRepository,
+            NotificationOutboxRepository notificationOutboxRepository,
             UserRepository userRepository,
-            SecurityService securityService) {
+            SecurityService securityService,
+            NotificationHub notificationHub,
+            NotificationOutboxDispatcher notificationOutboxDispatcher,
+            UnreadNotificationCounter unreadNotificationCounter,
+            NotificationTemplateStore notificationTemplateStore) {
         this.notificationRepository = notificationRepository;
+        this.notificationOutboxRepository = notificationOutboxRepository;
         this.userRepository = userRepository;
         this.securityService = securityService;
+        this.notificationHub = notificationHub;
+        this.notificationOutboxDispatcher = notificationOutboxDispatcher;
+        this.unreadNotificationCounter = unreadNotificationCounter;
+        this.notificationTemplateStore = notificationTemplateStore;
     }
     
     @Override
     @Transactional
-    public Notification createNotification(User user, String title, String message, NotificationType type,
-                                         String actionUrl, String actionText) {
-        logger.debug("Creating notification for user {}: {}", user.getId(), title);
+    public void createNotification(User user, String title, String message, NotificationType type,
+                                   String actionUrl, String actionText) {
+        logger.debug("Queueing notification for user {}: {}", user.getId(), title);
         
-        Notification notification = Notification.builder()
+        notificationOutboxRepository.save(NotificationOutboxEntry.builder()
                 .user(user)
+                .type(type)
                 .title(title)
                 .message(message)
-                .read(false)
                 .actionUrl(actionUrl)
                 .actionText(actionText)
-                .build();
+                .build());
+        
+        // Deliver as soon as the entry is visible to the dispatcher
+        TransactionCallbacks.afterCommit(notificationOutboxDispatcher::wakeUp);
+    }
+    
+    @Override
+    @Transactional
+    public int createNotifications(Collection<Long> userIds, NotificationTemplate template, Map<String, ?> parameters) {
+        String values = notificationTemplateStore.parameters(template, parameters);
+        Long templateId = notificationTemplateStore.idOf(template);
+        List<Long> recipients = new ArrayList<>(new LinkedHashSet<>(userIds));
+        
+        int queued = 0;
+        for (int from = 0; from < recipients.size(); from += BULK_CHUNK_SIZE) {
+            queued += notificationOutboxRepository.insertTemplated(
+                    recipients.subList(from, Math.min(from + BULK_CHUNK_SIZE, recipients.size())),
+                    templateId, values);
+        }
+        logger.debug("Queued notification '{}' for {} users", template.title(), queued);
         
-        return notificationRepository.save(notification);
+        if (queued > 0) {
+            TransactionCallbacks.afterCommit(notificationOutboxDispatcher::wakeUp);
+        }
+        return queued;
+    }
+    
+    @Override
+    @Transactional
+    public int broadcastNotification(NotificationTemplate template, Map<String, ?> parameters) {
+        String values = notificationTemplateStore.parameters(template, parameters);
+        
+        int queued = notificationOutboxRepository.insertTemplatedForActiveUsers(
+                notificationTemplateStore.idOf(template), values);
+        logger.info("Broadcast notification '{}' to {} users", template.title(), queued);
+        
+        if (queued > 0) {
+            TransactionCallbacks.afterCommit(notificationOutboxDispatcher::wakeUp);
+        }
+        return queued;
     }
     
     @Override
@@ -59,6 +133,26 @@ public class NotificationServiceImpl implements NotificationService {
         return notificationRepository.findByUser_IdOrderByCreatedAtDesc(userId);
     }
     
+    @Override
+    public CursorPage<NotificationSummary> getNotificationsPage(Long userId, boolean unreadOnly, String cursor, int size) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        // Fetch one extra row to know whether another page exists
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+        
+        List<NotificationSummary> rows = unreadOnly
+                ? notificationRepository.findUnreadPageByUserIdAfter(userId, after.getCreatedAt(), after.getId(), limit)
+                : notificationRepository.findPageByUserIdAfter(userId, after.getCreatedAt(), after.getId(), limit);
+        
+        if (rows.size() <= pageSize) {
+            return new CursorPage<>(rows, null);
+        }
+        
+        List<NotificationSummary> items = rows.subList(0, pageSize);
+        NotificationSummary last = items.get(pageSize - 1);
+        return new CursorPage<>(items, new KeysetCursor(last.getCreatedAt(), last.getId()).encode());
+    }
+    
     @Override
     public List<Notification> getUnreadNotifications(Long userId) {
         logger.debug("Getting unread notifications for user {}", userId);
@@ -67,8 +161,14 @@ public class NotificationServiceImpl implements NotificationService {
     
     @Override
     public long countUnreadNotifications(Long userId) {
-        logger.debug("Counting unread notifications for user {}", userId);
-        return notificationRepository.countByUser_IdAndReadFalse(userId);
+        return unreadNotificationCounter.get(userId);
+    }
+    
+    @Override
+    public SseEmitter openStream(Long userId) {
+        logger.debug("Opening notification stream for user {}", userId);
+        
+        return notificationHub.subscribe(userId, countUnreadNotifications(userId));
     }
     
     @Override
@@ -86,7 +186,9 @@ public class NotificationServiceImpl implements NotificationService {
                 return false;
             }
             
-            notificationRepository.markAsRead(notificationId);
+            if (notificationRepository.markAsRead(notificationId) > 0) {
+                unreadCountChanged(userId, -1);
+            }
             return true;
         }
         
@@ -103,7 +205,10 @@ public class NotificationServiceImpl implements NotificationService {
             return false;
         }
         
-        notificationRepository.markAllAsRead(userId);
+        int marked = notificationRepository.markAllAsRead(userId);
+        if (marked > 0) {
+            unreadCountChanged(userId, -marked);
+        }
         return true;
     }
     
@@ -123,9 +228,22 @@ public class NotificationServiceImpl implements NotificationService {
             }
             
             notificationRepository.deleteById(notificationId);
+            if (!notification.get().isRead()) {
+                unreadCountChanged(userId, -1);
+            }
             return true;
         }
         
         return false;
     }
+    
+    // Move the cached count once the change commits and keep the user's open tabs in step
+    private void unreadCountChanged(Long userId, long delta) {
+        unreadNotificationCounter.change(userId, delta);
+        TransactionCallbacks.afterCommit(() -> {
+            if (notificationHub.hasSubscribers(userId)) {
+                notificationHub.publishUnreadCount(userId, unreadNotificationCounter.get(userId));
+            }
+        });
+    }
 } 
\ No newline at end of file
@@ -3,6 +3,7 @@ package com.ist.lms.service.impl;
 import com.ist.lms.exception.ResourceNotFoundException;
 import com.ist.lms.model.Department;
 import com.ist.lms.model.User;
+import com.ist.lms.model.UserChangeListener;
 import com.ist.lms.repository.DepartmentRepository;
 import com.ist.lms.repository.UserRepository;
 import com.ist.lms.service.UserService;
@@ -107,6 +108,8 @@ public class UserServiceImpl implements UserService {
         }
         if (updatedUser.getRoles() != null && !updatedUser.getRoles().isEmpty()) {
             existingUser.setRoles(updatedUser.getRoles());
+            // Role-only changes may not dirty the user row, so refresh role-based caches explicitly
+            UserChangeListener.markChanged();
         }
         if (updatedUser.getEmploymentDate() != null) {
             existingUser.setEmploymentDate(updatedUser.getEmploymentDate());
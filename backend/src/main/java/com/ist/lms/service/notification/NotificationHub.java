@@ -0,0 +1,149 @@
+package com.ist.lms.service.notification;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.ist.lms.repository.projection.NotificationSummary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.function.Supplier;
+
+/**
+ * In-process fan-out of notification events to the server-sent event streams
+ * users have open, one per browser tab. Events are pushed from memory, so an
+ * open stream costs no database queries while nothing happens; a heartbeat
+ * comment keeps idle connections alive and finds the ones that went away.
+ *
+ * Streams live on this instance only, which is why the backend runs as a single
+ * instance (see app.notification-stream in application.yml).
+ */
+@Component
+public class NotificationHub {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationHub.class);
+
+    public static final String NOTIFICATION_EVENT = "notification";
+    public static final String UNREAD_COUNT_EVENT = "unread-count";
+
+    private final Map<Long, Set<SseEmitter>> emittersByUser = new ConcurrentHashMap<>();
+
+    // Event data has to stay on one line, whatever the API's indentation setting
+    private final ObjectWriter eventWriter;
+
+    // Clients reconnect when a stream times out
+    @Value("${app.notification-stream.timeout-millis:1800000}")
+    private long timeoutMillis;
+
+    @Autowired
+    public NotificationHub(ObjectMapper objectMapper) {
+        this.eventWriter = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+    }
+
+    /**
+     * Open a stream for a user, starting with their unread count
+     * @param userId the user ID
+     * @param unreadCount the user's unread count
+     * @return the emitter to return from the request
+     */
+    public SseEmitter subscribe(Long userId, long unreadCount) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        emitter.onCompletion(() -> remove(userId, emitter));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> remove(userId, emitter));
+
+        send(userId, emitter, unreadCountEvent(unreadCount));
+        emittersByUser.computeIfAbsent(userId, id -> new CopyOnWriteArraySet<>()).add(emitter);
+
+        logger.debug("Opened notification stream for user {}", userId);
+        return emitter;
+    }
+
+    public boolean hasSubscribers(Long userId) {
+        return emittersByUser.containsKey(userId);
+    }
+
+    /**
+     * Push newly delivered notifications to their recipients' open streams
+     * @param notifications the notifications
+     */
+    public void publish(List<NotificationSummary> notifications) {
+        for (NotificationSummary notification : notifications) {
+            Set<SseEmitter> emitters = emittersByUser.get(notification.getUserId());
+            if (emitters == null) {
+                continue;
+            }
+
+            String data = toJson(notification);
+            emitters.forEach(emitter -> send(notification.getUserId(), emitter, () -> SseEmitter.event()
+                    .id(String.valueOf(notification.getId()))
+                    .name(NOTIFICATION_EVENT)
+                    .data(data)));
+        }
+    }
+
+    /**
+     * Push a user's unread count to their open streams
+     * @param userId the user ID
+     * @param count the unread count
+     */
+    public void publishUnreadCount(Long userId, long count) {
+        Set<SseEmitter> emitters = emittersByUser.get(userId);
+        if (emitters == null) {
+            return;
+        }
+
+        Supplier<SseEmitter.SseEventBuilder> event = unreadCountEvent(count);
+        emitters.forEach(emitter -> send(userId, emitter, event));
+    }
+
+    @Scheduled(fixedDelayString = "${app.notification-stream.heartbeat-millis:25000}")
+    public void heartbeat() {
+        emittersByUser.forEach((userId, emitters) ->
+                emitters.forEach(emitter -> send(userId, emitter, () -> SseEmitter.event().comment("heartbeat"))));
+    }
+
+    // Builders collect their output as they are built, so each emitter gets its own
+    private void send(Long userId, SseEmitter emitter, Supplier<SseEmitter.SseEventBuilder> event) {
+        try {
+            emitter.send(event.get());
+        } catch (IOException | IllegalStateException e) {
+            // The client went away; completing the emitter lets the container release the request
+            logger.debug("Dropping notification stream of user {}: {}", userId, e.getMessage());
+            remove(userId, emitter);
+            emitter.completeWithError(e);
+        }
+    }
+
+    private Supplier<SseEmitter.SseEventBuilder> unreadCountEvent(long count) {
+        String data = toJson(Map.of("count", count));
+        return () -> SseEmitter.event().name(UNREAD_COUNT_EVENT).data(data);
+    }
+
+    private void remove(Long userId, SseEmitter emitter) {
+        emittersByUser.computeIfPresent(userId, (id, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+
+    private String toJson(Object value) {
+        try {
+            return eventWriter.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize notification event", e);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.ist.lms.service.notification;
+
+import com.ist.lms.repository.NotificationOutboxRepository;
+import com.ist.lms.repository.NotificationRepository;
+import com.ist.lms.repository.projection.NotificationSummary;
+import com.ist.lms.repository.projection.OutboxMailView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Drains the notification outbox. Each batch of entries is locked with SKIP LOCKED
+ * and moved into notifications in one transaction, so entries are delivered in-app
+ * exactly once even with several instances dispatching side by side.
+ *
+ * Once that transaction commits the new notifications are counted as unread, pushed
+ * to open streams through the {@link NotificationHub}, and mailed to recipients who have not turned
+ * email off. A failed send is logged and not retried, since resending a batch could
+ * repeat mails the server already accepted.
+ */
+@Component
+public class NotificationOutboxDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationOutboxDispatcher.class);
+
+    private final NotificationOutboxRepository notificationOutboxRepository;
+    private final NotificationRepository notificationRepository;
+    private final NotificationHub notificationHub;
+    private final UnreadNotificationCounter unreadNotificationCounter;
+    private final ObjectProvider<JavaMailSender> mailSender;
+    private final TaskScheduler taskScheduler;
+    private final TransactionTemplate transactionTemplate;
+    private final AtomicBoolean wakeUpQueued = new AtomicBoolean();
+
+    @Value("${app.notification-outbox.batch-size:200}")
+    private int batchSize;
+
+    // Off by default, so environments without a mail server only deliver in-app
+    @Value("${app.notification-outbox.mail-enabled:false}")
+    private boolean mailEnabled;
+
+    @Value("${app.notification-outbox.mail-from:no-reply@ist.com}")
+    private String mailFrom;
+
+    // Action URLs are paths in the frontend
+    @Value("${app.notification-outbox.link-base-url:http://localhost:3000}")
+    private String linkBaseUrl;
+
+    @Autowired
+    public NotificationOutboxDispatcher(
+            NotificationOutboxRepository notificationOutboxRepository,
+            NotificationRepository notificationRepository,
+            NotificationHub notificationHub,
+            UnreadNotificationCounter unreadNotificationCounter,
+            ObjectProvider<JavaMailSender> mailSender,
+            TaskScheduler taskScheduler,
+            PlatformTransactionManager transactionManager) {
+        this.notificationOutboxRepository = notificationOutboxRepository;
+        this.notificationRepository = notificationRepository;
+        this.notificationHub = notificationHub;
+        this.unreadNotificationCounter = unreadNotificationCounter;
+        this.mailSender = mailSender;
+        this.taskScheduler = taskScheduler;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Dispatch now rather than at the next scheduled run, once a transaction that
+     * queued notifications has committed. Wake-ups arriving while one is queued
+     * are folded into it.
+     */
+    public void wakeUp() {
+        if (wakeUpQueued.compareAndSet(false, true)) {
+            taskScheduler.schedule(() -> {
+                wakeUpQueued.set(false);
+                dispatchPending();
+            }, Instant.now());
+        }
+    }
+
+    /**
+     * Deliver everything queued, batch by batch. Runs on one instance take turns,
+     * so streams receive notifications in the order they were queued.
+     * @return number of entries delivered
+     */
+    @Scheduled(fixedDelayString = "${app.notification-outbox.dispatch-delay-millis:1000}")
+    public synchronized int dispatchPending() {
+        int delivered = 0;
+        int batch;
+        do {
+            batch = dispatchBatch();
+            delivered += batch;
+        } while (batch == batchSize);
+
+        if (delivered > 0) {
+            logger.debug("Dispatched {} queued notifications", delivered);
+        }
+        return delivered;
+    }
+
+    private int dispatchBatch() {
+        List<OutboxMailView> mail = new ArrayList<>();
+
+        List<NotificationSummary> delivered = transactionTemplate.execute(status -> {
+            List<Long> ids = notificationOutboxRepository.lockNextBatch(batchSize);
+            if (ids.isEmpty()) {
+                return List.of();
+            }
+
+            if (mailEnabled) {
+                mail.addAll(notificationOutboxRepository.findMailForBatch(ids));
+            }
+            List<NotificationSummary> moved = notificationRepository.moveFromOutbox(ids);
+            moved.forEach(notification -> unreadNotificationCounter.change(notification.getUserId(), 1));
+            return moved;
+        });
+        if (delivered == null) {
+            return 0;
+        }
+
+        notificationHub.publish(delivered);
+        sendMail(mail);
+        return delivered.size();
+    }
+
+    private void sendMail(List<OutboxMailView> mail) {
+        JavaMailSender sender = mailSender.getIfAvailable();
+        if (mail.isEmpty() || sender == null) {
+            return;
+        }
+
+        // One call sends the whole batch over a single connection
+        SimpleMailMessage[] messages = mail.stream().map(this::toMailMessage).toArray(SimpleMailMessage[]::new);
+        try {
+            sender.send(messages);
+        } catch (MailException e) {
+            logger.warn("Failed to mail {} notifications ({}..{})", messages.length,
+                    mail.get(0).getId(), mail.get(mail.size() - 1).getId(), e);
+        }
+    }
+
+    private SimpleMailMessage toMailMessage(OutboxMailView entry) {
+        StringBuilder text = new StringBuilder(entry.getMessage() == null ? "" : entry.getMessage());
+        if (entry.getActionUrl() != null) {
+            text.append("\n\n")
+                    .append(entry.getActionText() != null ? entry.getActionText() : "Open")
+                    .append(": ").append(linkBaseUrl).append(entry.getActionUrl());
+        }
+
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom(mailFrom);
+        message.setTo(entry.getEmail());
+        message.setSubject(entry.getTitle());
+        message.setText(text.toString());
+        return message;
+    }
+}
@@ -0,0 +1,173 @@
+package com.ist.lms.service.notification;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Maintains the monthly partitions of notifications (see V10): creates them ahead
+ * of time, detaches months past the retention period from notifications and attaches
+ * them to notifications_archive, and drops archived months past the archive period.
+ * Each step is a metadata change on a whole month, however many rows it holds, so
+ * the live table only ever spans the retention period. The one exception is a month
+ * that already has rows in the default partition, which are moved into the new
+ * partition while it is created.
+ */
+@Component
+public class NotificationRetentionJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationRetentionJob.class);
+
+    public static final String TABLE = "notifications";
+    public static final String ARCHIVE_TABLE = "notifications_archive";
+    public static final String DEFAULT_PARTITION = "notifications_default";
+
+    // Months created ahead, so rows never land in the default partition
+    public static final int MONTHS_AHEAD = 3;
+
+    private static final Pattern PARTITION_NAME = Pattern.compile(TABLE + "_p(\\d{4})_(\\d{2})");
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UnreadNotificationCounter unreadNotificationCounter;
+    private final TransactionTemplate transactionTemplate;
+
+    // Months kept in the notification feed, counting the current one
+    @Value("${app.notification-retention.months:12}")
+    private int retentionMonths;
+
+    // Months kept in the archive, counting from the current one; 0 keeps them forever
+    @Value("${app.notification-retention.archive-months:60}")
+    private int archiveMonths;
+
+    @Autowired
+    public NotificationRetentionJob(
+            JdbcTemplate jdbcTemplate,
+            UnreadNotificationCounter unreadNotificationCounter,
+            PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.unreadNotificationCounter = unreadNotificationCounter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(cron = "${app.notification-retention.cron:0 15 3 * * *}")
+    public void maintain() {
+        maintain(YearMonth.now());
+    }
+
+    /**
+     * Bring the partitions in line with the retention settings as of a month
+     * @param current the current month
+     * @return number of months archived
+     */
+    public int maintain(YearMonth current) {
+        for (int ahead = 0; ahead <= MONTHS_AHEAD; ahead++) {
+            YearMonth month = current.plusMonths(ahead);
+            // A month that cannot be created now is retried on the next run; it must not hold up archiving
+            try {
+                createPartition(month);
+            } catch (DataAccessException e) {
+                logger.error("Failed to create the notification partition for {}", month, e);
+            }
+        }
+
+        YearMonth oldestKept = current.minusMonths(retentionMonths - 1L);
+        List<YearMonth> expired = partitions(TABLE).stream().filter(month -> month.isBefore(oldestKept)).toList();
+        expired.forEach(this::archive);
+
+        if (archiveMonths > 0) {
+            YearMonth oldestArchived = current.minusMonths(archiveMonths - 1L);
+            partitions(ARCHIVE_TABLE).stream()
+                    .filter(month -> month.isBefore(oldestArchived))
+                    .forEach(this::drop);
+        }
+
+        // Archived notifications no longer count as unread
+        if (!expired.isEmpty()) {
+            unreadNotificationCounter.reconcile();
+        }
+        return expired.size();
+    }
+
+    private void createPartition(YearMonth month) {
+        String partition = partitionName(month);
+        String range = "createdAt >= '" + month.atDay(1) + "' AND createdAt < '" + month.plusMonths(1).atDay(1) + "'";
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL",
+                    Boolean.class, partition))) {
+                return;
+            }
+
+            // PostgreSQL refuses to create a partition whose rows are already in the default one,
+            // so take the default out, move the month's rows over and put it back
+            boolean strays = Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                    "SELECT EXISTS (SELECT 1 FROM " + DEFAULT_PARTITION + " WHERE " + range + ")", Boolean.class));
+            if (strays) {
+                jdbcTemplate.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + DEFAULT_PARTITION);
+            }
+
+            jdbcTemplate.execute("CREATE TABLE " + partition + " PARTITION OF " + TABLE +
+                    " FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+
+            if (strays) {
+                jdbcTemplate.execute("INSERT INTO " + partition + " SELECT * FROM " + DEFAULT_PARTITION +
+                        " WHERE " + range);
+                int moved = jdbcTemplate.update("DELETE FROM " + DEFAULT_PARTITION + " WHERE " + range);
+                jdbcTemplate.execute("ALTER TABLE " + TABLE + " ATTACH PARTITION " + DEFAULT_PARTITION + " DEFAULT");
+                logger.warn("Moved {} notifications of {} out of the default partition", moved, month);
+            }
+        });
+    }
+
+    private void archive(YearMonth month) {
+        String partition = partitionName(month);
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + partition);
+            jdbcTemplate.execute("ALTER TABLE " + ARCHIVE_TABLE + " ATTACH PARTITION " + partition +
+                    " FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+        });
+        logger.info("Archived notifications of {}", month);
+    }
+
+    private void drop(YearMonth month) {
+        jdbcTemplate.execute("DROP TABLE " + partitionName(month));
+        logger.info("Dropped archived notifications of {}", month);
+    }
+
+    /**
+     * Months of the monthly partitions attached to a table
+     */
+    private List<YearMonth> partitions(String table) {
+        return jdbcTemplate.queryForList("SELECT c.relname FROM pg_inherits i " +
+                        "JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = CAST(? AS regclass)",
+                        String.class, table).stream()
+                .map(name -> {
+                    Matcher matcher = PARTITION_NAME.matcher(name);
+                    return matcher.matches()
+                            ? YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)))
+                            : null;
+                })
+                .filter(Objects::nonNull)
+                .sorted()
+                .toList();
+    }
+
+    private static String partitionName(YearMonth month) {
+        return TABLE + "_p" + month.format(PARTITION_SUFFIX);
+    }
+}
@@ -0,0 +1,83 @@
+package com.ist.lms.service.notification;
+
+import com.ist.lms.model.enums.NotificationType;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A notification sent to many users at once. Rows written from a template keep a
+ * reference to it plus their parameters, and are rendered when read: placeholders
+ * like {leaveType} in the title and message are filled from the row's parameters,
+ * and {firstName}, {lastName} and {fullName} from its recipient. Templates are
+ * identified by a digest of their content, see {@link #key()}.
+ */
+public record NotificationTemplate(NotificationType type, String title, String message,
+                                   String actionUrl, String actionText) {
+
+    public static final Set<String> RECIPIENT_PLACEHOLDERS = Set.of("firstName", "lastName", "fullName");
+
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\{(\\w+)}");
+
+    public NotificationTemplate {
+        if (type == null) {
+            throw new IllegalArgumentException("Notification type is required");
+        }
+        if (title == null || title.isBlank()) {
+            throw new IllegalArgumentException("Notification title is required");
+        }
+        if (message == null || message.isBlank()) {
+            throw new IllegalArgumentException("Notification message is required");
+        }
+    }
+
+    public static NotificationTemplate of(NotificationType type, String title, String message) {
+        return new NotificationTemplate(type, title, message, null, null);
+    }
+
+    public NotificationTemplate withAction(String url, String text) {
+        return new NotificationTemplate(type, title, message, url, text);
+    }
+
+    /**
+     * Key the template is stored under: a SHA-256 digest of its content, so equal
+     * templates share one stored copy and a stored template never changes
+     * @return the key as 64 hex digits
+     */
+    public String key() {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : new String[] {type.name(), title, message, actionUrl, actionText}) {
+                digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Check that every placeholder other than the recipient ones has a value
+     * @param parameters names of the parameters the rows will carry
+     * @throws IllegalArgumentException if a placeholder has no value
+     */
+    public void requireParameters(Collection<String> parameters) {
+        for (String text : List.of(title, message)) {
+            Matcher matcher = PLACEHOLDER.matcher(text);
+            while (matcher.find()) {
+                String name = matcher.group(1);
+                if (!RECIPIENT_PLACEHOLDERS.contains(name) && !parameters.contains(name)) {
+                    throw new IllegalArgumentException("No value for notification placeholder {" + name + "}");
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.ist.lms.service.notification;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ist.lms.repository.NotificationOutboxRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Stored copies of the templates bulk notifications are written from. A template is
+ * stored the first time it is used, in a transaction of its own so the cached ID never
+ * refers to a row the caller's transaction rolled back; stored templates never change,
+ * as their key is a digest of their content, so the IDs can be cached indefinitely.
+ */
+@Component
+public class NotificationTemplateStore {
+
+    public static final int MAXIMUM_SIZE = 1000;
+
+    private final Cache<String, Long> ids = Caffeine.newBuilder()
+            .maximumSize(MAXIMUM_SIZE)
+            .build();
+
+    private final NotificationOutboxRepository notificationOutboxRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    public NotificationTemplateStore(NotificationOutboxRepository notificationOutboxRepository,
+                                     PlatformTransactionManager transactionManager,
+                                     ObjectMapper objectMapper) {
+        this.notificationOutboxRepository = notificationOutboxRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Get the ID of a template, storing it on first use
+     * @param template the template
+     * @return the stored template's ID
+     */
+    public Long idOf(NotificationTemplate template) {
+        return ids.get(template.key(), key -> transactionTemplate.execute(status ->
+                notificationOutboxRepository.saveTemplate(key, template.type().name(), template.title(),
+                        template.message(), template.actionUrl(), template.actionText())));
+    }
+
+    /**
+     * Serialize the parameters a template is rendered with, after checking that every
+     * placeholder it needs from the caller has a value
+     * @param template the template
+     * @param parameters placeholder values, rendered with {@link String#valueOf(Object)}
+     * @return the parameters as a JSON object
+     * @throws IllegalArgumentException if a placeholder has no value
+     */
+    public String parameters(NotificationTemplate template, Map<String, ?> parameters) {
+        return parameters(template, parameters, Set.of());
+    }
+
+    /**
+     * Serialize the parameters shared by the rows of a bulk insert that computes some
+     * parameters per row
+     * @param template the template
+     * @param parameters placeholder values, rendered with {@link String#valueOf(Object)}
+     * @param perRow names of the placeholders the insert fills per row
+     * @return the shared parameters as a JSON object
+     * @throws IllegalArgumentException if a placeholder has no value
+     */
+    public String parameters(NotificationTemplate template, Map<String, ?> parameters, Set<String> perRow) {
+        Set<String> names = new HashSet<>(parameters.keySet());
+        names.addAll(perRow);
+        template.requireParameters(names);
+        Map<String, String> values = new LinkedHashMap<>();
+        parameters.forEach((name, value) -> values.put(name, String.valueOf(value)));
+        try {
+            return objectMapper.writeValueAsString(values);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize notification parameters", e);
+        }
+    }
+}
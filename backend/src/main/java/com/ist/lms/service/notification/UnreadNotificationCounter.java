@@ -0,0 +1,148 @@
+package com.ist.lms.service.notification;
+
+import com.ist.lms.repository.NotificationRepository;
+import com.ist.lms.repository.projection.UnreadCountView;
+import com.ist.lms.util.TransactionCallbacks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Unread notification count of each user, held in memory so reading it is a map
+ * lookup. A count is loaded from the table on its first read and from then on moved
+ * by the changes the application makes: notifications delivered, read and deleted.
+ * Each change is registered inside its transaction and applied when that commits,
+ * and a load or reconcile is only kept if no change for the user was in flight or
+ * completed while it ran, so a count never misses or doubles a change. Changes made
+ * outside the application are picked up by the periodic reconcile.
+ */
+@Component
+public class UnreadNotificationCounter {
+
+    private static final Logger logger = LoggerFactory.getLogger(UnreadNotificationCounter.class);
+
+    public static final int RECONCILE_CHUNK_SIZE = 1000;
+
+    // One entry per user who has read or changed their count, so bounded by the number of users
+    private final Map<Long, Count> counts = new ConcurrentHashMap<>();
+
+    private final NotificationRepository notificationRepository;
+
+    @Autowired
+    public UnreadNotificationCounter(NotificationRepository notificationRepository) {
+        this.notificationRepository = notificationRepository;
+    }
+
+    /**
+     * Get a user's unread count, loading it on first use
+     * @param userId the user ID
+     * @return the unread count
+     */
+    public long get(Long userId) {
+        Count count = counts.computeIfAbsent(userId, id -> new Count());
+        long version;
+        synchronized (count) {
+            if (count.value >= 0) {
+                return count.value;
+            }
+            version = count.version;
+        }
+
+        long loaded = notificationRepository.countByUser_IdAndReadFalse(userId);
+        synchronized (count) {
+            if (count.value < 0 && count.isSettledAt(version)) {
+                count.value = loaded;
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Register a change to a user's unread notifications made by the current
+     * transaction; it is applied to the count once the transaction commits
+     * @param userId the user ID
+     * @param delta the change in unread notifications
+     */
+    public void change(Long userId, long delta) {
+        Count count = counts.computeIfAbsent(userId, id -> new Count());
+        synchronized (count) {
+            count.inFlight++;
+        }
+
+        TransactionCallbacks.afterCompletion(committed -> {
+            synchronized (count) {
+                count.inFlight--;
+                count.version++;
+                if (committed && count.value >= 0) {
+                    count.value = Math.max(0, count.value + delta);
+                }
+            }
+        });
+    }
+
+    /**
+     * Replace every count held with the one in the table, except those a change
+     * moved while the table was read; they are left to the next run
+     * @return number of counts that had drifted
+     */
+    @Scheduled(fixedDelayString = "${app.notification-counters.reconcile-millis:300000}")
+    public int reconcile() {
+        List<Long> userIds = new ArrayList<>(counts.keySet());
+        int drifted = 0;
+
+        for (int from = 0; from < userIds.size(); from += RECONCILE_CHUNK_SIZE) {
+            List<Long> chunk = userIds.subList(from, Math.min(from + RECONCILE_CHUNK_SIZE, userIds.size()));
+            Map<Long, Long> versions = new HashMap<>();
+            for (Long userId : chunk) {
+                Count count = counts.get(userId);
+                synchronized (count) {
+                    versions.put(userId, count.version);
+                }
+            }
+
+            Map<Long, Long> actual = notificationRepository.countUnreadByUserIds(chunk).stream()
+                    .collect(Collectors.toMap(UnreadCountView::getUserId, UnreadCountView::getUnreadCount));
+
+            for (Long userId : chunk) {
+                Count count = counts.get(userId);
+                long value = actual.getOrDefault(userId, 0L);
+                synchronized (count) {
+                    if (count.value >= 0 && count.isSettledAt(versions.get(userId)) && count.value != value) {
+                        count.value = value;
+                        drifted++;
+                    }
+                }
+            }
+        }
+
+        if (drifted > 0) {
+            logger.info("Reconciled {} of {} unread notification counts", drifted, userIds.size());
+        }
+        return drifted;
+    }
+
+    // Guarded by its own monitor
+    private static final class Count {
+        // -1 until loaded
+        private long value = -1;
+        // Bumped by every completed change
+        private long version;
+        // Changes registered whose transaction has not completed yet
+        private int inFlight;
+
+        // Whether a read of the table that started at the given version saw every
+        // change applied since and none still to come
+        private boolean isSettledAt(long startVersion) {
+            return version == startVersion && inFlight == 0;
+        }
+    }
+}
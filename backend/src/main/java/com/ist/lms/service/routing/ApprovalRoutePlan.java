@@ -0,0 +1,79 @@
+package com.ist.lms.service.routing;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Immutable, precompiled approval route for a leave type and department.
+ * Steps are ordered by approval level; only the applicant's direct manager
+ * is left to be resolved at submission time.
+ */
+public final class ApprovalRoutePlan {
+
+    private final List<Step> steps;
+
+    public ApprovalRoutePlan(List<Step> steps) {
+        this.steps = steps.stream()
+                .sorted(Comparator.comparingInt(Step::getApprovalLevel))
+                .toList();
+    }
+
+    public List<Step> getSteps() {
+        return steps;
+    }
+
+    public enum ApproverSource {
+        /** The applicant's own manager, resolved per submission */
+        DIRECT_MANAGER,
+        /** A fixed approver compiled into the plan */
+        FIXED
+    }
+
+    /**
+     * A single level of the route
+     */
+    public static final class Step {
+        private final int approvalLevel;
+        private final ApproverSource source;
+        private final Long approverId;
+        private final boolean reviewing;
+
+        private Step(int approvalLevel, ApproverSource source, Long approverId, boolean reviewing) {
+            this.approvalLevel = approvalLevel;
+            this.source = source;
+            this.approverId = approverId;
+            this.reviewing = reviewing;
+        }
+
+        /**
+         * Step approved by the applicant's direct manager
+         */
+        public static Step directManager(int approvalLevel) {
+            return new Step(approvalLevel, ApproverSource.DIRECT_MANAGER, null, true);
+        }
+
+        /**
+         * Step approved by a fixed user
+         * @param reviewing false for record-only steps that are always created as SKIPPED
+         */
+        public static Step fixed(int approvalLevel, Long approverId, boolean reviewing) {
+            return new Step(approvalLevel, ApproverSource.FIXED, approverId, reviewing);
+        }
+
+        public int getApprovalLevel() {
+            return approvalLevel;
+        }
+
+        public ApproverSource getSource() {
+            return source;
+        }
+
+        public Long getApproverId() {
+            return approverId;
+        }
+
+        public boolean isReviewing() {
+            return reviewing;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.ist.lms.service.routing;
+
+import java.util.Optional;
+
+/**
+ * Pluggable rule contributing one level to an approval route.
+ * Every rule bean is consulted when a plan is compiled; rules must only depend on
+ * the leave type and department so the compiled plan can be cached.
+ */
+public interface ApprovalRouteRule {
+
+    /**
+     * Compile this rule's step for a leave type and department
+     * @param leaveTypeId the leave type being requested
+     * @param departmentId the applicant's department, or null if unassigned
+     * @return the step, or empty if the rule does not apply
+     */
+    Optional<ApprovalRoutePlan.Step> compile(Long leaveTypeId, Long departmentId);
+}
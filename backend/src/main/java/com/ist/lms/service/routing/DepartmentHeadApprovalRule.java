@@ -0,0 +1,31 @@
+package com.ist.lms.service.routing;
+
+import com.ist.lms.repository.DepartmentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Second level: the head of the applicant's department
+ */
+@Component
+public class DepartmentHeadApprovalRule implements ApprovalRouteRule {
+
+    private final DepartmentRepository departmentRepository;
+
+    @Autowired
+    public DepartmentHeadApprovalRule(DepartmentRepository departmentRepository) {
+        this.departmentRepository = departmentRepository;
+    }
+
+    @Override
+    public Optional<ApprovalRoutePlan.Step> compile(Long leaveTypeId, Long departmentId) {
+        if (departmentId == null) {
+            return Optional.empty();
+        }
+
+        return departmentRepository.findManagerIdById(departmentId)
+                .map(headId -> ApprovalRoutePlan.Step.fixed(2, headId, true));
+    }
+}
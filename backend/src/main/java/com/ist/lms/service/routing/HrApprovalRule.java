@@ -0,0 +1,29 @@
+package com.ist.lms.service.routing;
+
+import com.ist.lms.model.ERole;
+import com.ist.lms.service.ApproverService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Third level: the first active HR user, recorded for visibility only
+ */
+@Component
+public class HrApprovalRule implements ApprovalRouteRule {
+
+    private final ApproverService approverService;
+
+    @Autowired
+    public HrApprovalRule(ApproverService approverService) {
+        this.approverService = approverService;
+    }
+
+    @Override
+    public Optional<ApprovalRoutePlan.Step> compile(Long leaveTypeId, Long departmentId) {
+        return approverService.getApproverIdsByRole(ERole.ROLE_HR).stream()
+                .findFirst()
+                .map(hrId -> ApprovalRoutePlan.Step.fixed(3, hrId, false));
+    }
+}
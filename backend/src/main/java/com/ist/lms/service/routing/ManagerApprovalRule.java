@@ -0,0 +1,17 @@
+package com.ist.lms.service.routing;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * First level: the applicant's direct manager
+ */
+@Component
+public class ManagerApprovalRule implements ApprovalRouteRule {
+
+    @Override
+    public Optional<ApprovalRoutePlan.Step> compile(Long leaveTypeId, Long departmentId) {
+        return Optional.of(ApprovalRoutePlan.Step.directManager(1));
+    }
+}
@@ -0,0 +1,29 @@
+package com.ist.lms.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counter that changes every time the data it tracks is written. Caches derived from
+ * that data remember the generation they were loaded with and reload when it has
+ * moved on; see {@link TransactionCallbacks#invalidateNowAndAfterCompletion} for why
+ * every write bumps it twice.
+ */
+public final class ChangeGeneration {
+
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Current generation
+     * @return a value that changes every time the tracked data is written
+     */
+    public long current() {
+        return generation.get();
+    }
+
+    /**
+     * Record a write to the tracked data
+     */
+    public void bump() {
+        TransactionCallbacks.invalidateNowAndAfterCompletion(generation::incrementAndGet);
+    }
+}
@@ -0,0 +1,237 @@
+package com.ist.lms.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Interval tree over closed [start, end] ranges of long keys (e.g. epoch days),
+ * implemented as a treap ordered by (start, id) where every node also tracks the
+ * largest end in its subtree. Insert and remove are O(log n) expected, and an
+ * overlap query is O(log n + k) for k matches.
+ *
+ * Not thread-safe; callers guard access externally.
+ *
+ * @param <V> the value stored with each interval
+ */
+public class IntervalTree<V> {
+
+    private final Map<Long, Node<V>> nodesById = new HashMap<>();
+    private Node<V> root;
+
+    /**
+     * Insert an interval, replacing any interval already stored under the same id
+     * @param id unique id of the interval
+     * @param start first point of the interval, inclusive
+     * @param end last point of the interval, inclusive
+     * @param value value returned by queries that match this interval
+     */
+    public void put(long id, long start, long end, V value) {
+        if (end < start) {
+            throw new IllegalArgumentException("Interval end " + end + " is before start " + start);
+        }
+
+        remove(id);
+        Node<V> node = new Node<>(id, start, end, value);
+        root = insert(root, node);
+        nodesById.put(id, node);
+    }
+
+    /**
+     * Remove the interval stored under an id, if any
+     * @param id the interval id
+     * @return true if an interval was removed
+     */
+    public boolean remove(long id) {
+        Node<V> node = nodesById.remove(id);
+        if (node == null) {
+            return false;
+        }
+        root = delete(root, node);
+        return true;
+    }
+
+    /**
+     * Check whether any interval overlaps [start, end]
+     * @param start first point of the query range, inclusive
+     * @param end last point of the query range, inclusive
+     * @return true if at least one stored interval overlaps the range
+     */
+    public boolean overlaps(long start, long end) {
+        Node<V> node = root;
+        while (node != null && node.maxEnd >= start) {
+            // Prefer the left subtree while it can still hold an overlapping interval
+            if (node.left != null && node.left.maxEnd >= start) {
+                node = node.left;
+            } else if (node.start > end) {
+                return false;
+            } else if (node.end >= start) {
+                return true;
+            } else {
+                node = node.right;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Find the values of all intervals overlapping [start, end], ordered by interval start
+     * @param start first point of the query range, inclusive
+     * @param end last point of the query range, inclusive
+     * @return the matching values
+     */
+    public List<V> findOverlapping(long start, long end) {
+        List<V> result = new ArrayList<>();
+        collect(root, start, end, result);
+        return result;
+    }
+
+    public int size() {
+        return nodesById.size();
+    }
+
+    public boolean isEmpty() {
+        return nodesById.isEmpty();
+    }
+
+    private void collect(Node<V> node, long start, long end, List<V> result) {
+        // No interval below this node reaches the query range
+        if (node == null || node.maxEnd < start) {
+            return;
+        }
+
+        collect(node.left, start, end, result);
+
+        // Everything from here on starts after the query range
+        if (node.start > end) {
+            return;
+        }
+        if (node.end >= start) {
+            result.add(node.value);
+        }
+
+        collect(node.right, start, end, result);
+    }
+
+    private Node<V> insert(Node<V> tree, Node<V> node) {
+        if (tree == null) {
+            return node;
+        }
+
+        if (node.priority > tree.priority) {
+            Node<V>[] parts = split(tree, node);
+            node.left = parts[0];
+            node.right = parts[1];
+            node.update();
+            return node;
+        }
+
+        if (node.compareTo(tree) < 0) {
+            tree.left = insert(tree.left, node);
+        } else {
+            tree.right = insert(tree.right, node);
+        }
+        tree.update();
+        return tree;
+    }
+
+    private Node<V> delete(Node<V> tree, Node<V> node) {
+        if (tree == null) {
+            return null;
+        }
+
+        if (tree == node) {
+            return merge(tree.left, tree.right);
+        }
+
+        if (node.compareTo(tree) < 0) {
+            tree.left = delete(tree.left, node);
+        } else {
+            tree.right = delete(tree.right, node);
+        }
+        tree.update();
+        return tree;
+    }
+
+    /**
+     * Split a tree into nodes ordered before the pivot and nodes ordered after it
+     */
+    @SuppressWarnings("unchecked")
+    private Node<V>[] split(Node<V> tree, Node<V> pivot) {
+        if (tree == null) {
+            return new Node[] {null, null};
+        }
+
+        if (tree.compareTo(pivot) < 0) {
+            Node<V>[] parts = split(tree.right, pivot);
+            tree.right = parts[0];
+            tree.update();
+            return new Node[] {tree, parts[1]};
+        }
+
+        Node<V>[] parts = split(tree.left, pivot);
+        tree.left = parts[1];
+        tree.update();
+        return new Node[] {parts[0], tree};
+    }
+
+    /**
+     * Merge two trees where every node of the left one orders before the right one
+     */
+    private Node<V> merge(Node<V> left, Node<V> right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.update();
+            return left;
+        }
+
+        right.left = merge(left, right.left);
+        right.update();
+        return right;
+    }
+
+    private static final class Node<V> implements Comparable<Node<V>> {
+        private final long id;
+        private final long start;
+        private final long end;
+        private final V value;
+        private final int priority = ThreadLocalRandom.current().nextInt();
+        private long maxEnd;
+        private Node<V> left;
+        private Node<V> right;
+
+        private Node(long id, long start, long end, V value) {
+            this.id = id;
+            this.start = start;
+            this.end = end;
+            this.value = value;
+            this.maxEnd = end;
+        }
+
+        private void update() {
+            long max = end;
+            if (left != null) {
+                max = Math.max(max, left.maxEnd);
+            }
+            if (right != null) {
+                max = Math.max(max, right.maxEnd);
+            }
+            maxEnd = max;
+        }
+
+        @Override
+        public int compareTo(Node<V> other) {
+            int byStart = Long.compare(start, other.start);
+            return byStart != 0 ? byStart : Long.compare(id, other.id);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.ist.lms.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Consumer;
+
+/**
+ * Helpers for deferring work to the end of the current transaction
+ */
+public final class TransactionCallbacks {
+
+    private TransactionCallbacks() {
+    }
+
+    /**
+     * Run an action once the current transaction commits, or right away when there is none
+     * @param action the action to run
+     */
+    public static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Run an action once the current transaction completes, telling it whether the
+     * transaction committed, or right away as committed when there is none. On commit
+     * it runs with the after-commit actions, in the order they were registered.
+     * @param action the action to run, given true if the transaction committed
+     */
+    public static void afterCompletion(Consumer<Boolean> action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.accept(true);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        action.accept(false);
+                    }
+                }
+            });
+        } else {
+            action.accept(true);
+        }
+    }
+
+    /**
+     * Invalidate cached state derived from data the current transaction is changing.
+     * The invalidation runs straight away and again once the transaction completes:
+     * another thread may load from the old, still committed data between the first
+     * run and the commit, and the second run makes sure that stale load does not
+     * stay cached.
+     * @param invalidation the invalidation to run, must be safe to run twice
+     */
+    public static void invalidateNowAndAfterCompletion(Runnable invalidation) {
+        invalidation.run();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidation.run();
+                }
+            });
+        }
+    }
+}
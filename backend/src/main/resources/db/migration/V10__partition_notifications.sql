@@ -0,0 +1,52 @@
+-- notifications is range-partitioned by month of createdAt: the feed reads the newest
+-- partitions first, and retention detaches whole months into notifications_archive
+-- instead of deleting rows. Partitions are named notifications_pYYYY_MM and created
+-- ahead of time by the retention job; the default partition only catches strays.
+
+UPDATE notifications SET createdAt = now() WHERE createdAt IS NULL;
+
+ALTER TABLE notifications RENAME TO notifications_unpartitioned;
+ALTER SEQUENCE notifications_id_seq OWNED BY NONE;
+
+CREATE TABLE notifications (
+    is_read boolean,
+    createdAt timestamp(6) NOT NULL,
+    id bigint NOT NULL DEFAULT nextval('notifications_id_seq'),
+    user_id bigint NOT NULL,
+    action_text varchar(255),
+    action_url varchar(255),
+    message varchar(255),
+    title varchar(255)
+) PARTITION BY RANGE (createdAt);
+
+CREATE TABLE notifications_default PARTITION OF notifications DEFAULT;
+
+CREATE TABLE notifications_archive (LIKE notifications) PARTITION BY RANGE (createdAt);
+
+DO $$
+DECLARE
+    month date := date_trunc('month', COALESCE((SELECT min(createdAt) FROM notifications_unpartitioned), now()));
+BEGIN
+    WHILE month <= date_trunc('month', now()) + interval '3 months' LOOP
+        EXECUTE format('CREATE TABLE notifications_p%s PARTITION OF notifications FOR VALUES FROM (%L) TO (%L)',
+            to_char(month, 'YYYY_MM'), month, month + interval '1 month');
+        month := month + interval '1 month';
+    END LOOP;
+END $$;
+
+INSERT INTO notifications (is_read, createdAt, id, user_id, action_text, action_url, message, title)
+SELECT is_read, createdAt, id, user_id, action_text, action_url, message, title FROM notifications_unpartitioned;
+
+DROP TABLE notifications_unpartitioned;
+
+ALTER SEQUENCE notifications_id_seq OWNED BY notifications.id;
+
+-- Unique keys of a partitioned table must include the partition key; IDs stay unique
+-- because they all come from the sequence
+ALTER TABLE notifications ADD CONSTRAINT notifications_pkey PRIMARY KEY (id, createdAt);
+ALTER TABLE notifications ADD CONSTRAINT fk_notifications_user FOREIGN KEY (user_id) REFERENCES users;
+
+CREATE INDEX idx_notifications_user_read_created ON notifications (user_id, is_read, createdAt DESC);
+
+-- Keyset feed, newest first
+CREATE INDEX idx_notifications_user_created_id ON notifications (user_id, createdAt DESC, id DESC);
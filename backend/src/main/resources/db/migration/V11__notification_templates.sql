@@ -0,0 +1,61 @@
+-- Notifications written in bulk are stored as a reference to their template plus the
+-- parameters of each recipient, and rendered when read, instead of as one fully
+-- rendered copy of the text per row. Templates are immutable and keyed by a digest of
+-- their content, so a template is stored once however many notifications use it.
+
+CREATE TABLE notification_templates (
+    id bigserial NOT NULL,
+    template_key varchar(64) NOT NULL,
+    type varchar(30) NOT NULL,
+    title text NOT NULL,
+    message text NOT NULL,
+    action_url varchar(255),
+    action_text varchar(255),
+    createdAt timestamp(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_notification_templates_key UNIQUE (template_key)
+);
+
+ALTER TABLE notification_outbox
+    ALTER COLUMN title DROP NOT NULL,
+    ADD COLUMN template_id bigint,
+    ADD COLUMN template_params jsonb,
+    ADD CONSTRAINT fk_notification_outbox_template FOREIGN KEY (template_id) REFERENCES notification_templates;
+
+-- Archived months are attached to notifications_archive, so both keep the same columns
+ALTER TABLE notifications
+    ADD COLUMN template_id bigint,
+    ADD COLUMN template_params jsonb;
+ALTER TABLE notifications_archive
+    ADD COLUMN template_id bigint,
+    ADD COLUMN template_params jsonb;
+
+-- Title or message of a templated notification for its recipient: {firstName},
+-- {lastName} and {fullName} come from the recipient's current name, every other
+-- {placeholder} from the row's parameters. Rows without a template return NULL,
+-- so readers fall back to the text stored on the row.
+CREATE FUNCTION render_notification(field text, template bigint, parameters jsonb, recipient bigint)
+RETURNS text LANGUAGE plpgsql STABLE AS $$
+DECLARE
+    rendered text;
+    first_name text;
+    last_name text;
+    parameter record;
+BEGIN
+    IF template IS NULL THEN
+        RETURN NULL;
+    END IF;
+
+    SELECT CASE field WHEN 'title' THEN t.title ELSE t.message END INTO rendered
+    FROM notification_templates t WHERE t.id = template;
+    SELECT u.firstName, u.lastName INTO first_name, last_name FROM users u WHERE u.id = recipient;
+
+    rendered := replace(replace(replace(rendered,
+        '{fullName}', concat_ws(' ', first_name, last_name)),
+        '{firstName}', COALESCE(first_name, '')),
+        '{lastName}', COALESCE(last_name, ''));
+    FOR parameter IN SELECT key, value FROM jsonb_each_text(COALESCE(parameters, '{}'::jsonb)) LOOP
+        rendered := replace(rendered, '{' || parameter.key || '}', COALESCE(parameter.value, ''));
+    END LOOP;
+    RETURN rendered;
+END $$;
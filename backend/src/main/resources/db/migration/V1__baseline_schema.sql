@@ -0,0 +1,198 @@
+-- Baseline schema, matching what Hibernate generated from the entity model before
+-- migrations were introduced. Existing databases are baselined at this version.
+
+CREATE TABLE departments (
+    createdAt timestamp(6),
+    id bigserial NOT NULL,
+    manager_id bigint,
+    updatedAt timestamp(6),
+    description varchar(255),
+    name varchar(255) UNIQUE,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE holidays (
+    date date,
+    is_recurring boolean,
+    createdAt timestamp(6),
+    id bigserial NOT NULL,
+    updatedAt timestamp(6),
+    description varchar(255),
+    name varchar(255),
+    PRIMARY KEY (id),
+    UNIQUE (date)
+);
+
+CREATE TABLE leave_applications (
+    end_date date,
+    return_date date,
+    start_date date,
+    total_days float(53),
+    createdAt timestamp(6),
+    id bigserial NOT NULL,
+    leave_type_id bigint NOT NULL,
+    updatedAt timestamp(6),
+    user_id bigint NOT NULL,
+    status varchar(20) CHECK (status IN ('PENDING','APPROVED','REJECTED','CANCELLED','COMPLETED')),
+    cancellation_reason varchar(255),
+    emergency_contact varchar(255),
+    emergency_contact_phone varchar(255),
+    reason varchar(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE leave_approvals (
+    approval_level integer,
+    notification_sent boolean,
+    approver_id bigint NOT NULL,
+    createdAt timestamp(6),
+    id bigserial NOT NULL,
+    leave_application_id bigint NOT NULL,
+    updatedAt timestamp(6),
+    status varchar(20) CHECK (status IN ('PENDING','APPROVED','REJECTED','SKIPPED')),
+    comments varchar(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE leave_balance_adjustments (
+    adjustment_value float(53),
+    adjusted_by_id bigint NOT NULL,
+    createdAt timestamp(6),
+    id bigserial NOT NULL,
+    leave_balance_id bigint NOT NULL,
+    reason varchar(255),
+    type varchar(255) CHECK (type IN ('MANUAL_ADDITION','MANUAL_DEDUCTION','ACCRUAL','LEAVE_TAKEN','LEAVE_CANCELLED','CARRIED_OVER','EXPIRED')),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE leave_balances (
+    carried_over_days float(53),
+    expiry_date date,
+    total_days float(53),
+    used_days float(53),
+    year integer NOT NULL,
+    createdAt timestamp(6),
+    id bigserial NOT NULL,
+    leave_type_id bigint NOT NULL,
+    updatedAt timestamp(6),
+    user_id bigint NOT NULL,
+    PRIMARY KEY (id),
+    UNIQUE (user_id, leave_type_id, year)
+);
+
+CREATE TABLE leave_documents (
+    createdAt timestamp(6),
+    file_size bigint,
+    id bigserial NOT NULL,
+    leave_application_id bigint NOT NULL,
+    file_path varchar(255),
+    file_type varchar(255),
+    name varchar(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE leave_types (
+    default_days float(53),
+    is_active boolean,
+    is_paid boolean,
+    max_consecutive_days integer,
+    requires_approval boolean,
+    requires_documents boolean,
+    createdAt timestamp(6),
+    id bigserial NOT NULL,
+    updatedAt timestamp(6),
+    description varchar(255),
+    name varchar(255),
+    PRIMARY KEY (id),
+    UNIQUE (name)
+);
+
+CREATE TABLE notifications (
+    is_read boolean,
+    createdAt timestamp(6),
+    id bigserial NOT NULL,
+    user_id bigint NOT NULL,
+    action_text varchar(255),
+    action_url varchar(255),
+    message varchar(255),
+    title varchar(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE roles (
+    id bigserial NOT NULL,
+    name varchar(20) UNIQUE CHECK (name IN ('ROLE_EMPLOYEE','ROLE_MANAGER','ROLE_ADMIN','ROLE_HR')),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE user_roles (
+    role_id bigint NOT NULL,
+    user_id bigint NOT NULL,
+    PRIMARY KEY (role_id, user_id)
+);
+
+CREATE TABLE users (
+    employment_date date,
+    is_active boolean,
+    createdAt timestamp(6),
+    department_id bigint,
+    id bigserial NOT NULL,
+    manager_id bigint,
+    updatedAt timestamp(6),
+    email varchar(255),
+    firstName varchar(255),
+    lastName varchar(255),
+    microsoft_id varchar(255),
+    password varchar(255),
+    phoneNumber varchar(255),
+    preferred_theme varchar(255),
+    profilePictureUrl varchar(255),
+    notification_preferences jsonb,
+    PRIMARY KEY (id),
+    UNIQUE (email)
+);
+
+ALTER TABLE departments
+    ADD CONSTRAINT FKia71ute4clfbt6u2auufvw1bv FOREIGN KEY (manager_id) REFERENCES users;
+
+ALTER TABLE leave_applications
+    ADD CONSTRAINT FKg5ow2f4rwcb417lc2sae82t07 FOREIGN KEY (leave_type_id) REFERENCES leave_types;
+
+ALTER TABLE leave_applications
+    ADD CONSTRAINT FK5hsf43b5xftujtp1s96t7thbc FOREIGN KEY (user_id) REFERENCES users;
+
+ALTER TABLE leave_approvals
+    ADD CONSTRAINT FK6hsuw5hscnvvxlah55xa0ywn2 FOREIGN KEY (approver_id) REFERENCES users;
+
+ALTER TABLE leave_approvals
+    ADD CONSTRAINT FKi1d7xqkf2p1u8xnmpxns2pgod FOREIGN KEY (leave_application_id) REFERENCES leave_applications;
+
+ALTER TABLE leave_balance_adjustments
+    ADD CONSTRAINT FK4mnnd5j7c7lil60j55y58paee FOREIGN KEY (adjusted_by_id) REFERENCES users;
+
+ALTER TABLE leave_balance_adjustments
+    ADD CONSTRAINT FK2x0mbsdsbi1jlj8bifcfvbqxd FOREIGN KEY (leave_balance_id) REFERENCES leave_balances;
+
+ALTER TABLE leave_balances
+    ADD CONSTRAINT FK86791wotycqa54js45s9396wy FOREIGN KEY (leave_type_id) REFERENCES leave_types;
+
+ALTER TABLE leave_balances
+    ADD CONSTRAINT FK1dmomb2n7k3ebqf6hjy303f79 FOREIGN KEY (user_id) REFERENCES users;
+
+ALTER TABLE leave_documents
+    ADD CONSTRAINT FKg9wgdpd12merlq66ebm2qx2c0 FOREIGN KEY (leave_application_id) REFERENCES leave_applications;
+
+ALTER TABLE notifications
+    ADD CONSTRAINT FK9y21adhxn0ayjhfocscqox7bh FOREIGN KEY (user_id) REFERENCES users;
+
+ALTER TABLE user_roles
+    ADD CONSTRAINT FKh8ciramu9cc9q3qcqiv4ue8a6 FOREIGN KEY (role_id) REFERENCES roles;
+
+ALTER TABLE user_roles
+    ADD CONSTRAINT FKhfh9dx7w3ubf1co1vdev94g3f FOREIGN KEY (user_id) REFERENCES users;
+
+ALTER TABLE users
+    ADD CONSTRAINT FKsbg59w8q63i0oo53rlgvlcnjq FOREIGN KEY (department_id) REFERENCES departments;
+
+ALTER TABLE users
+    ADD CONSTRAINT FK5p1ci5btqfwvtaqx5n2wxi182 FOREIGN KEY (manager_id) REFERENCES users;
@@ -0,0 +1,42 @@
+-- Indexes for the hot leave, approval, balance and notification lookups.
+-- leave_balances(user_id, leave_type_id, year) is already covered by its unique constraint.
+
+-- Per-user listings and overlap checks filter on applicant and status, then range on dates
+CREATE INDEX IF NOT EXISTS idx_leave_applications_user_status_dates
+    ON leave_applications (user_id, status, start_date, end_date);
+
+-- Keyset pages, newest first, overall and per user / per status
+CREATE INDEX IF NOT EXISTS idx_leave_applications_created
+    ON leave_applications (createdAt DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_leave_applications_user_created
+    ON leave_applications (user_id, createdAt DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_leave_applications_status_created
+    ON leave_applications (status, createdAt DESC, id DESC);
+
+-- Range overlap (&&) on approved leave periods, used by the calendar queries
+CREATE INDEX IF NOT EXISTS idx_leave_applications_approved_period
+    ON leave_applications USING gist (daterange(start_date, end_date, '[]'))
+    WHERE status = 'APPROVED';
+
+-- Approval inbox and approval chains of an application
+CREATE INDEX IF NOT EXISTS idx_leave_approvals_approver_status
+    ON leave_approvals (approver_id, status);
+
+CREATE INDEX IF NOT EXISTS idx_leave_approvals_application
+    ON leave_approvals (leave_application_id);
+
+-- Notification feed and unread counts
+CREATE INDEX IF NOT EXISTS idx_notifications_user_read_created
+    ON notifications (user_id, is_read, createdAt DESC);
+
+CREATE INDEX IF NOT EXISTS idx_leave_balance_adjustments_balance
+    ON leave_balance_adjustments (leave_balance_id);
+
+-- Department and reporting-line lookups
+CREATE INDEX IF NOT EXISTS idx_users_department
+    ON users (department_id);
+
+CREATE INDEX IF NOT EXISTS idx_users_manager
+    ON users (manager_id);
@@ -0,0 +1,20 @@
+-- Ledger of monthly accrual runs, one per (month, year, leave type), with the
+-- last accrued user ID as the resume checkpoint
+
+CREATE TABLE accrual_runs (
+    id bigserial NOT NULL,
+    month integer NOT NULL,
+    year integer NOT NULL,
+    leave_type_id bigint NOT NULL,
+    status varchar(20) CHECK (status IN ('RUNNING','COMPLETED','FAILED')),
+    last_user_id bigint NOT NULL DEFAULT 0,
+    chunks_completed integer NOT NULL DEFAULT 0,
+    users_accrued integer NOT NULL DEFAULT 0,
+    error_message varchar(1000),
+    completed_at timestamp(6),
+    createdAt timestamp(6),
+    updatedAt timestamp(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_accrual_runs_period UNIQUE (month, year, leave_type_id),
+    CONSTRAINT fk_accrual_runs_leave_type FOREIGN KEY (leave_type_id) REFERENCES leave_types
+);
@@ -0,0 +1,8 @@
+-- Entities written in bulk allocate IDs from their serial sequence in blocks of 50
+-- (allocationSize on the entity must match), so Hibernate can batch their inserts.
+-- Inserts relying on the column default keep drawing from the same sequence.
+
+ALTER SEQUENCE leave_balances_id_seq INCREMENT BY 50;
+ALTER SEQUENCE leave_balance_adjustments_id_seq INCREMENT BY 50;
+ALTER SEQUENCE notifications_id_seq INCREMENT BY 50;
+ALTER SEQUENCE leave_approvals_id_seq INCREMENT BY 50;
@@ -0,0 +1,2 @@
+-- Optimistic lock version for leave balances; existing rows start at 0
+ALTER TABLE leave_balances ADD COLUMN version bigint NOT NULL DEFAULT 0;
@@ -0,0 +1,59 @@
+-- The adjustment log becomes the ledger of leave balances: every entry carries its
+-- signed effect on total and used days, so folding a balance's entries yields it.
+
+ALTER TABLE leave_balance_adjustments
+    ADD COLUMN total_delta float(53) NOT NULL DEFAULT 0,
+    ADD COLUMN used_delta float(53) NOT NULL DEFAULT 0;
+
+ALTER TABLE leave_balance_adjustments DROP CONSTRAINT IF EXISTS leave_balance_adjustments_type_check;
+ALTER TABLE leave_balance_adjustments ADD CONSTRAINT leave_balance_adjustments_type_check
+    CHECK (type IN ('MANUAL_ADDITION','MANUAL_DEDUCTION','ACCRUAL','LEAVE_TAKEN','LEAVE_CANCELLED',
+                    'CARRIED_OVER','EXPIRED','OPENING_BALANCE','CORRECTION'));
+
+-- Existing entries only recorded an amount; their effect follows from the type
+UPDATE leave_balance_adjustments SET total_delta = adjustment_value
+    WHERE type IN ('MANUAL_ADDITION','ACCRUAL','LEAVE_CANCELLED','CARRIED_OVER');
+UPDATE leave_balance_adjustments SET used_delta = adjustment_value
+    WHERE type IN ('MANUAL_DEDUCTION','LEAVE_TAKEN');
+UPDATE leave_balance_adjustments SET total_delta = -adjustment_value
+    WHERE type = 'EXPIRED';
+
+UPDATE leave_balance_adjustments a SET createdAt = COALESCE(lb.createdAt, now())
+    FROM leave_balances lb WHERE lb.id = a.leave_balance_id AND a.createdAt IS NULL;
+
+-- Opening entries for whatever the log never recorded (balances created directly, or edited
+-- in place), dated at the balance's creation so the ledger folds to the stored totals
+INSERT INTO leave_balance_adjustments (leave_balance_id, adjusted_by_id, adjustment_value, reason, type,
+                                       total_delta, used_delta, createdAt)
+SELECT lb.id, lb.user_id,
+       COALESCE(lb.total_days, 0) - COALESCE(l.total_days, 0) - COALESCE(lb.used_days, 0) + COALESCE(l.used_days, 0),
+       'Opening balance', 'OPENING_BALANCE',
+       COALESCE(lb.total_days, 0) - COALESCE(l.total_days, 0), COALESCE(lb.used_days, 0) - COALESCE(l.used_days, 0),
+       COALESCE(LEAST(lb.createdAt, l.first_created), lb.createdAt, now())
+FROM leave_balances lb
+LEFT JOIN (SELECT leave_balance_id, sum(total_delta) AS total_days, sum(used_delta) AS used_days,
+                  min(createdAt) AS first_created
+           FROM leave_balance_adjustments GROUP BY leave_balance_id) l ON l.leave_balance_id = lb.id
+WHERE abs(COALESCE(lb.total_days, 0) - COALESCE(l.total_days, 0)) > 1e-6
+   OR abs(COALESCE(lb.used_days, 0) - COALESCE(l.used_days, 0)) > 1e-6;
+
+-- Running totals of a balance's ledger up to as_of, so a fold starts from the latest
+-- snapshot instead of the first entry
+CREATE TABLE leave_balance_snapshots (
+    id bigserial NOT NULL,
+    leave_balance_id bigint NOT NULL,
+    as_of timestamp(6) NOT NULL,
+    total_days float(53) NOT NULL,
+    used_days float(53) NOT NULL,
+    entry_count integer NOT NULL,
+    createdAt timestamp(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_leave_balance_snapshots_balance_as_of UNIQUE (leave_balance_id, as_of),
+    CONSTRAINT fk_leave_balance_snapshots_balance FOREIGN KEY (leave_balance_id) REFERENCES leave_balances
+);
+
+-- Folds read one balance's entries in time order after a snapshot
+CREATE INDEX IF NOT EXISTS idx_leave_balance_adjustments_balance_created
+    ON leave_balance_adjustments (leave_balance_id, createdAt, id);
+
+DROP INDEX IF EXISTS idx_leave_balance_adjustments_balance;
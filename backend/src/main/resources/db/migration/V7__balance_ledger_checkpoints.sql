@@ -0,0 +1,24 @@
+-- Checkpoint the history already in the ledger: running totals of every balance at each
+-- 20th entry (LeaveBalanceLedger.SNAPSHOT_INTERVAL), so point-in-time reads anywhere in the
+-- past fold one snapshot and fewer than 20 entries. Entries from the last hour are left to
+-- the nightly snapshot job, as their transactions may still be open.
+
+WITH latest AS (
+    SELECT DISTINCT ON (leave_balance_id) leave_balance_id, as_of, total_days, used_days, entry_count
+    FROM leave_balance_snapshots ORDER BY leave_balance_id, as_of DESC
+)
+INSERT INTO leave_balance_snapshots (leave_balance_id, as_of, total_days, used_days, entry_count, createdAt)
+SELECT e.leave_balance_id, e.createdAt, e.total_days, e.used_days, e.entry_count, now()
+FROM (
+    SELECT a.leave_balance_id, a.createdAt,
+           COALESCE(s.total_days, 0) + sum(a.total_delta) OVER w AS total_days,
+           COALESCE(s.used_days, 0) + sum(a.used_delta) OVER w AS used_days,
+           COALESCE(s.entry_count, 0) + count(*) OVER w AS entry_count,
+           row_number() OVER (PARTITION BY a.leave_balance_id ORDER BY a.createdAt, a.id) AS n
+    FROM leave_balance_adjustments a
+    LEFT JOIN latest s ON s.leave_balance_id = a.leave_balance_id
+    WHERE a.createdAt <= now() - interval '1 hour' AND (s.as_of IS NULL OR a.createdAt > s.as_of)
+    WINDOW w AS (PARTITION BY a.leave_balance_id ORDER BY a.createdAt)
+) e
+WHERE e.n % 20 = 0
+ON CONFLICT (leave_balance_id, as_of) DO NOTHING;
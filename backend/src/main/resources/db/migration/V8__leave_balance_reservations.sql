@@ -0,0 +1,11 @@
+-- Days held on a balance by PENDING applications, taken from the balance of the year
+-- the leave starts in; available days are total - used - reserved
+
+ALTER TABLE leave_balances ADD COLUMN reserved_days float(53) NOT NULL DEFAULT 0;
+
+UPDATE leave_balances lb SET reserved_days = p.days
+FROM (SELECT user_id, leave_type_id, CAST(EXTRACT(YEAR FROM start_date) AS integer) AS year,
+             sum(total_days) AS days
+      FROM leave_applications WHERE status = 'PENDING'
+      GROUP BY user_id, leave_type_id, CAST(EXTRACT(YEAR FROM start_date) AS integer)) p
+WHERE lb.user_id = p.user_id AND lb.leave_type_id = p.leave_type_id AND lb.year = p.year;
@@ -0,0 +1,19 @@
+-- Notifications are written to the outbox in the transaction of the change they report,
+-- and moved into notifications (and mail) in batches by the dispatcher
+
+CREATE TABLE notification_outbox (
+    id bigserial NOT NULL,
+    user_id bigint NOT NULL,
+    type varchar(30) NOT NULL CHECK (type IN ('LEAVE_REQUEST','LEAVE_APPROVAL','LEAVE_REJECTION',
+        'LEAVE_CANCELLATION','BALANCE_UPDATE','GENERAL')),
+    title varchar(255) NOT NULL,
+    message varchar(255),
+    action_url varchar(255),
+    action_text varchar(255),
+    createdAt timestamp(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_notification_outbox_user FOREIGN KEY (user_id) REFERENCES users
+);
+
+-- Entries are saved in JDBC batches, see V4
+ALTER SEQUENCE notification_outbox_id_seq INCREMENT BY 50;
@@ -0,0 +1,98 @@
+package com.ist.lms.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ist.lms.model.LeaveApplication;
+import com.ist.lms.model.LeaveType;
+import com.ist.lms.model.User;
+import com.ist.lms.model.enums.LeaveStatus;
+import com.ist.lms.service.LeaveApplicationService;
+import com.ist.lms.support.PostgresIntegrationTest;
+import com.ist.lms.support.TestData;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The approval inbox must load in a fixed number of statements however many
+ * requests are pending, each request listed once.
+ */
+@Import(TestData.class)
+class ApprovalInboxQueryCountTest extends PostgresIntegrationTest {
+
+    // Inbox query, the documents subselect and the approver's roles
+    private static final long MAX_STATEMENTS = 3;
+
+    @Autowired
+    private LeaveApplicationService leaveApplicationService;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void inboxStatementCountDoesNotGrowWithPendingRequests() {
+        Long smallInbox = approverWithPendingRequests(20);
+        Long largeInbox = approverWithPendingRequests(200);
+
+        Counted<List<Long>> small = countStatements(() -> renderInbox(smallInbox));
+        Counted<List<Long>> large = countStatements(() -> renderInbox(largeInbox));
+
+        assertThat(large.result()).hasSize(200).doesNotHaveDuplicates();
+        assertThat(large.statements()).isEqualTo(small.statements()).isLessThanOrEqualTo(MAX_STATEMENTS);
+    }
+
+    /**
+     * Load the inbox and serialize it as the controller does, so lazy loads count too
+     * @return IDs of the listed applications
+     */
+    private List<Long> renderInbox(Long approverId) {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        return readOnly.execute(status -> {
+            List<LeaveApplication> inbox = leaveApplicationService.getPendingApprovalsByApproverId(approverId);
+            try {
+                objectMapper.writeValueAsString(inbox);
+            } catch (JsonProcessingException e) {
+                throw new UncheckedIOException(e);
+            }
+            return inbox.stream().map(LeaveApplication::getId).toList();
+        });
+    }
+
+    /**
+     * A manager with one pending request from each of their reports; every tenth
+     * request also waits on them at a second level
+     */
+    private Long approverWithPendingRequests(int requests) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            LeaveType leaveType = testData.annualLeave();
+            User manager = testData.employee("Manager", null);
+            LocalDate start = LocalDate.now().plusMonths(1);
+
+            for (int i = 0; i < requests; i++) {
+                User applicant = testData.employee("Applicant" + i, manager);
+                LeaveApplication application = testData.application(applicant, leaveType, LeaveStatus.PENDING,
+                        start, start.plusDays(1));
+                testData.pendingApproval(application, manager, 1);
+                if (i % 10 == 0) {
+                    testData.pendingApproval(application, manager, 2);
+                }
+            }
+            return manager.getId();
+        });
+    }
+}
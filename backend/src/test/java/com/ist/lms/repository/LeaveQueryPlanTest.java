@@ -0,0 +1,117 @@
+package com.ist.lms.repository;
+
+import com.ist.lms.support.PostgresIntegrationTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The hot lookups must be served by the indexes of the migrations (V2, V10) on a
+ * populated database. Plans are taken with EXPLAIN after ANALYZE, so they are the
+ * planner's own choice rather than forced.
+ */
+class LeaveQueryPlanTest extends PostgresIntegrationTest {
+
+    private static final int USERS = 1_000;
+    private static final int APPLICATIONS_PER_USER = 30;
+    private static final int NOTIFICATIONS_PER_USER = 20;
+
+    private static Map<String, Long> sample;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void populate() {
+        if (sample != null) {
+            return;
+        }
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            jdbcTemplate.update("INSERT INTO users (email, firstName, lastName, password, is_active, createdAt, updatedAt) " +
+                    "SELECT 'plan-' || g || '@ist.com', 'Plan', 'User' || g, 'x', true, now(), now() " +
+                    "FROM generate_series(1, ?) g", USERS);
+            // Every user applies for leave across the year, approved by one of the first forty
+            jdbcTemplate.update("INSERT INTO leave_applications (user_id, leave_type_id, start_date, end_date, total_days, " +
+                    "status, reason, createdAt, updatedAt) " +
+                    "SELECT u.id, (SELECT min(id) FROM leave_types), " +
+                    "DATE '2025-01-01' + (g * 11 + u.id % 7)::int, DATE '2025-01-01' + (g * 11 + u.id % 7 + 2)::int, 3, " +
+                    "CASE WHEN g % 10 = 0 THEN 'PENDING' WHEN g % 7 = 0 THEN 'REJECTED' ELSE 'APPROVED' END, 'Plan', " +
+                    "now() - make_interval(days => g), now() " +
+                    "FROM users u CROSS JOIN generate_series(1, ?) g WHERE u.email LIKE 'plan-%'", APPLICATIONS_PER_USER);
+            jdbcTemplate.update("INSERT INTO leave_approvals (leave_application_id, approver_id, status, approval_level, " +
+                    "notification_sent, createdAt, updatedAt) " +
+                    "WITH first AS (SELECT min(id) AS id FROM users WHERE email LIKE 'plan-%') " +
+                    "SELECT la.id, first.id + la.user_id % 40, " +
+                    "CASE WHEN la.status = 'PENDING' THEN 'PENDING' ELSE 'APPROVED' END, 1, true, now(), now() " +
+                    "FROM leave_applications la CROSS JOIN first WHERE la.reason = 'Plan'");
+            jdbcTemplate.update("INSERT INTO notifications (user_id, title, message, is_read, createdAt) " +
+                    "SELECT u.id, 'Plan', 'Plan', g % 4 = 0, now() - make_interval(days => g % 25) " +
+                    "FROM users u CROSS JOIN generate_series(1, ?) g WHERE u.email LIKE 'plan-%'", NOTIFICATIONS_PER_USER);
+        });
+        jdbcTemplate.execute("ANALYZE");
+
+        sample = jdbcTemplate.queryForMap("SELECT min(id) + ? AS user_id, min(id) + 3 AS approver_id " +
+                "FROM users WHERE email LIKE 'plan-%'", USERS / 2).entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, e -> ((Number) e.getValue()).longValue()));
+    }
+
+    @Test
+    void overlapCheckUsesTheApprovedPeriodGistIndex() {
+        String plan = explain("SELECT EXISTS (SELECT 1 FROM leave_applications la WHERE la.user_id = :userId " +
+                "AND la.id <> :excludeId AND " + LeaveApplicationRepository.APPROVED_PERIOD_OVERLAPS + ")");
+
+        assertThat(plan).contains("idx_leave_applications_approved_period")
+                .doesNotContain("Seq Scan on leave_applications");
+    }
+
+    @Test
+    void approvalInboxUsesTheApproverStatusIndex() {
+        String plan = explain("SELECT la.id FROM leave_applications la WHERE EXISTS (SELECT 1 FROM leave_approvals ap " +
+                "WHERE ap.leave_application_id = la.id AND ap.approver_id = :approverId AND ap.status = 'PENDING') " +
+                "ORDER BY la.createdAt DESC, la.id DESC");
+
+        assertThat(plan).contains("idx_leave_approvals_approver_status")
+                .doesNotContain("Seq Scan on leave_approvals")
+                .doesNotContain("Seq Scan on leave_applications");
+    }
+
+    @Test
+    void userListingPagesReadTheIndexInOrder() {
+        String plan = explain("SELECT la.id FROM leave_applications la WHERE la.user_id = :userId " +
+                "ORDER BY la.createdAt DESC, la.id DESC LIMIT 21");
+
+        assertThat(plan).contains("idx_leave_applications_user_created").doesNotContain("Sort");
+    }
+
+    @Test
+    void unreadNotificationsUseTheUserReadIndex() {
+        String plan = explain("SELECT count(*) FROM notifications n WHERE n.user_id = :userId AND n.is_read = false");
+
+        String currentPartition = "notifications_p" + YearMonth.now().format(DateTimeFormatter.ofPattern("yyyy_MM"));
+        assertThat(plan).contains(currentPartition + "_user_id_is_read_createdat_idx")
+                .doesNotContain("Seq Scan on " + currentPartition);
+    }
+
+    private String explain(String sql) {
+        String bound = sql.replace(":userId", String.valueOf(sample.get("user_id")))
+                .replace(":approverId", String.valueOf(sample.get("approver_id")))
+                .replace(":excludeId", "0")
+                .replace(":startDate", "'2025-06-01'")
+                .replace(":endDate", "'2025-06-05'");
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + bound, String.class));
+    }
+}
@@ -0,0 +1,148 @@
+package com.ist.lms.service;
+
+import com.ist.lms.model.AccrualRun;
+import com.ist.lms.model.LeaveApplication;
+import com.ist.lms.model.LeaveType;
+import com.ist.lms.model.User;
+import com.ist.lms.model.enums.LeaveStatus;
+import com.ist.lms.service.balance.LeaveAccrualEngine;
+import com.ist.lms.service.balance.LeaveCarryOverEngine;
+import com.ist.lms.service.notification.NotificationOutboxDispatcher;
+import com.ist.lms.support.PostgresIntegrationTest;
+import com.ist.lms.support.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Statement counts of the bulk write paths. Accrual and carry-over must issue a
+ * fixed number of statements per chunk however many users it holds, and approval
+ * chains must be inserted in batches rather than a statement per approval.
+ *
+ * Baseline, measured with this test on the tree before pooled IDs and JDBC batching
+ * (IDENTITY keys, no batching): 9 approval chains took 27 statements and 30 took 90,
+ * three per chain. With them, the same runs take 16 and 33, one per chain plus a
+ * fixed cost. Accrual (11 statements for one chunk) and carry-over (4 for one
+ * partition) were already set-based and count the same in both.
+ */
+@Import(TestData.class)
+class BulkWriteStatementCountTest extends PostgresIntegrationTest {
+
+    // Far enough out that no other test has balances in these years
+    private static final int ACCRUAL_YEAR = 2092;
+    private static final int CARRY_FROM_YEAR = 2093;
+    private static final int CARRY_TO_YEAR = 2094;
+
+    @Autowired
+    private LeaveAccrualEngine leaveAccrualEngine;
+
+    @Autowired
+    private LeaveCarryOverEngine leaveCarryOverEngine;
+
+    @Autowired
+    private ApprovalRoutingService approvalRoutingService;
+
+    @Autowired
+    private NotificationOutboxDispatcher notificationOutboxDispatcher;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Statistics count every thread's statements, so nothing may be left for a woken
+    // dispatcher to deliver while a measurement runs
+    @BeforeEach
+    void drainOutbox() {
+        awaitOutboxDelivered();
+    }
+
+    @Test
+    void accrualIssuesAFixedNumberOfStatementsPerChunk() {
+        IntStream.range(0, 50).forEach(i -> testData.employee("Accrued" + i, null));
+
+        Counted<AccrualRun> accrual = countStatements(() -> leaveAccrualEngine.accrue(1, ACCRUAL_YEAR, false));
+
+        AccrualRun run = accrual.result();
+        assertThat(run.getUsersAccrued()).isGreaterThanOrEqualTo(50);
+        // Run bookkeeping and storing the notification template on first use, then per chunk:
+        // the user ID page, the checkpoint, the balance upsert, the ledger and the outbox inserts
+        assertThat(accrual.statements()).isLessThanOrEqualTo(7 + 5L * run.getChunksCompleted());
+    }
+
+    @Test
+    void carryOverIssuesAFixedNumberOfStatementsPerPartition() {
+        LeaveType leaveType = testData.annualLeave();
+        for (int i = 0; i < 50; i++) {
+            User user = testData.employee("Carried" + i, null);
+            jdbcTemplate.update("INSERT INTO leave_balances (user_id, leave_type_id, year, total_days, used_days, " +
+                            "carried_over_days, createdAt, updatedAt) VALUES (?, ?, ?, 20, ?, 0, now(), now())",
+                    user.getId(), leaveType.getId(), CARRY_FROM_YEAR, i % 20);
+        }
+
+        Counted<Integer> carryOver = countStatements(() ->
+                leaveCarryOverEngine.carryOver(CARRY_FROM_YEAR, CARRY_TO_YEAR, 5));
+
+        assertThat(carryOver.result()).isEqualTo(50);
+        // The user ID stream, storing the notification template on first use, then the upsert,
+        // the outbox and the ledger inserts of the one partition
+        assertThat(carryOver.statements()).isLessThanOrEqualTo(5);
+    }
+
+    @Test
+    void approvalChainsAreInsertedInBatches() {
+        LeaveType leaveType = testData.annualLeave();
+        User manager = testData.employee("Manager", null);
+        List<LeaveApplication> applications = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            User applicant = testData.employee("Applicant" + i, manager);
+            LocalDate startDate = LocalDate.of(2030, 1, 1).plusDays(i * 7L);
+            applications.add(testData.application(applicant, leaveType, LeaveStatus.PENDING, startDate,
+                    startDate.plusDays(2)));
+        }
+        // Compile the route plan outside the measurement
+        createApprovals(applications.subList(0, 1));
+        awaitOutboxDelivered();
+
+        long small = countStatements(() -> createApprovals(applications.subList(1, 10)));
+        // The approvers' notifications are delivered after each commit, on the dispatcher's thread
+        awaitOutboxDelivered();
+        long large = countStatements(() -> createApprovals(applications.subList(10, 40)));
+
+        // Each further chain only costs its applicant's routing view; the approval
+        // and outbox rows join batches and take pooled IDs, allowing for the few
+        // statements that refill the ID pools (three per chain without batching)
+        assertThat(large - small).isLessThanOrEqualTo(30 - 9 + 3);
+    }
+
+    private void awaitOutboxDelivered() {
+        Instant deadline = Instant.now().plus(Duration.ofSeconds(30));
+        while (notificationOutboxDispatcher.dispatchPending() > 0
+                || jdbcTemplate.queryForObject("SELECT count(*) FROM notification_outbox", Integer.class) > 0) {
+            assertThat(Instant.now()).as("outbox delivered").isBefore(deadline);
+            Thread.onSpinWait();
+        }
+    }
+
+    private void createApprovals(List<LeaveApplication> applications) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                applications.forEach(approvalRoutingService::createApprovals));
+    }
+}
@@ -0,0 +1,46 @@
+package com.ist.lms.service;
+
+import com.ist.lms.model.LeaveApplication;
+import com.ist.lms.model.LeaveType;
+import com.ist.lms.model.User;
+import com.ist.lms.model.enums.LeaveStatus;
+import com.ist.lms.support.PostgresIntegrationTest;
+import com.ist.lms.support.TestData;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Import(TestData.class)
+class LeaveApplicationListingTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private LeaveApplicationService leaveApplicationService;
+
+    @Autowired
+    private TestData testData;
+
+    @Test
+    void unpagedListingsReturnOnlyTheNewestPage() {
+        LeaveType leaveType = testData.annualLeave();
+        User applicant = testData.employee("Listed", null);
+        List<LeaveApplication> applications = new ArrayList<>();
+        for (int i = 0; i < 101; i++) {
+            LocalDate startDate = LocalDate.of(2040, 1, 1).plusDays(i * 3L);
+            applications.add(testData.application(applicant, leaveType, LeaveStatus.PENDING, startDate, startDate));
+        }
+
+        List<LeaveApplication> listed = leaveApplicationService.getLeaveApplicationsByUserId(applicant.getId());
+
+        assertThat(listed).hasSize(100);
+        assertThat(listed.get(0).getId()).isEqualTo(applications.get(100).getId());
+        assertThat(listed).extracting(LeaveApplication::getId).doesNotContain(applications.get(0).getId());
+        assertThat(leaveApplicationService.getLeaveApplicationsByUserIdAndStatus(applicant.getId(), LeaveStatus.PENDING))
+                .hasSize(100);
+    }
+}
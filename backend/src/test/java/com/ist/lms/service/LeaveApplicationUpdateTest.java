@@ -0,0 +1,63 @@
+package com.ist.lms.service;
+
+import com.ist.lms.model.LeaveApplication;
+import com.ist.lms.model.LeaveType;
+import com.ist.lms.model.User;
+import com.ist.lms.support.PostgresIntegrationTest;
+import com.ist.lms.support.TestData;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Import(TestData.class)
+class LeaveApplicationUpdateTest extends PostgresIntegrationTest {
+
+    private static final int YEAR = 2096;
+
+    @Autowired
+    private LeaveApplicationService leaveApplicationService;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void updateReservesTheRecalculatedDaysNotTheOnesSent() {
+        LeaveType leaveType = testData.annualLeave();
+        User applicant = testData.employee("Updating", testData.employee("UpdatingManager", null));
+        jdbcTemplate.update("INSERT INTO leave_balances (user_id, leave_type_id, year, total_days, used_days, " +
+                        "carried_over_days, createdAt, updatedAt) VALUES (?, ?, ?, 20, 0, 0, now(), now())",
+                applicant.getId(), leaveType.getId(), YEAR);
+
+        LeaveApplication created = leaveApplicationService.createLeaveApplication(LeaveApplication.builder()
+                .user(applicant)
+                .leaveType(leaveType)
+                .startDate(LocalDate.of(YEAR, 6, 4))
+                .endDate(LocalDate.of(YEAR, 6, 8))
+                .reason("Test")
+                .build());
+
+        LeaveApplication update = LeaveApplication.builder()
+                .id(created.getId())
+                .user(applicant)
+                .leaveType(leaveType)
+                .startDate(created.getStartDate())
+                .endDate(created.getEndDate())
+                .totalDays(0.5)
+                .reason("Changed")
+                .status(created.getStatus())
+                .build();
+        LeaveApplication updated = leaveApplicationService.updateLeaveApplication(update);
+
+        assertThat(updated.getTotalDays()).isEqualTo(created.getTotalDays());
+        assertThat(jdbcTemplate.queryForObject("SELECT reserved_days FROM leave_balances WHERE user_id = ?",
+                Double.class, applicant.getId())).isEqualTo(created.getTotalDays());
+    }
+}
@@ -0,0 +1,111 @@
+package com.ist.lms.service;
+
+import com.ist.lms.exception.ErrorResponse;
+import com.ist.lms.exception.GlobalExceptionHandler;
+import com.ist.lms.model.LeaveBalance;
+import com.ist.lms.model.User;
+import com.ist.lms.repository.LeaveBalanceRepository;
+import com.ist.lms.service.balance.OptimisticRetryTemplate;
+import com.ist.lms.support.PostgresIntegrationTest;
+import com.ist.lms.support.TestData;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+@Import(TestData.class)
+class LeaveBalanceUpdateTest extends PostgresIntegrationTest {
+
+    // Far enough out that no other test has balances in this year
+    private static final int YEAR = 2089;
+
+    @Autowired
+    private LeaveBalanceService leaveBalanceService;
+
+    @Autowired
+    private LeaveBalanceRepository leaveBalanceRepository;
+
+    @Autowired
+    private OptimisticRetryTemplate optimisticRetryTemplate;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void updateThatLostAnOptimisticLockRaceIsReplayed() {
+        long balanceId = balance(testData.employee("Raced", null));
+        TransactionTemplate concurrent = new TransactionTemplate(transactionManager);
+        concurrent.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        AtomicInteger attempts = new AtomicInteger();
+
+        optimisticRetryTemplate.execute(() -> {
+            LeaveBalance balance = leaveBalanceRepository.findById(balanceId).orElseThrow();
+            // Another writer commits between this attempt's read and its write
+            if (attempts.incrementAndGet() == 1) {
+                concurrent.executeWithoutResult(status -> jdbcTemplate.update("UPDATE leave_balances " +
+                        "SET total_days = total_days + 1, version = version + 1 WHERE id = ?", balanceId));
+            }
+            balance.setUsedDays(balance.getUsedDays() + 2);
+            return leaveBalanceRepository.saveAndFlush(balance);
+        });
+
+        assertThat(attempts).hasValue(2);
+        assertThat(column("total_days", balanceId)).isEqualTo(21);
+        assertThat(column("used_days", balanceId)).isEqualTo(2);
+    }
+
+    @Test
+    void updateAgainstAStaleVersionIsAConflict() {
+        long balanceId = balance(testData.employee("Stale", null));
+        jdbcTemplate.update("UPDATE leave_balances SET total_days = 22, version = version + 1 WHERE id = ?", balanceId);
+
+        LeaveBalance edit = LeaveBalance.builder()
+                .id(balanceId)
+                .year(YEAR)
+                .totalDays(30)
+                .usedDays(0)
+                .carriedOverDays(0)
+                .build();
+        edit.setVersion(0L);
+
+        ConcurrencyFailureException conflict = catchThrowableOfType(
+                () -> leaveBalanceService.updateLeaveBalance(edit), ConcurrencyFailureException.class);
+
+        assertThat(conflict).isNotNull();
+        ResponseEntity<ErrorResponse> response = new GlobalExceptionHandler()
+                .handleConcurrencyFailureException(conflict, new MockHttpServletRequest());
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(column("total_days", balanceId)).isEqualTo(22);
+    }
+
+    private long balance(User user) {
+        jdbcTemplate.update("INSERT INTO leave_balances (user_id, leave_type_id, year, total_days, used_days, " +
+                        "carried_over_days, createdAt, updatedAt) VALUES (?, ?, ?, 20, 0, 0, now(), now())",
+                user.getId(), testData.annualLeave().getId(), YEAR);
+        return jdbcTemplate.queryForObject("SELECT id FROM leave_balances WHERE user_id = ? AND year = ?",
+                Long.class, user.getId(), YEAR);
+    }
+
+    private double column(String column, long balanceId) {
+        return jdbcTemplate.queryForObject("SELECT " + column + " FROM leave_balances WHERE id = ?",
+                Double.class, balanceId);
+    }
+}
@@ -0,0 +1,120 @@
+package com.ist.lms.service.balance;
+
+import com.ist.lms.model.AccrualRun;
+import com.ist.lms.model.LeaveType;
+import com.ist.lms.model.User;
+import com.ist.lms.model.enums.AccrualRunStatus;
+import com.ist.lms.support.PostgresIntegrationTest;
+import com.ist.lms.support.TestData;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Import(TestData.class)
+class LeaveAccrualEngineTest extends PostgresIntegrationTest {
+
+    // Far enough out that no other test has balances in this year; every test accrues its own month
+    private static final int YEAR = 2098;
+
+    @Autowired
+    private LeaveAccrualEngine leaveAccrualEngine;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void rerunOfACompletedMonthIsANoOp() {
+        User user = testData.employee("AccruedOnce", null);
+
+        AccrualRun first = leaveAccrualEngine.accrue(1, YEAR, false);
+        AccrualRun second = leaveAccrualEngine.accrue(1, YEAR, false);
+
+        assertThat(first.getStatus()).isEqualTo(AccrualRunStatus.COMPLETED);
+        assertThat(second.getId()).isEqualTo(first.getId());
+        assertThat(second.getUsersAccrued()).isEqualTo(first.getUsersAccrued());
+        assertThat(totalDays(user)).isEqualTo(LeaveAccrualEngine.MONTHLY_ACCRUAL_DAYS);
+        assertThat(accrualEntries(user)).isEqualTo(1);
+    }
+
+    @Test
+    void interruptedRunResumesAfterItsCheckpoint() {
+        LeaveType leaveType = testData.annualLeave();
+        User accruedBefore = testData.employee("AccruedBeforeFailure", null);
+        User notYetAccrued = testData.employee("NotYetAccrued", null);
+
+        // The chunk up to the first user committed before the run failed
+        long runId = run(2, leaveType, AccrualRunStatus.FAILED, accruedBefore.getId(), LocalDateTime.now());
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                leaveAccrualEngine.accrueChunk(List.of(accruedBefore.getId()), leaveType, 2, YEAR));
+
+        assertThatThrownBy(() -> leaveAccrualEngine.accrue(2, YEAR, false))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("resume=true");
+
+        AccrualRun resumed = leaveAccrualEngine.accrue(2, YEAR, true);
+
+        assertThat(resumed.getId()).isEqualTo(runId);
+        assertThat(resumed.getStatus()).isEqualTo(AccrualRunStatus.COMPLETED);
+        assertThat(resumed.getLastUserId()).isGreaterThanOrEqualTo(notYetAccrued.getId());
+        assertThat(totalDays(accruedBefore)).isEqualTo(LeaveAccrualEngine.MONTHLY_ACCRUAL_DAYS);
+        assertThat(totalDays(notYetAccrued)).isEqualTo(LeaveAccrualEngine.MONTHLY_ACCRUAL_DAYS);
+        assertThat(accrualEntries(accruedBefore)).isEqualTo(1);
+    }
+
+    @Test
+    void runningRunIsOnlyTakenOverOnceAbandoned() {
+        LeaveType leaveType = testData.annualLeave();
+        User user = testData.employee("TakenOver", null);
+        long runId = run(3, leaveType, AccrualRunStatus.RUNNING, 0, LocalDateTime.now().minusMinutes(5));
+
+        assertThatThrownBy(() -> leaveAccrualEngine.accrue(3, YEAR, true))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("already in progress");
+        assertThat(totalDays(user)).isNull();
+
+        // No checkpoint for longer than the worker is given
+        jdbcTemplate.update("UPDATE accrual_runs SET updatedAt = ? WHERE id = ?",
+                LocalDateTime.now().minusMinutes(11), runId);
+        AccrualRun takenOver = leaveAccrualEngine.accrue(3, YEAR, true);
+
+        assertThat(takenOver.getId()).isEqualTo(runId);
+        assertThat(takenOver.getStatus()).isEqualTo(AccrualRunStatus.COMPLETED);
+        assertThat(totalDays(user)).isEqualTo(LeaveAccrualEngine.MONTHLY_ACCRUAL_DAYS);
+    }
+
+    private long run(int month, LeaveType leaveType, AccrualRunStatus status, long lastUserId, LocalDateTime updatedAt) {
+        jdbcTemplate.update("INSERT INTO accrual_runs (month, year, leave_type_id, status, last_user_id, " +
+                        "createdAt, updatedAt) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                month, YEAR, leaveType.getId(), status.name(), lastUserId, updatedAt, updatedAt);
+        return jdbcTemplate.queryForObject("SELECT id FROM accrual_runs WHERE month = ? AND year = ?",
+                Long.class, month, YEAR);
+    }
+
+    private Double totalDays(User user) {
+        List<Double> totals = jdbcTemplate.queryForList("SELECT total_days FROM leave_balances " +
+                "WHERE user_id = ? AND year = ?", Double.class, user.getId(), YEAR);
+        return totals.isEmpty() ? null : totals.get(0);
+    }
+
+    private int accrualEntries(User user) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM leave_balance_adjustments a " +
+                "JOIN leave_balances lb ON lb.id = a.leave_balance_id " +
+                "WHERE lb.user_id = ? AND lb.year = ? AND a.type = 'ACCRUAL'", Integer.class,
+                user.getId(), YEAR);
+    }
+}
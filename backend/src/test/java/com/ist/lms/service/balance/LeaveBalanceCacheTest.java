@@ -0,0 +1,86 @@
+package com.ist.lms.service.balance;
+
+import com.ist.lms.model.LeaveBalance;
+import com.ist.lms.model.User;
+import com.ist.lms.service.LeaveBalanceService;
+import com.ist.lms.support.PostgresIntegrationTest;
+import com.ist.lms.support.TestData;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Import(TestData.class)
+class LeaveBalanceCacheTest extends PostgresIntegrationTest {
+
+    private static final int YEAR = 2095;
+
+    @Autowired
+    private LeaveBalanceService leaveBalanceService;
+
+    @Autowired
+    private LeaveBalanceCache leaveBalanceCache;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Test
+    void writingTransactionsGetManagedBalancesAndLeaveTheCacheAlone() {
+        User user = userWithBalance();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            LeaveBalance balance = leaveBalanceService.getLeaveBalancesByUserIdAndYear(user.getId(), YEAR).get(0);
+            assertThat(entityManager.contains(balance)).isTrue();
+            balance.setTotalDays(99);
+            status.setRollbackOnly();
+        });
+
+        long misses = leaveBalanceCache.stats().getMissCount();
+        assertThat(leaveBalanceService.getLeaveBalancesByUserIdAndYear(user.getId(), YEAR).get(0).getTotalDays())
+                .isEqualTo(20);
+        assertThat(leaveBalanceCache.stats().getMissCount()).isEqualTo(misses + 1);
+    }
+
+    @Test
+    void readersGetDetachedCopies() {
+        User user = userWithBalance();
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        List<LeaveBalance> first = readOnly.execute(status -> {
+            List<LeaveBalance> balances = leaveBalanceService.getLeaveBalancesByUserIdAndYear(user.getId(), YEAR);
+            assertThat(entityManager.contains(balances.get(0))).isFalse();
+            return balances;
+        });
+        first.get(0).setTotalDays(99);
+
+        LeaveBalance second = leaveBalanceService.getLeaveBalancesByUserIdAndYear(user.getId(), YEAR).get(0);
+        assertThat(second).isNotSameAs(first.get(0));
+        assertThat(second.getTotalDays()).isEqualTo(20);
+    }
+
+    private User userWithBalance() {
+        User user = testData.employee("Cached", null);
+        jdbcTemplate.update("INSERT INTO leave_balances (user_id, leave_type_id, year, total_days, used_days, " +
+                        "carried_over_days, createdAt, updatedAt) VALUES (?, ?, ?, 20, 0, 0, now(), now())",
+                user.getId(), testData.annualLeave().getId(), YEAR);
+        return user;
+    }
+}
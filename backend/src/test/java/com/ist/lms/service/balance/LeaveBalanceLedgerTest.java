@@ -0,0 +1,110 @@
+package com.ist.lms.service.balance;
+
+import com.ist.lms.model.User;
+import com.ist.lms.repository.LeaveBalanceRepository;
+import com.ist.lms.support.PostgresIntegrationTest;
+import com.ist.lms.support.TestData;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Import(TestData.class)
+class LeaveBalanceLedgerTest extends PostgresIntegrationTest {
+
+    // Far enough out that no other test has balances in this year
+    private static final int YEAR = 2097;
+
+    // Ledger entries are dated a day apart from here, well before any snapshot cutoff
+    private static final LocalDateTime START = LocalDateTime.of(2000, 1, 1, 9, 0);
+
+    private static final int ENTRIES = LeaveBalanceLedger.SNAPSHOT_INTERVAL + 5;
+
+    @Autowired
+    private LeaveBalanceLedger leaveBalanceLedger;
+
+    @Autowired
+    private LeaveBalanceRepository leaveBalanceRepository;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void totalsAsOfFoldFromTheLatestSnapshot() {
+        User user = testData.employee("Folded", null);
+        long balanceId = balance(user, ENTRIES, usedThrough(ENTRIES));
+        appendEntries(balanceId, user);
+
+        assertThat(leaveBalanceLedger.snapshot(START.plusDays(ENTRIES))).isGreaterThanOrEqualTo(1);
+        assertThat(snapshots(balanceId)).isEqualTo(1);
+
+        for (int day = -1; day <= ENTRIES; day++) {
+            LocalDateTime asOf = START.plusDays(day);
+            BalanceTotals totals = leaveBalanceLedger.totalsAsOf(balanceId, asOf);
+            assertThat(totals.totalDays()).as("total days as of day %d", day).isEqualTo(Math.min(day + 1, ENTRIES));
+            assertThat(totals.usedDays()).as("used days as of day %d", day).isEqualTo(usedThrough(day));
+        }
+    }
+
+    @Test
+    void reconcileRebuildsOnlyBalancesThatDriftedFromTheirLedger() {
+        User inLine = testData.employee("InLine", null);
+        User drifted = testData.employee("Drifted", null);
+        long inLineId = balance(inLine, ENTRIES, usedThrough(ENTRIES));
+        long driftedId = balance(drifted, ENTRIES + 5, usedThrough(ENTRIES));
+        appendEntries(inLineId, inLine);
+        appendEntries(driftedId, drifted);
+        leaveBalanceLedger.snapshot(START.plusDays(ENTRIES));
+
+        assertThat(leaveBalanceRepository.findIdsOutOfLedger()).contains(driftedId).doesNotContain(inLineId);
+
+        leaveBalanceLedger.reconcile();
+
+        assertThat(totalDays(driftedId)).isEqualTo(ENTRIES);
+        assertThat(totalDays(inLineId)).isEqualTo(ENTRIES);
+        assertThat(version(inLineId)).isZero();
+        assertThat(leaveBalanceRepository.findIdsOutOfLedger()).doesNotContain(driftedId, inLineId);
+    }
+
+    private long balance(User user, double totalDays, double usedDays) {
+        jdbcTemplate.update("INSERT INTO leave_balances (user_id, leave_type_id, year, total_days, used_days, " +
+                        "carried_over_days, createdAt, updatedAt) VALUES (?, ?, ?, ?, ?, 0, ?, ?)",
+                user.getId(), testData.annualLeave().getId(), YEAR, totalDays, usedDays, START, START);
+        return jdbcTemplate.queryForObject("SELECT id FROM leave_balances WHERE user_id = ? AND year = ?",
+                Long.class, user.getId(), YEAR);
+    }
+
+    // One accrued day per entry, and two days taken with every third
+    private void appendEntries(long balanceId, User user) {
+        for (int day = 0; day < ENTRIES; day++) {
+            jdbcTemplate.update("INSERT INTO leave_balance_adjustments (leave_balance_id, adjusted_by_id, " +
+                            "adjustment_value, reason, type, total_delta, used_delta, createdAt) " +
+                            "VALUES (?, ?, 1, 'Test', 'ACCRUAL', 1, ?, ?)",
+                    balanceId, user.getId(), day % 3 == 0 ? 2 : 0, START.plusDays(day));
+        }
+    }
+
+    private static double usedThrough(int day) {
+        return day < 0 ? 0 : 2 * (Math.min(day, ENTRIES - 1) / 3 + 1);
+    }
+
+    private int snapshots(long balanceId) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM leave_balance_snapshots WHERE leave_balance_id = ?",
+                Integer.class, balanceId);
+    }
+
+    private double totalDays(long balanceId) {
+        return jdbcTemplate.queryForObject("SELECT total_days FROM leave_balances WHERE id = ?", Double.class, balanceId);
+    }
+
+    private long version(long balanceId) {
+        return jdbcTemplate.queryForObject("SELECT version FROM leave_balances WHERE id = ?", Long.class, balanceId);
+    }
+}
@@ -0,0 +1,108 @@
+package com.ist.lms.service.balance;
+
+import com.ist.lms.model.LeaveType;
+import com.ist.lms.model.User;
+import com.ist.lms.support.PostgresIntegrationTest;
+import com.ist.lms.support.TestData;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Import(TestData.class)
+class LeaveCarryOverEngineTest extends PostgresIntegrationTest {
+
+    // Far enough out that no other test has balances in these years
+    private static final int FROM_YEAR = 2090;
+    private static final int TO_YEAR = 2091;
+    private static final double MAX_DAYS = 5;
+
+    @Autowired
+    private LeaveCarryOverEngine leaveCarryOverEngine;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void rerunAfterAPartialCarryOverOnlyCarriesTheRest() {
+        LeaveType leaveType = testData.annualLeave();
+        User carriedEarlier = testData.employee("CarriedEarlier", null);
+        User withAccrual = testData.employee("WithAccrual", null);
+        User withFewDays = testData.employee("WithFewDays", null);
+
+        balance(carriedEarlier, leaveType, FROM_YEAR, 20, 4);
+        balance(withAccrual, leaveType, FROM_YEAR, 20, 10);
+        balance(withAccrual, leaveType, TO_YEAR, 2, 0);
+        balance(withFewDays, leaveType, FROM_YEAR, 20, 17);
+
+        // One partition committed before the run failed
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                leaveCarryOverEngine.carryOverPartition(List.of(carriedEarlier.getId()), FROM_YEAR, TO_YEAR, MAX_DAYS));
+
+        leaveCarryOverEngine.carryOver(FROM_YEAR, TO_YEAR, MAX_DAYS);
+        leaveCarryOverEngine.carryOver(FROM_YEAR, TO_YEAR, MAX_DAYS);
+
+        assertThat(totalDays(carriedEarlier, leaveType)).isEqualTo(5);
+        assertThat(totalDays(withAccrual, leaveType)).isEqualTo(7);
+        assertThat(totalDays(withFewDays, leaveType)).isEqualTo(3);
+
+        for (User user : List.of(carriedEarlier, withAccrual, withFewDays)) {
+            assertThat(carryOverEntries(user)).isEqualTo(1);
+            assertThat(carryOverNotifications(user)).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void daysHeldByPendingApplicationsAreNotCarriedOver() {
+        LeaveType leaveType = testData.annualLeave();
+        User withPendingLeave = testData.employee("WithPendingLeave", null);
+        balance(withPendingLeave, leaveType, FROM_YEAR, 20, 10);
+        jdbcTemplate.update("UPDATE leave_balances SET reserved_days = 8 WHERE user_id = ?", withPendingLeave.getId());
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                leaveCarryOverEngine.carryOverPartition(List.of(withPendingLeave.getId()), FROM_YEAR, TO_YEAR, MAX_DAYS));
+
+        assertThat(totalDays(withPendingLeave, leaveType)).isEqualTo(2);
+    }
+
+    private void balance(User user, LeaveType leaveType, int year, double totalDays, double usedDays) {
+        jdbcTemplate.update("INSERT INTO leave_balances (user_id, leave_type_id, year, total_days, used_days, " +
+                        "carried_over_days, createdAt, updatedAt) VALUES (?, ?, ?, ?, ?, 0, now(), now())",
+                user.getId(), leaveType.getId(), year, totalDays, usedDays);
+    }
+
+    private double totalDays(User user, LeaveType leaveType) {
+        return jdbcTemplate.queryForObject("SELECT total_days FROM leave_balances " +
+                "WHERE user_id = ? AND leave_type_id = ? AND year = ?", Double.class,
+                user.getId(), leaveType.getId(), TO_YEAR);
+    }
+
+    private int carryOverEntries(User user) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM leave_balance_adjustments a " +
+                "JOIN leave_balances lb ON lb.id = a.leave_balance_id " +
+                "WHERE lb.user_id = ? AND lb.year = ? AND a.type = 'CARRIED_OVER'", Integer.class,
+                user.getId(), TO_YEAR);
+    }
+
+    // Queued or already delivered, matched on the text they render to
+    private int carryOverNotifications(User user) {
+        String message = "%of Annual Leave have been carried over from " + FROM_YEAR + " to " + TO_YEAR + ".";
+        String rendered = "render_notification('message', template_id, template_params, user_id) LIKE ?";
+        return jdbcTemplate.queryForObject("SELECT (SELECT count(*) FROM notification_outbox " +
+                "WHERE user_id = ? AND " + rendered + ") + (SELECT count(*) FROM notifications " +
+                "WHERE user_id = ? AND " + rendered + ")", Integer.class,
+                user.getId(), message, user.getId(), message);
+    }
+}
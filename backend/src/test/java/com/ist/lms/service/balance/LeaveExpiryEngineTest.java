@@ -0,0 +1,50 @@
+package com.ist.lms.service.balance;
+
+import com.ist.lms.model.User;
+import com.ist.lms.support.PostgresIntegrationTest;
+import com.ist.lms.support.TestData;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Import(TestData.class)
+class LeaveExpiryEngineTest extends PostgresIntegrationTest {
+
+    // Earlier than any expiry date other tests use
+    private static final LocalDate EXPIRY_DATE = LocalDate.of(2000, 3, 31);
+
+    @Autowired
+    private LeaveExpiryEngine leaveExpiryEngine;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void daysHeldByPendingApplicationsDoNotExpire() {
+        User user = testData.employee("Expiring", null);
+        jdbcTemplate.update("INSERT INTO leave_balances (user_id, leave_type_id, year, total_days, used_days, " +
+                        "reserved_days, carried_over_days, expiry_date, createdAt, updatedAt) " +
+                        "VALUES (?, ?, 1999, 20, 5, 3, 0, ?, now(), now())",
+                user.getId(), testData.annualLeave().getId(), EXPIRY_DATE);
+
+        leaveExpiryEngine.expire(EXPIRY_DATE.plusDays(1));
+
+        Map<String, Object> balance = jdbcTemplate.queryForMap("SELECT total_days, used_days, reserved_days " +
+                "FROM leave_balances WHERE user_id = ?", user.getId());
+        assertThat(balance).containsEntry("total_days", 8.0).containsEntry("reserved_days", 3.0);
+
+        Double expired = jdbcTemplate.queryForObject("SELECT a.adjustment_value FROM leave_balance_adjustments a " +
+                "JOIN leave_balances lb ON lb.id = a.leave_balance_id WHERE lb.user_id = ? AND a.type = 'EXPIRED'",
+                Double.class, user.getId());
+        assertThat(expired).isEqualTo(12);
+    }
+}
@@ -0,0 +1,103 @@
+package com.ist.lms.service.impl;
+
+import com.ist.lms.model.LeaveApplication;
+import com.ist.lms.model.LeaveApproval;
+import com.ist.lms.model.LeaveType;
+import com.ist.lms.model.User;
+import com.ist.lms.repository.LeaveApprovalRepository;
+import com.ist.lms.repository.UserRepository;
+import com.ist.lms.repository.projection.UserRoutingView;
+import com.ist.lms.service.NotificationService;
+import com.ist.lms.service.routing.ApprovalRoutePlan;
+import com.ist.lms.service.routing.ApprovalRouteRule;
+import com.ist.lms.service.routing.ManagerApprovalRule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ApprovalRoutingServiceImplTest {
+
+    private static final long APPLICANT_ID = 10L;
+    private static final long MANAGER_ID = 11L;
+    private static final long HR_ID = 12L;
+    private static final long DEPARTMENT_ID = 5L;
+    private static final long ANNUAL_LEAVE_ID = 1L;
+    private static final long STUDY_LEAVE_ID = 2L;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private LeaveApprovalRepository leaveApprovalRepository;
+
+    @Mock
+    private NotificationService notificationService;
+
+    // HR reviews study leave only
+    private final AtomicInteger studyLeaveCompilations = new AtomicInteger();
+    private final ApprovalRouteRule studyLeaveHrRule = (leaveTypeId, departmentId) -> {
+        if (!leaveTypeId.equals(STUDY_LEAVE_ID)) {
+            return Optional.empty();
+        }
+        studyLeaveCompilations.incrementAndGet();
+        return Optional.of(ApprovalRoutePlan.Step.fixed(3, HR_ID, true));
+    };
+
+    private ApprovalRoutingServiceImpl routing;
+
+    @BeforeEach
+    void setUp() {
+        when(userRepository.findRoutingViewById(APPLICANT_ID)).thenReturn(Optional.of(new UserRoutingView() {
+            public Long getId() { return APPLICANT_ID; }
+            public String getFirstName() { return "Ada"; }
+            public String getLastName() { return "Applicant"; }
+            public Long getDepartmentId() { return DEPARTMENT_ID; }
+            public Long getManagerId() { return MANAGER_ID; }
+        }));
+        when(userRepository.getReferenceById(anyLong())).thenAnswer(invocation -> user(invocation.getArgument(0)));
+        when(leaveApprovalRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        routing = new ApprovalRoutingServiceImpl(List.of(new ManagerApprovalRule(), studyLeaveHrRule),
+                userRepository, leaveApprovalRepository, notificationService);
+    }
+
+    @Test
+    void plansAreCompiledPerLeaveType() {
+        List<LeaveApproval> annual = routing.createApprovals(application(ANNUAL_LEAVE_ID));
+        List<LeaveApproval> study = routing.createApprovals(application(STUDY_LEAVE_ID));
+        routing.createApprovals(application(STUDY_LEAVE_ID));
+
+        assertThat(annual).extracting(approval -> approval.getApprover().getId()).containsExactly(MANAGER_ID);
+        assertThat(study).extracting(approval -> approval.getApprover().getId()).containsExactly(MANAGER_ID, HR_ID);
+        // The study leave plan is compiled once and then served from the cache
+        assertThat(studyLeaveCompilations).hasValue(1);
+    }
+
+    private static LeaveApplication application(long leaveTypeId) {
+        return LeaveApplication.builder()
+                .user(user(APPLICANT_ID))
+                .leaveType(LeaveType.builder().id(leaveTypeId).name("Type " + leaveTypeId).build())
+                .startDate(LocalDate.of(2030, 3, 4))
+                .endDate(LocalDate.of(2030, 3, 8))
+                .build();
+    }
+
+    private static User user(long id) {
+        User user = new User();
+        user.setId(id);
+        return user;
+    }
+}
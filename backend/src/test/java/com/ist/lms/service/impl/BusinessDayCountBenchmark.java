@@ -0,0 +1,83 @@
+package com.ist.lms.service.impl;
+
+import com.ist.lms.model.Holiday;
+import com.ist.lms.repository.HolidayRepository;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Closed-form business-day count against the day-by-day loop it replaced. The loop
+ * is given the same in-memory calendar, so this measures the counting alone; the
+ * original loop also queried the database once per day, which only widens the gap.
+ * Run with the jmh profile, see pom.xml.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BusinessDayCountBenchmark {
+
+    @Param({"5", "30", "365", "1825"})
+    private int days;
+
+    private HolidayCalendarServiceImpl calendar;
+    private LocalDate startDate;
+    private LocalDate endDate;
+
+    @Setup
+    public void setUp() {
+        HolidayRepository holidayRepository = Mockito.mock(HolidayRepository.class);
+        when(holidayRepository.findAllRecurring()).thenReturn(List.of(
+                holiday(LocalDate.of(2000, 1, 1), true),
+                holiday(LocalDate.of(2000, 12, 25), true)));
+        when(holidayRepository.findHolidaysInDateRange(any(), any())).thenReturn(List.of(
+                holiday(LocalDate.of(2024, 3, 29), false),
+                holiday(LocalDate.of(2024, 4, 1), false),
+                holiday(LocalDate.of(2025, 4, 18), false)));
+
+        calendar = new HolidayCalendarServiceImpl(holidayRepository);
+        startDate = LocalDate.of(2024, 1, 3);
+        endDate = startDate.plusDays(days - 1L);
+        // Load the years up front, so both sides count from a warm cache
+        calendar.countBusinessDays(startDate, endDate);
+    }
+
+    @Benchmark
+    public double closedForm() {
+        return calendar.countBusinessDays(startDate, endDate);
+    }
+
+    @Benchmark
+    public double dayByDayLoop() {
+        double businessDays = 0;
+        for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+            if (calendar.isBusinessDay(date)) {
+                businessDays++;
+            }
+        }
+        return businessDays;
+    }
+
+    private static Holiday holiday(LocalDate date, boolean recurring) {
+        return Holiday.builder().name("Holiday").date(date).isRecurring(recurring).build();
+    }
+}
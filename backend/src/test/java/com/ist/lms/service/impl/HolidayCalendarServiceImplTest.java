@@ -0,0 +1,119 @@
+package com.ist.lms.service.impl;
+
+import com.ist.lms.model.Holiday;
+import com.ist.lms.repository.HolidayRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.MonthDay;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class HolidayCalendarServiceImplTest {
+
+    private static final List<Holiday> FIXED = List.of(
+            holiday(LocalDate.of(2023, 4, 7), false),
+            holiday(LocalDate.of(2024, 3, 29), false),
+            holiday(LocalDate.of(2024, 4, 1), false),
+            holiday(LocalDate.of(2024, 7, 6), false),  // Saturday
+            holiday(LocalDate.of(2025, 4, 18), false),
+            holiday(LocalDate.of(2026, 4, 3), false));
+
+    private static final List<Holiday> RECURRING = List.of(
+            holiday(LocalDate.of(2000, 1, 1), true),
+            holiday(LocalDate.of(2000, 12, 25), true),
+            holiday(LocalDate.of(2000, 2, 29), true));
+
+    @Mock
+    private HolidayRepository holidayRepository;
+
+    private HolidayCalendarServiceImpl calendar;
+
+    @BeforeEach
+    void setUp() {
+        when(holidayRepository.findAllRecurring()).thenReturn(RECURRING);
+        lenient().when(holidayRepository.findHolidaysInDateRange(any(), any())).thenAnswer(invocation -> {
+            LocalDate from = invocation.getArgument(0);
+            LocalDate to = invocation.getArgument(1);
+            return FIXED.stream().filter(h -> !h.getDate().isBefore(from) && !h.getDate().isAfter(to)).toList();
+        });
+        calendar = new HolidayCalendarServiceImpl(holidayRepository);
+    }
+
+    @Test
+    void countBusinessDaysMatchesDayByDayLoop() {
+        Random random = new Random(42);
+        LocalDate origin = LocalDate.of(2022, 11, 1);
+
+        for (int i = 0; i < 2_000; i++) {
+            LocalDate start = origin.plusDays(random.nextInt(1_500));
+            LocalDate end = start.plusDays(random.nextInt(800) - 5);
+
+            assertThat(calendar.countBusinessDays(start, end))
+                    .as("%s..%s", start, end)
+                    .isEqualTo(countByLoop(start, end));
+        }
+    }
+
+    @Test
+    void countBusinessDaysSkipsWeekdayHolidaysOnly() {
+        // Easter week 2024: Good Friday and Easter Monday off, one Saturday holiday later on
+        assertThat(calendar.countBusinessDays(LocalDate.of(2024, 3, 25), LocalDate.of(2024, 4, 5))).isEqualTo(8);
+        assertThat(calendar.countBusinessDays(LocalDate.of(2024, 7, 1), LocalDate.of(2024, 7, 7))).isEqualTo(5);
+        // Feb 29 only recurs in leap years
+        assertThat(calendar.countBusinessDays(LocalDate.of(2024, 2, 26), LocalDate.of(2024, 3, 1))).isEqualTo(4);
+        assertThat(calendar.countBusinessDays(LocalDate.of(2023, 2, 27), LocalDate.of(2023, 3, 3))).isEqualTo(5);
+    }
+
+    @Test
+    void loadsTheYearsOfARangeWithOneQuery() {
+        calendar.countBusinessDays(LocalDate.of(2022, 6, 1), LocalDate.of(2026, 6, 1));
+        calendar.countBusinessDays(LocalDate.of(2023, 1, 1), LocalDate.of(2025, 12, 31));
+
+        verify(holidayRepository, times(1)).findHolidaysInDateRange(any(), any());
+    }
+
+    @Test
+    void rejectsRangesSpanningTooManyYears() {
+        LocalDate start = LocalDate.of(2020, 1, 1);
+
+        assertThatThrownBy(() -> calendar.countBusinessDays(start,
+                start.plusYears(HolidayCalendarServiceImpl.MAX_RANGE_YEARS)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // The day-by-day count the closed form replaced
+    private static double countByLoop(LocalDate startDate, LocalDate endDate) {
+        double businessDays = 0;
+        for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+            boolean weekend = date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY;
+            if (!weekend && !isHoliday(date)) {
+                businessDays++;
+            }
+        }
+        return businessDays;
+    }
+
+    private static boolean isHoliday(LocalDate date) {
+        return FIXED.stream().anyMatch(h -> h.getDate().equals(date))
+                || RECURRING.stream().anyMatch(h -> MonthDay.from(h.getDate()).equals(MonthDay.from(date)));
+    }
+
+    private static Holiday holiday(LocalDate date, boolean recurring) {
+        return Holiday.builder().name("Holiday").date(date).isRecurring(recurring).build();
+    }
+}
@@ -0,0 +1,110 @@
+package com.ist.lms.service.impl;
+
+import com.ist.lms.model.Department;
+import com.ist.lms.model.LeaveApplication;
+import com.ist.lms.model.User;
+import com.ist.lms.model.enums.LeaveStatus;
+import com.ist.lms.repository.LeaveApplicationRepository;
+import com.ist.lms.repository.projection.LeaveIntervalView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LeaveOverlapServiceImplTest {
+
+    private static final long USER_ID = 1L;
+    private static final long OTHER_USER_ID = 2L;
+    private static final long DEPARTMENT_ID = 10L;
+
+    @Mock
+    private LeaveApplicationRepository leaveApplicationRepository;
+
+    private LeaveOverlapServiceImpl overlaps;
+
+    @BeforeEach
+    void setUp() {
+        when(leaveApplicationRepository.findApprovedIntervals()).thenReturn(List.of(
+                interval(100L, USER_ID, DEPARTMENT_ID, "2030-03-04", "2030-03-08"),
+                interval(101L, OTHER_USER_ID, DEPARTMENT_ID, "2030-03-06", "2030-03-12"),
+                interval(102L, OTHER_USER_ID, null, "2030-05-01", "2030-05-02")));
+        overlaps = new LeaveOverlapServiceImpl(leaveApplicationRepository);
+    }
+
+    @Test
+    void answersFromTheIndexLoadedOnce() {
+        assertThat(overlaps.hasApprovedOverlap(USER_ID, date("2030-03-08"), date("2030-03-09"))).isTrue();
+        assertThat(overlaps.hasApprovedOverlap(USER_ID, date("2030-03-09"), date("2030-03-12"))).isFalse();
+        assertThat(overlaps.findOverlappingLeaveIds(OTHER_USER_ID, date("2030-03-01"), date("2030-05-01")))
+                .containsExactly(101L, 102L);
+        assertThat(overlaps.findLeaveIdsInRange(date("2030-03-07"), date("2030-03-07"))).containsExactly(100L, 101L);
+        assertThat(overlaps.findDepartmentLeaveIdsInRange(DEPARTMENT_ID, date("2030-01-01"), date("2030-12-31")))
+                .containsExactly(100L, 101L);
+
+        verify(leaveApplicationRepository, times(1)).findApprovedIntervals();
+    }
+
+    @Test
+    void appliesStatusChangesAndRemovals() {
+        overlaps.findLeaveIdsInRange(date("2030-01-01"), date("2030-01-01"));
+
+        // Outside a transaction changes apply straight away
+        overlaps.leaveChanged(application(200L, LeaveStatus.APPROVED, "2030-04-01", "2030-04-03"));
+        overlaps.leaveChanged(application(100L, LeaveStatus.CANCELLED, "2030-03-04", "2030-03-08"));
+        overlaps.leaveRemoved(101L);
+
+        assertThat(overlaps.findLeaveIdsInRange(date("2030-03-01"), date("2030-04-30"))).containsExactly(200L);
+        assertThat(overlaps.hasApprovedOverlap(USER_ID, date("2030-04-03"), date("2030-04-03"))).isTrue();
+        assertThat(overlaps.findDepartmentLeaveIdsInRange(DEPARTMENT_ID, date("2030-01-01"), date("2030-12-31")))
+                .containsExactly(200L);
+        verify(leaveApplicationRepository, times(1)).findApprovedIntervals();
+    }
+
+    @Test
+    void reloadsAfterInvalidation() {
+        overlaps.findLeaveIdsInRange(date("2030-01-01"), date("2030-01-01"));
+        overlaps.invalidate();
+        overlaps.findLeaveIdsInRange(date("2030-01-01"), date("2030-01-01"));
+
+        verify(leaveApplicationRepository, times(2)).findApprovedIntervals();
+    }
+
+    private static LeaveApplication application(long id, LeaveStatus status, String startDate, String endDate) {
+        Department department = new Department();
+        department.setId(DEPARTMENT_ID);
+        User user = new User();
+        user.setId(USER_ID);
+        user.setDepartment(department);
+        return LeaveApplication.builder()
+                .id(id)
+                .user(user)
+                .status(status)
+                .startDate(date(startDate))
+                .endDate(date(endDate))
+                .build();
+    }
+
+    private static LeaveIntervalView interval(Long id, Long userId, Long departmentId, String startDate, String endDate) {
+        return new LeaveIntervalView() {
+            public Long getId() { return id; }
+            public Long getUserId() { return userId; }
+            public Long getDepartmentId() { return departmentId; }
+            public LocalDate getStartDate() { return date(startDate); }
+            public LocalDate getEndDate() { return date(endDate); }
+        };
+    }
+
+    private static LocalDate date(String date) {
+        return LocalDate.parse(date);
+    }
+}
@@ -0,0 +1,122 @@
+package com.ist.lms.service.notification;
+
+import com.ist.lms.model.User;
+import com.ist.lms.service.NotificationService;
+import com.ist.lms.support.PostgresIntegrationTest;
+import com.ist.lms.support.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Import(TestData.class)
+class NotificationOutboxDispatcherTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private NotificationOutboxDispatcher notificationOutboxDispatcher;
+
+    @Autowired
+    private UnreadNotificationCounter unreadNotificationCounter;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Deliver whatever other tests left queued, so only this test's entries are pending
+    @BeforeEach
+    void drainOutbox() {
+        notificationOutboxDispatcher.dispatchPending();
+    }
+
+    @Test
+    void entriesLockedByAnotherDispatcherAreSkippedUntilReleased() throws SQLException {
+        User user = testData.employee("Dispatched", null);
+        long held = queue(user, "Held");
+        long free = queue(user, "Free");
+
+        try (Connection other = dataSource.getConnection()) {
+            other.setAutoCommit(false);
+            try (PreparedStatement lock = other.prepareStatement(
+                    "SELECT id FROM notification_outbox WHERE id = ? FOR UPDATE")) {
+                lock.setLong(1, held);
+                lock.executeQuery().close();
+            }
+
+            assertThat(notificationOutboxDispatcher.dispatchPending()).isEqualTo(1);
+            assertThat(delivered(user)).containsExactly("Free");
+            assertThat(queued(held)).isTrue();
+            assertThat(queued(free)).isFalse();
+
+            other.rollback();
+        }
+
+        assertThat(notificationOutboxDispatcher.dispatchPending()).isEqualTo(1);
+        assertThat(delivered(user)).containsExactlyInAnyOrder("Free", "Held");
+        assertThat(queued(held)).isFalse();
+    }
+
+    @Test
+    void unreadCountFollowsCommittedChangesOnly() {
+        User user = testData.employee("Counted", null);
+        assertThat(unreadNotificationCounter.get(user.getId())).isZero();
+
+        queue(user, "First");
+        queue(user, "Second");
+        notificationOutboxDispatcher.dispatchPending();
+        assertThat(unreadNotificationCounter.get(user.getId())).isEqualTo(2);
+
+        Long first = jdbcTemplate.queryForObject("SELECT id FROM notifications WHERE user_id = ? AND title = 'First'",
+                Long.class, user.getId());
+        assertThat(notificationService.markAsRead(first, user.getId())).isTrue();
+        assertThat(unreadNotificationCounter.get(user.getId())).isEqualTo(1);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            notificationService.markAllAsRead(user.getId());
+            status.setRollbackOnly();
+        });
+        assertThat(unreadNotificationCounter.get(user.getId())).isEqualTo(1);
+
+        // The table agrees, so a reconcile leaves the count where the deltas put it
+        unreadNotificationCounter.reconcile();
+        assertThat(unreadNotificationCounter.get(user.getId())).isEqualTo(1);
+    }
+
+    private long queue(User user, String title) {
+        jdbcTemplate.update("INSERT INTO notification_outbox (user_id, type, title, message, createdAt) " +
+                "VALUES (?, 'GENERAL', ?, 'Test', now())", user.getId(), title);
+        return jdbcTemplate.queryForObject("SELECT max(id) FROM notification_outbox WHERE user_id = ?",
+                Long.class, user.getId());
+    }
+
+    private boolean queued(long outboxId) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM notification_outbox WHERE id = ?",
+                Integer.class, outboxId) > 0;
+    }
+
+    private List<String> delivered(User user) {
+        return jdbcTemplate.queryForList("SELECT title FROM notifications WHERE user_id = ? ORDER BY id",
+                String.class, user.getId());
+    }
+}
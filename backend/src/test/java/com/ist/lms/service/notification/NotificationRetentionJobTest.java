@@ -0,0 +1,72 @@
+package com.ist.lms.service.notification;
+
+import com.ist.lms.model.User;
+import com.ist.lms.support.PostgresIntegrationTest;
+import com.ist.lms.support.TestData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.YearMonth;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Import(TestData.class)
+class NotificationRetentionJobTest extends PostgresIntegrationTest {
+
+    // Far enough out that no partition exists for it yet
+    private static final YearMonth MONTH = YearMonth.of(2099, 1);
+
+    @Autowired
+    private NotificationRetentionJob notificationRetentionJob;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Object retentionMonths;
+    private Object archiveMonths;
+
+    // Keep every existing month in place, so other tests still find their partitions
+    @BeforeEach
+    void keepEverything() {
+        retentionMonths = ReflectionTestUtils.getField(notificationRetentionJob, "retentionMonths");
+        archiveMonths = ReflectionTestUtils.getField(notificationRetentionJob, "archiveMonths");
+        ReflectionTestUtils.setField(notificationRetentionJob, "retentionMonths", 1200);
+        ReflectionTestUtils.setField(notificationRetentionJob, "archiveMonths", 0);
+    }
+
+    @AfterEach
+    void restore() {
+        ReflectionTestUtils.setField(notificationRetentionJob, "retentionMonths", retentionMonths);
+        ReflectionTestUtils.setField(notificationRetentionJob, "archiveMonths", archiveMonths);
+    }
+
+    @Test
+    void rowsInTheDefaultPartitionAreMovedIntoTheNewMonth() {
+        User user = testData.employee("Stray", null);
+        jdbcTemplate.update("INSERT INTO notifications (is_read, createdAt, user_id, message, title) " +
+                "VALUES (false, ?, ?, 'Stray', 'Stray')", MONTH.atDay(15).atStartOfDay(), user.getId());
+        assertThat(countIn(NotificationRetentionJob.DEFAULT_PARTITION, user)).isEqualTo(1);
+
+        notificationRetentionJob.maintain(MONTH.minusMonths(1));
+
+        assertThat(countIn("notifications_p2099_01", user)).isEqualTo(1);
+        assertThat(countIn(NotificationRetentionJob.DEFAULT_PARTITION, user)).isZero();
+        assertThat(countIn(NotificationRetentionJob.TABLE, user)).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM pg_inherits " +
+                "WHERE inhrelid = CAST(? AS regclass) AND inhparent = CAST(? AS regclass)", Integer.class,
+                NotificationRetentionJob.DEFAULT_PARTITION, NotificationRetentionJob.TABLE)).isEqualTo(1);
+    }
+
+    private int countIn(String table, User user) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM " + table + " WHERE user_id = ?",
+                Integer.class, user.getId());
+    }
+}
@@ -0,0 +1,91 @@
+package com.ist.lms.service.notification;
+
+import com.ist.lms.model.Notification;
+import com.ist.lms.model.User;
+import com.ist.lms.model.enums.NotificationType;
+import com.ist.lms.repository.NotificationRepository;
+import com.ist.lms.repository.projection.NotificationSummary;
+import com.ist.lms.service.NotificationService;
+import com.ist.lms.support.PostgresIntegrationTest;
+import com.ist.lms.support.TestData;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Import(TestData.class)
+class NotificationTemplateTest extends PostgresIntegrationTest {
+
+    // Longer than the 255 characters the rendered text used to be cut to
+    private static final String DETAILS = "x".repeat(300);
+
+    private static final NotificationTemplate TEMPLATE = NotificationTemplate.of(NotificationType.GENERAL,
+            "Hello {firstName}", "Dear {fullName}, your {item} is ready. " + DETAILS)
+            .withAction("/dashboard", "Open");
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void templatedNotificationsAreStoredOnceAndRenderedPerRecipientWhenRead() {
+        User ada = testData.employee("Ada", null);
+        User grace = testData.employee("Grace", null);
+
+        // Queue and deliver in one transaction, so the dispatcher woken on commit finds nothing to race for
+        List<NotificationSummary> moved = new TransactionTemplate(transactionManager).execute(status -> {
+            int queued = notificationService.createNotifications(List.of(ada.getId(), grace.getId()), TEMPLATE,
+                    Map.of("item", "report"));
+            assertThat(queued).isEqualTo(2);
+            assertThat(jdbcTemplate.queryForObject("SELECT count(DISTINCT template_id) FROM notification_outbox " +
+                    "WHERE user_id IN (?, ?) AND title IS NULL AND message IS NULL", Integer.class,
+                    ada.getId(), grace.getId())).isEqualTo(1);
+
+            // What the dispatcher pushes to the stream
+            return notificationRepository.moveFromOutbox(jdbcTemplate.queryForList(
+                    "SELECT id FROM notification_outbox WHERE user_id IN (?, ?)", Long.class,
+                    ada.getId(), grace.getId()));
+        });
+        assertThat(moved).extracting(NotificationSummary::getTitle)
+                .containsExactlyInAnyOrder("Hello Ada", "Hello Grace");
+
+        // The feed, through both the summary projection and the entity
+        NotificationSummary summary = notificationService.getNotificationsPage(ada.getId(), false, null, 10)
+                .getItems().get(0);
+        assertThat(summary.getTitle()).isEqualTo("Hello Ada");
+        assertThat(summary.getMessage()).isEqualTo("Dear Ada Test, your report is ready. " + DETAILS);
+        assertThat(summary.getActionUrl()).isEqualTo("/dashboard");
+
+        Notification notification = notificationService.getUserNotifications(grace.getId()).get(0);
+        assertThat(notification.getTitle()).isEqualTo("Hello Grace");
+        assertThat(notification.getMessage()).isEqualTo("Dear Grace Test, your report is ready. " + DETAILS);
+    }
+
+    @Test
+    void placeholderWithoutAValueIsRejected() {
+        User user = testData.employee("Unfilled", null);
+
+        assertThatThrownBy(() -> notificationService.createNotifications(List.of(user.getId()), TEMPLATE, Map.of()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("{item}");
+    }
+}
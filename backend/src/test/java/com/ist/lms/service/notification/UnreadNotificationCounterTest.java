@@ -0,0 +1,121 @@
+package com.ist.lms.service.notification;
+
+import com.ist.lms.repository.NotificationRepository;
+import com.ist.lms.repository.projection.UnreadCountView;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UnreadNotificationCounterTest {
+
+    private static final long USER_ID = 1L;
+
+    @Mock
+    private NotificationRepository notificationRepository;
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void loadBetweenCommitAndDeltaIsNotCountedTwice() {
+        UnreadNotificationCounter counter = new UnreadNotificationCounter(notificationRepository);
+
+        TransactionSynchronizationManager.initSynchronization();
+        counter.change(USER_ID, 1);
+        List<TransactionSynchronization> delivery = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+
+        // The delivery has committed, so the load already sees it
+        when(notificationRepository.countByUser_IdAndReadFalse(USER_ID)).thenReturn(6L);
+        assertThat(counter.get(USER_ID)).isEqualTo(6);
+
+        complete(delivery, TransactionSynchronization.STATUS_COMMITTED);
+
+        assertThat(counter.get(USER_ID)).isEqualTo(6);
+        assertThat(counter.get(USER_ID)).isEqualTo(6);
+        verify(notificationRepository, times(2)).countByUser_IdAndReadFalse(USER_ID);
+    }
+
+    @Test
+    void deltasApplyOnCommitOnly() {
+        UnreadNotificationCounter counter = new UnreadNotificationCounter(notificationRepository);
+        when(notificationRepository.countByUser_IdAndReadFalse(USER_ID)).thenReturn(5L);
+        assertThat(counter.get(USER_ID)).isEqualTo(5);
+
+        TransactionSynchronizationManager.initSynchronization();
+        counter.change(USER_ID, -2);
+        List<TransactionSynchronization> rolledBack = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        complete(rolledBack, TransactionSynchronization.STATUS_ROLLED_BACK);
+        assertThat(counter.get(USER_ID)).isEqualTo(5);
+
+        counter.change(USER_ID, 3);
+        assertThat(counter.get(USER_ID)).isEqualTo(8);
+        verify(notificationRepository, times(1)).countByUser_IdAndReadFalse(USER_ID);
+    }
+
+    @Test
+    void reconcileKeepsDeltasAppliedWhileItRead() {
+        UnreadNotificationCounter counter = new UnreadNotificationCounter(notificationRepository);
+        when(notificationRepository.countByUser_IdAndReadFalse(USER_ID)).thenReturn(5L);
+        assertThat(counter.get(USER_ID)).isEqualTo(5);
+
+        // A delivery commits after the reconcile read the table
+        when(notificationRepository.countUnreadByUserIds(List.of(USER_ID))).thenAnswer(invocation -> {
+            counter.change(USER_ID, 1);
+            return List.of(unread(USER_ID, 5));
+        });
+
+        assertThat(counter.reconcile()).isZero();
+        assertThat(counter.get(USER_ID)).isEqualTo(6);
+    }
+
+    @Test
+    void reconcileReplacesDriftedCounts() {
+        UnreadNotificationCounter counter = new UnreadNotificationCounter(notificationRepository);
+        when(notificationRepository.countByUser_IdAndReadFalse(USER_ID)).thenReturn(5L);
+        assertThat(counter.get(USER_ID)).isEqualTo(5);
+
+        when(notificationRepository.countUnreadByUserIds(List.of(USER_ID))).thenReturn(List.of(unread(USER_ID, 7)));
+
+        assertThat(counter.reconcile()).isEqualTo(1);
+        assertThat(counter.get(USER_ID)).isEqualTo(7);
+    }
+
+    private static void complete(List<TransactionSynchronization> synchronizations, int status) {
+        if (status == TransactionSynchronization.STATUS_COMMITTED) {
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+        }
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+    }
+
+    private static UnreadCountView unread(Long userId, long count) {
+        return new UnreadCountView() {
+            @Override
+            public Long getUserId() {
+                return userId;
+            }
+
+            @Override
+            public long getUnreadCount() {
+                return count;
+            }
+        };
+    }
+}
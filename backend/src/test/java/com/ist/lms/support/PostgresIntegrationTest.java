@@ -0,0 +1,75 @@
+package com.ist.lms.support;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Supplier;
+
+/**
+ * Base class of tests that run against the real schema: the application is booted
+ * on an embedded PostgreSQL migrated by Flyway, shared by every test class for the
+ * lifetime of the JVM. Tests create their own rows and must not rely on a clean database.
+ */
+@SpringBootTest(properties = {
+        "logging.level.root=WARN",
+        "logging.level.com.ist.lms=WARN",
+        "logging.level.org.springframework.security=WARN",
+        "app.notification-outbox.dispatch-delay-millis=600000"
+})
+public abstract class PostgresIntegrationTest {
+
+    private static final EmbeddedPostgres POSTGRES = start();
+
+    @Autowired
+    protected EntityManagerFactory entityManagerFactory;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> POSTGRES.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+    }
+
+    /**
+     * Count the JDBC statements Hibernate prepares while an action runs
+     * @param action the action
+     * @return the number of statements
+     */
+    protected long countStatements(Runnable action) {
+        return countStatements(() -> {
+            action.run();
+            return null;
+        }).statements();
+    }
+
+    protected <T> Counted<T> countStatements(Supplier<T> action) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        try {
+            T result = action.get();
+            return new Counted<>(result, statistics.getPrepareStatementCount());
+        } finally {
+            statistics.setStatisticsEnabled(false);
+        }
+    }
+
+    protected record Counted<T>(T result, long statements) {
+    }
+
+    private static EmbeddedPostgres start() {
+        try {
+            return EmbeddedPostgres.builder().start();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to start embedded PostgreSQL", e);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.ist.lms.support;
+
+import com.ist.lms.model.ERole;
+import com.ist.lms.model.LeaveApplication;
+import com.ist.lms.model.LeaveApproval;
+import com.ist.lms.model.LeaveType;
+import com.ist.lms.model.User;
+import com.ist.lms.model.enums.ApprovalStatus;
+import com.ist.lms.model.enums.LeaveStatus;
+import com.ist.lms.repository.LeaveApplicationRepository;
+import com.ist.lms.repository.LeaveApprovalRepository;
+import com.ist.lms.repository.LeaveTypeRepository;
+import com.ist.lms.repository.RoleRepository;
+import com.ist.lms.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestComponent;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Creates the rows tests work on. Every user gets a unique email, so tests sharing
+ * the database do not collide.
+ */
+@TestComponent
+public class TestData {
+
+    public static final String ANNUAL_LEAVE = "Annual Leave";
+
+    private final UserRepository userRepository;
+    private final RoleRepository roleRepository;
+    private final LeaveTypeRepository leaveTypeRepository;
+    private final LeaveApplicationRepository leaveApplicationRepository;
+    private final LeaveApprovalRepository leaveApprovalRepository;
+
+    @Autowired
+    public TestData(
+            UserRepository userRepository,
+            RoleRepository roleRepository,
+            LeaveTypeRepository leaveTypeRepository,
+            LeaveApplicationRepository leaveApplicationRepository,
+            LeaveApprovalRepository leaveApprovalRepository) {
+        this.userRepository = userRepository;
+        this.roleRepository = roleRepository;
+        this.leaveTypeRepository = leaveTypeRepository;
+        this.leaveApplicationRepository = leaveApplicationRepository;
+        this.leaveApprovalRepository = leaveApprovalRepository;
+    }
+
+    public User employee(String name, User manager) {
+        User user = User.builder()
+                .firstName(name)
+                .lastName("Test")
+                .email(name.toLowerCase() + "-" + UUID.randomUUID() + "@ist.com")
+                .password("x")
+                .build();
+        user.setManager(manager);
+        user.setRoles(new HashSet<>(Set.of(roleRepository.findByName(ERole.ROLE_EMPLOYEE).orElseThrow())));
+        user.setActive(true);
+        return userRepository.save(user);
+    }
+
+    public LeaveType annualLeave() {
+        return leaveTypeRepository.findByName(ANNUAL_LEAVE).orElseThrow();
+    }
+
+    public LeaveApplication application(User applicant, LeaveType leaveType, LeaveStatus status,
+                                        LocalDate startDate, LocalDate endDate) {
+        return leaveApplicationRepository.save(LeaveApplication.builder()
+                .user(applicant)
+                .leaveType(leaveType)
+                .startDate(startDate)
+                .endDate(endDate)
+                .totalDays(endDate.toEpochDay() - startDate.toEpochDay() + 1)
+                .reason("Test")
+                .status(status)
+                .build());
+    }
+
+    public LeaveApproval pendingApproval(LeaveApplication application, User approver, int level) {
+        return leaveApprovalRepository.save(LeaveApproval.builder()
+                .leaveApplication(application)
+                .approver(approver)
+                .status(ApprovalStatus.PENDING)
+                .approvalLevel(level)
+                .notificationSent(false)
+                .build());
+    }
+}
@@ -0,0 +1,114 @@
+package com.ist.lms.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IntervalTreeTest {
+
+    @Test
+    void randomPutsAndRemovesMatchBruteForce() {
+        Random random = new Random(7);
+
+        for (int round = 0; round < 50; round++) {
+            IntervalTree<Long> tree = new IntervalTree<>();
+            Map<Long, long[]> reference = new LinkedHashMap<>();
+
+            for (int step = 0; step < 400; step++) {
+                // Few ids and a narrow range, so ids get replaced and endpoints touch often
+                long id = random.nextInt(40);
+                if (random.nextInt(3) == 0) {
+                    assertThat(tree.remove(id)).isEqualTo(reference.remove(id) != null);
+                } else {
+                    long start = random.nextInt(100);
+                    long end = start + random.nextInt(8);
+                    tree.put(id, start, end, id);
+                    reference.put(id, new long[] {start, end});
+                }
+
+                assertThat(tree.size()).isEqualTo(reference.size());
+                assertMatches(tree, reference, random);
+            }
+        }
+    }
+
+    @Test
+    void touchingEndpointsOverlap() {
+        IntervalTree<Long> tree = new IntervalTree<>();
+        tree.put(1, 10, 20, 1L);
+
+        assertThat(tree.overlaps(20, 25)).isTrue();
+        assertThat(tree.overlaps(5, 10)).isTrue();
+        assertThat(tree.overlaps(21, 25)).isFalse();
+        assertThat(tree.overlaps(5, 9)).isFalse();
+        assertThat(tree.findOverlapping(20, 20)).containsExactly(1L);
+    }
+
+    @Test
+    void putReplacesTheIntervalStoredUnderAnId() {
+        IntervalTree<Long> tree = new IntervalTree<>();
+        tree.put(1, 10, 20, 1L);
+        tree.put(2, 15, 30, 2L);
+        tree.put(1, 40, 50, 1L);
+
+        assertThat(tree.size()).isEqualTo(2);
+        assertThat(tree.findOverlapping(10, 14)).isEmpty();
+        assertThat(tree.findOverlapping(10, 45)).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void removingTheRootKeepsTheRestQueryable() {
+        Random random = new Random(11);
+        IntervalTree<Long> tree = new IntervalTree<>();
+        Map<Long, long[]> reference = new LinkedHashMap<>();
+        for (long id = 0; id < 200; id++) {
+            long start = random.nextInt(1000);
+            long end = start + random.nextInt(30);
+            tree.put(id, start, end, id);
+            reference.put(id, new long[] {start, end});
+        }
+
+        while (!tree.isEmpty()) {
+            long rootId = rootId(tree);
+            assertThat(tree.remove(rootId)).isTrue();
+            reference.remove(rootId);
+            assertMatches(tree, reference, random);
+        }
+        assertThat(tree.remove(0)).isFalse();
+    }
+
+    @Test
+    void rejectsAnEndBeforeTheStart() {
+        assertThatThrownBy(() -> new IntervalTree<Long>().put(1, 10, 9, 1L))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static void assertMatches(IntervalTree<Long> tree, Map<Long, long[]> reference, Random random) {
+        for (int query = 0; query < 10; query++) {
+            long start = random.nextInt(110) - 5;
+            long end = start + random.nextInt(12);
+            List<Long> expected = reference.entrySet().stream()
+                    .filter(entry -> entry.getValue()[0] <= end && entry.getValue()[1] >= start)
+                    .sorted(Comparator.comparingLong((Map.Entry<Long, long[]> entry) -> entry.getValue()[0])
+                            .thenComparing(Map.Entry::getKey))
+                    .map(Map.Entry::getKey)
+                    .toList();
+
+            assertThat(tree.findOverlapping(start, end)).as("[%d, %d]", start, end).isEqualTo(expected);
+            assertThat(tree.overlaps(start, end)).as("[%d, %d]", start, end).isEqualTo(!expected.isEmpty());
+        }
+    }
+
+    private static long rootId(IntervalTree<Long> tree) {
+        Object root = ReflectionTestUtils.getField(tree, "root");
+        return (long) ReflectionTestUtils.getField(root, "id");
+    }
+}
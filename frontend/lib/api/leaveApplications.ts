@@ -1,5 +1,5 @@
 import apiClient from './apiClient';
-import { LeaveApplication, LeaveStatus } from './types';
+import { BusinessDaysResult, CursorPage, DateRange, LeaveApplication, LeaveApplicationSummary, LeaveStatus } from './types';
 
 export const LeaveApplicationService = {
   // Get all leave applications
@@ -10,6 +10,23 @@ export const LeaveApplicationService = {
     return data;
   },
 
+  // Get one page of leave application summaries, newest first
+  getLeaveApplicationsPage: async (
+    params: { status?: LeaveStatus; cursor?: string; size?: number } = {}
+  ): Promise<CursorPage<LeaveApplicationSummary>> => {
+    const { data } = await apiClient.get<CursorPage<LeaveApplicationSummary>>('/leave-applications/page', { params });
+    return data;
+  },
+
+  // Get one page of a user's leave application summaries, newest first
+  getLeaveApplicationsPageByUserId: async (
+    userId: number,
+    params: { status?: LeaveStatus; cursor?: string; size?: number } = {}
+  ): Promise<CursorPage<LeaveApplicationSummary>> => {
+    const { data } = await apiClient.get<CursorPage<LeaveApplicationSummary>>(`/leave-applications/user/${userId}/page`, { params });
+    return data;
+  },
+
   // Get leave applications by user ID
   getLeaveApplicationsByUserId: async (userId: number): Promise<LeaveApplication[]> => {
     const { data } = await apiClient.get<LeaveApplication[]>(`/leave-applications/user/${userId}`);
@@ -131,6 +148,14 @@ export const LeaveApplicationService = {
     return data;
   },
 
+  // Calculate business days and return dates for several ranges in one request
+  calculateBusinessDaysBatch: async (ranges: DateRange[]): Promise<BusinessDaysResult[]> => {
+    const { data } = await apiClient.post<BusinessDaysResult[]>('/leave-applications/calculate-days/batch', {
+      ranges
+    });
+    return data;
+  },
+
   // Check leave balance availability
   checkLeaveBalanceAvailability: async (
     userId: number,
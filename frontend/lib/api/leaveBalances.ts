@@ -1,5 +1,5 @@
 import apiClient from './apiClient';
-import { LeaveBalance } from './types';
+import { LeaveBalance, LeaveBalanceAsOf } from './types';
 
 export const LeaveBalanceService = {
   // Get all leave balances
@@ -26,6 +26,12 @@ export const LeaveBalanceService = {
     return data;
   },
 
+  // Get a user's leave balances as they stood at the end of a date (yyyy-MM-dd)
+  getLeaveBalancesAsOf: async (userId: number, date: string): Promise<LeaveBalanceAsOf[]> => {
+    const { data } = await apiClient.get<LeaveBalanceAsOf[]>(`/leave-balances/user/${userId}/as-of/${date}`);
+    return data;
+  },
+
   // Get leave balance by ID
   getLeaveBalanceById: async (id: number): Promise<LeaveBalance> => {
     const { data } = await apiClient.get<LeaveBalance>(`/leave-balances/${id}`);
@@ -1,5 +1,5 @@
 import apiClient from './apiClient';
-import { Notification } from './types';
+import { BroadcastNotificationRequest, CursorPage, Notification, NotificationStreamHandlers } from './types';
 
 export const NotificationService = {
   // Get all notifications
@@ -8,6 +8,14 @@ export const NotificationService = {
     return data;
   },
 
+  // Get one page of notifications, newest first
+  getNotificationsPage: async (
+    params: { unread?: boolean; cursor?: string; size?: number } = {}
+  ): Promise<CursorPage<Notification>> => {
+    const { data } = await apiClient.get<CursorPage<Notification>>('/notifications/page', { params });
+    return data;
+  },
+
   // Get unread notifications
   getUnreadNotifications: async (): Promise<Notification[]> => {
     const { data } = await apiClient.get<Notification[]>('/notifications/unread');
@@ -36,5 +44,52 @@ export const NotificationService = {
   deleteNotification: async (notificationId: number): Promise<boolean> => {
     const { data } = await apiClient.delete<{ success: boolean }>(`/notifications/${notificationId}`);
     return data.success;
+  },
+
+  // Send one notification to the given users, or every active user (admin and HR only)
+  broadcastNotification: async (request: BroadcastNotificationRequest): Promise<number> => {
+    const { data } = await apiClient.post<{ queued: number }>('/notifications/broadcast', request);
+    return data.queued;
+  },
+
+  // Stream notification events until the signal aborts or the server closes the stream.
+  // EventSource cannot send the bearer token, so the stream is read with fetch.
+  streamNotifications: async (handlers: NotificationStreamHandlers, signal: AbortSignal): Promise<void> => {
+    const token = typeof window !== 'undefined' ? localStorage.getItem('token') : null;
+    const response = await fetch(`${apiClient.defaults.baseURL}/notifications/stream`, {
+      headers: {
+        Accept: 'text/event-stream',
+        ...(token ? { Authorization: `Bearer ${token}` } : {})
+      },
+      signal
+    });
+    if (!response.ok || !response.body) {
+      throw new Error(`Notification stream failed with status ${response.status}`);
+    }
+
+    const reader = response.body.pipeThrough(new TextDecoderStream()).getReader();
+    let buffer = '';
+    while (true) {
+      const { value, done } = await reader.read();
+      if (done) return;
+
+      buffer += value;
+      let end;
+      while ((end = buffer.indexOf('\n\n')) >= 0) {
+        const block = buffer.slice(0, end);
+        buffer = buffer.slice(end + 2);
+
+        let event = 'message';
+        let data = '';
+        for (const line of block.split('\n')) {
+          if (line.startsWith('event:')) event = line.slice(6).trim();
+          else if (line.startsWith('data:')) data += line.slice(5);
+        }
+        if (!data) continue; // heartbeat
+
+        if (event === 'notification') handlers.onNotification(JSON.parse(data));
+        else if (event === 'unread-count') handlers.onUnreadCount(JSON.parse(data).count);
+      }
+    }
   }
 }; 
\ No newline at end of file
@@ -63,11 +63,24 @@ export interface LeaveBalance {
   usedDays: number;
   remainingDays: number;
   carriedOverDays: number;
+  reservedDays?: number;
+  availableDays?: number;
   expiryDate?: string;
+  version?: number;
   createdAt?: string;
   updatedAt?: string;
 }
 
+export interface LeaveBalanceAsOf {
+  leaveBalanceId: number;
+  leaveTypeId: number;
+  leaveTypeName: string;
+  year: number;
+  totalDays: number;
+  usedDays: number;
+  remainingDays: number;
+}
+
 export interface LeaveApplication {
   id: number;
   user: User;
@@ -85,6 +98,34 @@ export interface LeaveApplication {
   updatedAt?: string;
 }
 
+export interface LeaveApplicationSummary {
+  id: number;
+  userId: number;
+  applicantName: string;
+  leaveTypeId: number;
+  leaveTypeName: string;
+  startDate: string;
+  endDate: string;
+  totalDays: number;
+  status: LeaveStatus;
+  createdAt: string;
+}
+
+export interface CursorPage<T> {
+  items: T[];
+  nextCursor?: string;
+}
+
+export interface DateRange {
+  startDate: string;
+  endDate: string;
+}
+
+export interface BusinessDaysResult extends DateRange {
+  totalDays: number;
+  returnDate: string;
+}
+
 // Auth types
 export interface LoginRequest {
   email: string;
@@ -145,6 +186,22 @@ export interface Notification {
   actionText?: string;
 }
 
+// {firstName}, {lastName} and {fullName} are filled per recipient, other placeholders from parameters
+export interface BroadcastNotificationRequest {
+  title: string;
+  message: string;
+  type?: NotificationType;
+  actionUrl?: string;
+  actionText?: string;
+  parameters?: Record<string, string>;
+  userIds?: number[];
+}
+
+export interface NotificationStreamHandlers {
+  onNotification: (notification: Notification) => void;
+  onUnreadCount: (count: number) => void;
+}
+
 // New types for profile and settings
 export interface UpdateProfileRequest {
   firstName?: string;
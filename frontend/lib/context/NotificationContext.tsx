@@ -42,13 +42,13 @@ export const NotificationProvider = ({ children }: NotificationProviderProps) =>
     try {
       console.log('Fetching notifications for user...');
       setLoading(true);
-      const [allNotifications, count] = await Promise.all([
-        NotificationService.getAllNotifications(),
+      const [page, count] = await Promise.all([
+        NotificationService.getNotificationsPage({ size: 50 }),
         NotificationService.getUnreadCount()
       ]);
       
-      console.log(`Received ${allNotifications.length} notifications, ${count} unread`);
-      setNotifications(allNotifications);
+      console.log(`Received ${page.items.length} notifications, ${count} unread`);
+      setNotifications(page.items);
       setUnreadCount(count);
     } catch (error) {
       console.error('Error fetching notifications:', error);
@@ -121,20 +121,46 @@ export const NotificationProvider = ({ children }: NotificationProviderProps) =>
     }
   }, [isAuthenticated, user?.id]);
 
-  // Poll for new notifications every minute only when authenticated
+  // Receive new notifications and unread counts pushed by the server while authenticated
   useEffect(() => {
     if (!isAuthenticated) return;
     
-    console.log('Setting up notification polling interval');
-    const interval = setInterval(() => {
-      fetchNotifications();
-    }, 60000); // 1 minute
+    const controller = new AbortController();
+    let retryDelay = 1000;
     
-    return () => {
-      console.log('Clearing notification polling interval');
-      clearInterval(interval);
+    const connect = async () => {
+      while (!controller.signal.aborted) {
+        try {
+          await NotificationService.streamNotifications({
+            onNotification: (notification) => {
+              retryDelay = 1000;
+              setNotifications(prev => [notification, ...prev.filter(n => n.id !== notification.id)]);
+              setUnreadCount(prev => prev + 1);
+            },
+            onUnreadCount: (count) => {
+              retryDelay = 1000;
+              setUnreadCount(count);
+            }
+          }, controller.signal);
+          // The stream ended cleanly (e.g. the server timed it out), so reconnect promptly
+          retryDelay = 1000;
+        } catch (error) {
+          if (controller.signal.aborted) return;
+          console.error('Notification stream interrupted:', error);
+        }
+        
+        // Reconnect with backoff, then catch up on anything sent while disconnected
+        await new Promise(resolve => setTimeout(resolve, retryDelay));
+        retryDelay = Math.min(retryDelay * 2, 60000);
+        if (!controller.signal.aborted) {
+          fetchNotifications();
+        }
+      }
     };
-  }, [isAuthenticated]);
+    connect();
+    
+    return () => controller.abort();
+  }, [isAuthenticated, user?.id]);
 
   const value = {
     notifications,